@@ -1,13 +1,24 @@
 package com.venueconnect.admin;
 
+import com.venueconnect.event.EventSeatPartitionManager;
 import com.venueconnect.event.dto.CreateEventRequest;
 import com.venueconnect.event.dto.EventResponse;
+import com.venueconnect.inventory.EventSeatGenerator;
+import com.venueconnect.inventory.SeatGenerationStatus;
 import com.venueconnect.order.OrderResponse;
+import com.venueconnect.reservation.SeatCapService;
+import com.venueconnect.venue.HallSeatImportService;
+import com.venueconnect.venue.SeatImportResult;
+import com.venueconnect.waitingroom.WaitingRoomService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -16,6 +27,11 @@ import java.util.List;
 public class AdminController {
 
     private final AdminService adminService;
+    private final WaitingRoomService waitingRoomService;
+    private final EventSeatPartitionManager eventSeatPartitionManager;
+    private final EventSeatGenerator eventSeatGenerator;
+    private final HallSeatImportService hallSeatImportService;
+    private final SeatCapService seatCapService;
 
     @PostMapping("/events")
     public ResponseEntity<EventResponse> createEvent(@RequestBody CreateEventRequest request) {
@@ -30,6 +46,59 @@ public class AdminController {
     //     return ResponseEntity.ok(updatedEvent);
     // }
 
+    // Streams a seat layout into a hall: text/csv (row,number,category) or application/x-ndjson, one seat per line
+    @PostMapping(value = "/halls/{hallId}/seats", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<SeatImportResult> importHallSeats(@PathVariable Long hallId,
+                                                            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                            InputStream body) {
+        HallSeatImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? HallSeatImportService.Format.NDJSON
+                : HallSeatImportService.Format.CSV;
+        return ResponseEntity.ok(hallSeatImportService.importSeats(hallId, format, body));
+    }
+
+    // Progress of the background job that creates an event's seats from its hall
+    @GetMapping("/events/{eventId}/seat-generation")
+    public ResponseEntity<SeatGenerationStatus> getSeatGenerationStatus(@PathVariable Long eventId) {
+        SeatGenerationStatus status = eventSeatGenerator.status(eventId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    // Runs seat generation again (e.g. after a failure); seats that already exist are kept
+    @PostMapping("/events/{eventId}/seat-generation")
+    public ResponseEntity<Void> restartSeatGeneration(@PathVariable Long eventId) {
+        if (!eventSeatGenerator.start(eventId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    // Opens the virtual waiting room before a high-demand on-sale; reservations then need an admission token
+    @PostMapping("/events/{eventId}/waiting-room")
+    public ResponseEntity<Void> openWaitingRoom(@PathVariable Long eventId) {
+        waitingRoomService.open(eventId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/events/{eventId}/waiting-room")
+    public ResponseEntity<Void> closeWaitingRoom(@PathVariable Long eventId) {
+        waitingRoomService.close(eventId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Per-user ticket cap for one event; omit limit to go back to the default, 0 for unlimited
+    @PutMapping("/events/{eventId}/seat-cap")
+    public ResponseEntity<Void> setSeatCap(@PathVariable Long eventId, @RequestParam(required = false) Integer limit) {
+        seatCapService.setLimit(eventId, limit);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Archives the event_seats partitions of events that ended more than retentionDays ago
+    @PostMapping("/event-seats/partitions/detach")
+    public ResponseEntity<List<String>> detachEndedEventSeatPartitions(@RequestParam(defaultValue = "90") int retentionDays) {
+        return ResponseEntity.ok(eventSeatPartitionManager.detachEndedPartitions(Duration.ofDays(retentionDays)));
+    }
+
     @GetMapping("/orders")
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
         return ResponseEntity.ok(adminService.getAllOrders());
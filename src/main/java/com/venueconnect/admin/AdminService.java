@@ -2,13 +2,16 @@ package com.venueconnect.admin;
 
 import com.venueconnect.event.Event;
 import com.venueconnect.event.EventRepository;
+import com.venueconnect.event.EventSeatPartitionManager;
 import com.venueconnect.event.TicketType;
 import com.venueconnect.event.dto.CreateEventRequest;
 import com.venueconnect.event.dto.EventResponse;
 import com.venueconnect.event.dto.TicketTypeResponse;
+import com.venueconnect.inventory.EventSeatGenerator;
 import com.venueconnect.order.Order;
 import com.venueconnect.order.OrderRepository;
 import com.venueconnect.order.OrderResponse; // Assuming you want to return OrderResponse
+import com.venueconnect.order.OrderItem;
 import com.venueconnect.order.OrderItemResponse; // Import necessary DTO
 import com.venueconnect.venue.Hall;
 import com.venueconnect.venue.HallRepository;
@@ -28,6 +31,8 @@ public class AdminService {
     private final EventRepository eventRepository;
     private final HallRepository hallRepository;
     private final OrderRepository orderRepository;
+    private final EventSeatPartitionManager eventSeatPartitionManager;
+    private final EventSeatGenerator eventSeatGenerator;
 
     @Transactional
     public EventResponse createEvent(CreateEventRequest request) {
@@ -50,6 +55,8 @@ public class AdminService {
                         .name(ttReq.getName())
                         .price(ttReq.getPrice())
                         .totalQuantity(ttReq.getTotalQuantity())
+                        .generalAdmission(ttReq.isGeneralAdmission())
+                        .seatCategory(ttReq.isGeneralAdmission() ? null : ttReq.getSeatCategory())
                         .event(newEvent) // Link back to the event
                         .build())
                 .collect(Collectors.toList());
@@ -58,6 +65,12 @@ public class AdminService {
         // Save the event (TicketTypes will be saved due to cascade)
         Event savedEvent = eventRepository.save(newEvent);
 
+        // Make sure the event's seats go to their own event_seats partition rather than the default one
+        eventSeatPartitionManager.ensurePartitionFor(savedEvent.getId());
+
+        // Create the event's seats from the hall in the background; progress is reported by the generator
+        eventSeatGenerator.generateAfterCommit(savedEvent.getId());
+
         // Map to response DTO (similar to EventService)
         return mapToEventResponse(savedEvent);
     }
@@ -84,6 +97,8 @@ public class AdminService {
                         .name(ticketType.getName())
                         .price(ticketType.getPrice())
                         .totalQuantity(ticketType.getTotalQuantity())
+                        .generalAdmission(ticketType.isGeneralAdmission())
+                        .seatCategory(ticketType.getSeatCategory())
                         .build())
                 .collect(Collectors.toList());
 
@@ -102,12 +117,7 @@ public class AdminService {
 
     private OrderResponse mapToOrderResponse(Order order) {
         List<OrderItemResponse> itemResponses = order.getOrderItems().stream()
-                .map(item -> OrderItemResponse.builder()
-                        .eventSeatId(item.getEventSeat().getId())
-                        .seatRow(item.getEventSeat().getSeat().getSeatRow())
-                        .seatNumber(item.getEventSeat().getSeat().getSeatNumber())
-                        .price(item.getPrice())
-                        .build())
+                .map(this::mapToOrderItemResponse)
                 .collect(Collectors.toList());
 
         return OrderResponse.builder()
@@ -118,4 +128,17 @@ public class AdminService {
                 .items(itemResponses)
                 .build();
     }
-}
\ No newline at end of file
+
+    private OrderItemResponse mapToOrderItemResponse(OrderItem item) {
+        OrderItemResponse.OrderItemResponseBuilder builder = OrderItemResponse.builder()
+                .ticketTypeId(item.getTicketType() != null ? item.getTicketType().getId() : null)
+                .price(item.getPrice());
+        // General-admission tickets have no seat
+        if (item.getEventSeat() != null) {
+            builder.eventSeatId(item.getEventSeat().getId())
+                    .seatRow(item.getSeatRow())
+                    .seatNumber(item.getSeatNumber());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.venueconnect.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps an event to one of the booking queue shards with a jump consistent hash, so every confirmation of an event
+ * goes through the same queue (and is applied in order) while different events are confirmed in parallel.
+ * <p>
+ * Changing {@code application.booking.shards} only moves about 1/K of the events to another shard. Let the queues
+ * drain before resizing, or a moved event's older and newer messages can be confirmed out of order.
+ */
+@Component
+public class BookingShardRouter {
+
+    @Getter
+    private final int shardCount;
+
+    public BookingShardRouter(@Value("${application.booking.shards:4}") int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalStateException("application.booking.shards must be at least 1, was " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardFor(Long eventId) {
+        // Messages written before events were part of the message all land on shard 0
+        return eventId == null ? 0 : jumpHash(eventId, shardCount);
+    }
+
+    public String routingKeyFor(Long eventId) {
+        return RabbitMQConfig.bookingRoutingKey(shardFor(eventId));
+    }
+
+    // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -1,13 +1,19 @@
 package com.venueconnect.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitMQConfig {
 
@@ -15,14 +21,25 @@ public class RabbitMQConfig {
     public static final String BOOKING_EXCHANGE_NAME = "booking.exchange";
     public static final String BOOKING_DLX_NAME = "booking.dlx"; // Dead Letter Exchange
 
-    // Queue names
-    public static final String BOOKING_QUEUE_NAME = "booking.queue";
+    // Queue names (booking queues are sharded by event: booking.queue.0 ... booking.queue.{shards - 1})
+    public static final String BOOKING_QUEUE_PREFIX = "booking.queue.";
     public static final String BOOKING_DLQ_NAME = "booking.dlq"; // Dead Letter Queue
 
     // Routing keys
-    public static final String BOOKING_ROUTING_KEY = "booking.key";
+    public static final String BOOKING_ROUTING_KEY_PREFIX = "booking.key.";
     public static final String BOOKING_DLQ_ROUTING_KEY = "booking.dlq.key";
 
+    // Listener container factories
+    public static final String BOOKING_BATCH_LISTENER_FACTORY = "bookingBatchListenerContainerFactory";
+
+    public static String bookingQueueName(int shard) {
+        return BOOKING_QUEUE_PREFIX + shard;
+    }
+
+    public static String bookingRoutingKey(int shard) {
+        return BOOKING_ROUTING_KEY_PREFIX + shard;
+    }
+
     // --- Exchanges ---
     @Bean
     DirectExchange bookingExchange() {
@@ -35,13 +52,22 @@ public class RabbitMQConfig {
     }
 
     // --- Queues ---
+    // One queue and binding per shard. Failed messages go to the DLX; a single active consumer per queue keeps
+    // each shard's messages in order even when several instances listen to it (the others stand by).
     @Bean
-    Queue bookingQueue() {
-        // Configure the main queue to route failed messages to the DLX
-        return QueueBuilder.durable(BOOKING_QUEUE_NAME)
-                .withArgument("x-dead-letter-exchange", BOOKING_DLX_NAME)
-                .withArgument("x-dead-letter-routing-key", BOOKING_DLQ_ROUTING_KEY)
-                .build();
+    Declarables bookingShardQueues(BookingShardRouter bookingShardRouter) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int shard = 0; shard < bookingShardRouter.getShardCount(); shard++) {
+            Queue queue = QueueBuilder.durable(bookingQueueName(shard))
+                    .withArgument("x-dead-letter-exchange", BOOKING_DLX_NAME)
+                    .withArgument("x-dead-letter-routing-key", BOOKING_DLQ_ROUTING_KEY)
+                    .singleActiveConsumer()
+                    .build();
+            declarables.add(queue);
+            declarables.add(new Binding(queue.getName(), Binding.DestinationType.QUEUE,
+                    BOOKING_EXCHANGE_NAME, bookingRoutingKey(shard), null));
+        }
+        return new Declarables(declarables);
     }
 
     @Bean
@@ -51,16 +77,36 @@ public class RabbitMQConfig {
     }
 
     // --- Bindings ---
-    @Bean
-    Binding bookingBinding(Queue bookingQueue, DirectExchange bookingExchange) {
-        return BindingBuilder.bind(bookingQueue).to(bookingExchange).with(BOOKING_ROUTING_KEY);
-    }
-
     @Bean
     Binding deadLetterBinding(Queue deadLetterQueue, DirectExchange deadLetterExchange) {
         return BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with(BOOKING_DLQ_ROUTING_KEY);
     }
 
+    // --- Listener Containers ---
+    // Hands the booking worker up to batch-size confirmations at once (fewer if none arrive within the receive timeout).
+    // Acknowledgement is manual, so one bad message can be dead-lettered without the rest of its batch.
+    // Every shard gets its own container with one consumer, so a shard's messages are confirmed in order.
+    @Bean(name = BOOKING_BATCH_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory bookingBatchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${application.booking.batch-size:100}") int batchSize,
+            @Value("${application.booking.prefetch:100}") int prefetch,
+            @Value("${application.booking.receive-timeout-ms:100}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        // A batch can never be larger than what the broker lets the consumer have unacknowledged
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
     // --- Message Converter ---
     // Configure RabbitMQ to use JSON for message bodies
     @Bean
@@ -74,6 +120,8 @@ public class RabbitMQConfig {
     public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory) {
         final RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        // Unroutable messages come back to the publisher (see OutboxRelay) instead of being dropped
+        rabbitTemplate.setMandatory(true);
         return rabbitTemplate;
     }
 }
\ No newline at end of file
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.venueconnect.event.SeatStatusStream;
+import com.venueconnect.inventory.SeatMapService;
+import com.venueconnect.order.OrderStatusWatcher;
 import com.venueconnect.reservation.RedisExpirationListener; // <-- Import our listener
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -52,7 +55,9 @@ public class RedisConfig {
 
     @Bean
     RedisMessageListenerContainer keyExpirationListenerContainer(RedisConnectionFactory connectionFactory,
-                                                                 MessageListenerAdapter expirationListenerAdapter) {
+                                                                 MessageListenerAdapter expirationListenerAdapter,
+                                                                 SeatStatusStream seatStatusStream,
+                                                                 OrderStatusWatcher orderStatusWatcher) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
 
@@ -60,6 +65,12 @@ public class RedisConfig {
         // and forward messages to our adapter (which calls our listener bean)
         container.addMessageListener(expirationListenerAdapter, new PatternTopic("__keyevent@*__:expired"));
 
+        // Seat status changes published by SeatMapService, fanned out to this node's live seat stream watchers
+        container.addMessageListener(seatStatusStream, new PatternTopic(SeatMapService.CHANGES_CHANNEL_PREFIX + "*"));
+
+        // Committed order status changes, waking this node's long-polling order status requests
+        container.addMessageListener(orderStatusWatcher, new PatternTopic(OrderStatusWatcher.CHANNEL_PREFIX + "*"));
+
         // Optional: Error handler for the container itself
         container.setErrorHandler(e ->
                 System.err.println("Error in RedisMessageListenerContainer: " + e.getMessage())); // Replace with proper logging if desired
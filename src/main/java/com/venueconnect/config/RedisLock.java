@@ -0,0 +1,49 @@
+package com.venueconnect.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Single-node Redis locks ({@code SET NX} with a TTL) that only their holder can release: each acquisition stores a
+ * random token, and release deletes the key only while it still holds that token. A run that outlived the TTL
+ * therefore never deletes the lock of the run that took over.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisLock {
+
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/lock-release.lua"), Long.class);
+    private static final RedisScript<Long> EXTEND_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/lock-extend.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * @return the token to release the lock with, or null when it is held elsewhere
+     */
+    public String tryAcquire(String key, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(key, token, ttl);
+        return Boolean.TRUE.equals(locked) ? token : null;
+    }
+
+    public void release(String key, String token) {
+        stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+    }
+
+    /**
+     * @return false when the lock expired or is held elsewhere, so it was not extended
+     */
+    public boolean extend(String key, String token, Duration ttl) {
+        Long extended = stringRedisTemplate.execute(EXTEND_SCRIPT, List.of(key), token, Long.toString(ttl.toMillis()));
+        return extended != null && extended == 1;
+    }
+}
@@ -0,0 +1,50 @@
+package com.venueconnect.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class TaskExecutorConfig {
+
+    // Background seat generation for new events. Kept small so bulk inserts never take all pooled connections.
+    @Bean
+    public ThreadPoolTaskExecutor seatGenerationExecutor(
+            @Value("${application.event-seats.generation.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("seat-generation-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Completes orders when the payment gateway answers, so its I/O threads never wait on the database
+    @Bean
+    public ThreadPoolTaskExecutor paymentCallbackExecutor(
+            @Value("${application.payment.callback-threads:8}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("payment-callback-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Writes live seat map deltas and heartbeats to SSE clients, so slow clients never hold up the scheduler thread
+    @Bean
+    public ThreadPoolTaskExecutor seatStreamExecutor(
+            @Value("${application.seat-stream.send-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("seat-stream-");
+        return executor;
+    }
+}
@@ -1,12 +1,19 @@
 package com.venueconnect.event;
 
 import com.venueconnect.event.dto.EventResponse;
+import com.venueconnect.event.dto.SeatMapResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -16,6 +23,7 @@ import java.util.List;
 public class EventController {
 
     private final EventService eventService;
+    private final SeatStatusStream seatStatusStream;
 
     @GetMapping
     public ResponseEntity<List<EventResponse>> getAllEvents() {
@@ -26,4 +34,30 @@ public class EventController {
     public ResponseEntity<EventResponse> getEventById(@PathVariable Long id) {
         return ResponseEntity.ok(eventService.getEvent(id));
     }
+
+    // Compact seat availability; pass ?since={version} to get only the seats that changed
+    @GetMapping("/{id}/seats")
+    public ResponseEntity<SeatMapResponse> getSeatMap(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Long currentVersion = eventService.getSeatMapVersion(id);
+        if (currentVersion != null && seatMapETag(id, currentVersion).equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(seatMapETag(id, currentVersion)).build();
+        }
+
+        SeatMapResponse seatMap = eventService.getSeatMap(id, since);
+        return ResponseEntity.ok().eTag(seatMapETag(id, seatMap.getVersion())).body(seatMap);
+    }
+
+    // Live seat changes as Server-Sent Events; the first event is the map (or the delta since ?since=)
+    @GetMapping(value = "/{id}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatMap(@PathVariable Long id, @RequestParam(required = false) Long since) {
+        return seatStatusStream.subscribe(id, () -> eventService.getSeatMap(id, since));
+    }
+
+    private String seatMapETag(Long eventId, long version) {
+        return "\"" + eventId + "-" + version + "\"";
+    }
 }
\ No newline at end of file
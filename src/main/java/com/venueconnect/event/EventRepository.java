@@ -2,6 +2,11 @@ package com.venueconnect.event;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface EventRepository extends JpaRepository<Event, Long> {
 
-}
\ No newline at end of file
+    // Events that have not finished yet (used to warm up inventory caches on startup)
+    List<Event> findByEndTimeAfter(LocalDateTime time);
+}
@@ -40,4 +40,9 @@ public class EventSeat {
     @Column(name = "reservation_id")
     private String reservationId;
     // --- END OF NEW FIELD ---
+
+    // Optimistic lock: bumped on every status transition, including the set-based ones
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.venueconnect.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based event_seats statements that Spring Data cannot express.
+ * Status transitions need to know which rows they touched, but @Modifying queries only return a row count,
+ * so they use UPDATE ... RETURNING directly and return the affected event seat ids grouped by event id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventSeatJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // RESERVED -> AVAILABLE for every seat still held by the reservation
+    public Map<Long, List<Long>> releaseReserved(String reservationId) {
+        String sql = "UPDATE event_seats SET status = 'AVAILABLE', reservation_id = NULL, version = version + 1 " +
+                "WHERE reservation_id = :reservationId AND status = 'RESERVED' " +
+                "RETURNING id, event_id";
+        return queryGroupedByEvent(sql, new MapSqlParameterSource("reservationId", reservationId));
+    }
+
+    // RESERVED -> AVAILABLE for every seat still held by any of the reservations, in one statement
+    public List<HeldSeat> releaseReservedBatch(Collection<String> reservationIds) {
+        return transitionReservedBatch(reservationIds, "AVAILABLE");
+    }
+
+    // RESERVED -> BOOKED for every seat still held by any of the reservations, in one statement
+    public List<HeldSeat> bookReservedBatch(Collection<String> reservationIds) {
+        return transitionReservedBatch(reservationIds, "BOOKED");
+    }
+
+    // RESERVED -> BOOKED for every seat still held by the reservation
+    public Map<Long, List<Long>> bookReserved(String reservationId) {
+        String sql = "UPDATE event_seats SET status = 'BOOKED', reservation_id = NULL, version = version + 1 " +
+                "WHERE reservation_id = :reservationId AND status = 'RESERVED' " +
+                "RETURNING id, event_id";
+        return queryGroupedByEvent(sql, new MapSqlParameterSource("reservationId", reservationId));
+    }
+
+    // RESERVED/BOOKED -> AVAILABLE for the given seats (e.g. when an order is cancelled)
+    public Map<Long, List<Long>> releaseSeats(Collection<Long> eventSeatIds) {
+        if (eventSeatIds.isEmpty()) {
+            return Map.of();
+        }
+        String sql = "UPDATE event_seats SET status = 'AVAILABLE', reservation_id = NULL, version = version + 1 " +
+                "WHERE id IN (:eventSeatIds) AND status IN ('RESERVED', 'BOOKED') " +
+                "RETURNING id, event_id";
+        return queryGroupedByEvent(sql, new MapSqlParameterSource("eventSeatIds", eventSeatIds));
+    }
+
+    /**
+     * Creates the event seats for the next chunk of hall seats (ordered by seat id, after {@code afterSeatId})
+     * in a single INSERT ... SELECT. Each seat gets the ticket type mapped to its seat category, or the default
+     * ticket type; seats matching neither are skipped. Seats the event already has are left untouched.
+     */
+    public GeneratedChunk insertHallSeats(Long eventId, Long hallId, long afterSeatId, int chunkSize,
+                                          Map<String, Long> ticketTypeByCategory, Long defaultTicketTypeId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("hallId", hallId)
+                .addValue("afterSeatId", afterSeatId)
+                .addValue("chunkSize", chunkSize)
+                .addValue("defaultTicketTypeId", defaultTicketTypeId);
+
+        // Without category mappings every seat gets the default ticket type (a CASE needs at least one WHEN)
+        StringBuilder ticketType = new StringBuilder(ticketTypeByCategory.isEmpty()
+                ? "CAST(:defaultTicketTypeId AS BIGINT)"
+                : "CASE");
+        int i = 0;
+        for (Map.Entry<String, Long> mapping : ticketTypeByCategory.entrySet()) {
+            ticketType.append(" WHEN b.seat_category = :category").append(i)
+                    .append(" THEN CAST(:ticketType").append(i).append(" AS BIGINT)");
+            params.addValue("category" + i, mapping.getKey()).addValue("ticketType" + i, mapping.getValue());
+            i++;
+        }
+        if (!ticketTypeByCategory.isEmpty()) {
+            ticketType.append(" ELSE CAST(:defaultTicketTypeId AS BIGINT) END");
+        }
+
+        String sql = "WITH batch AS (" +
+                "    SELECT id, seat_category FROM seats WHERE hall_id = :hallId AND id > :afterSeatId " +
+                "    ORDER BY id LIMIT :chunkSize), " +
+                "mapped AS (SELECT b.id AS seat_id, " + ticketType + " AS ticket_type_id FROM batch b), " +
+                "inserted AS (" +
+                "    INSERT INTO event_seats (event_id, seat_id, ticket_type_id, status, version) " +
+                "    SELECT :eventId, seat_id, ticket_type_id, 'AVAILABLE', 0 FROM mapped WHERE ticket_type_id IS NOT NULL " +
+                "    ON CONFLICT (event_id, seat_id) DO NOTHING " +
+                "    RETURNING 1) " +
+                "SELECT (SELECT max(id) FROM batch) AS last_seat_id, " +
+                "       (SELECT count(*) FROM batch) AS scanned, " +
+                "       (SELECT count(*) FROM mapped WHERE ticket_type_id IS NOT NULL) AS mapped, " +
+                "       (SELECT count(*) FROM inserted) AS inserted";
+        return jdbcTemplate.queryForObject(sql, params, (rs, rowNum) -> new GeneratedChunk(
+                rs.getLong("last_seat_id"), rs.getInt("scanned"), rs.getInt("mapped"), rs.getInt("inserted")));
+    }
+
+    // One chunk of seat generation: the last hall seat it covered and how many seats it looked at, mapped and created
+    public record GeneratedChunk(long lastSeatId, int scanned, int mapped, int inserted) {
+    }
+
+    // A seat moved by a batch transition, with the reservation that held it (RETURNING only sees the new, NULL value)
+    public record HeldSeat(Long eventSeatId, Long eventId, String reservationId) {
+    }
+
+    private List<HeldSeat> transitionReservedBatch(Collection<String> reservationIds, String newStatus) {
+        if (reservationIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = "UPDATE event_seats es SET status = :newStatus, reservation_id = NULL, version = es.version + 1 " +
+                "FROM (SELECT id, reservation_id FROM event_seats " +
+                "      WHERE reservation_id IN (:reservationIds) AND status = 'RESERVED') held " +
+                "WHERE es.id = held.id AND es.status = 'RESERVED' " +
+                "RETURNING es.id, es.event_id, held.reservation_id";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("reservationIds", reservationIds)
+                .addValue("newStatus", newStatus);
+        return jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new HeldSeat(rs.getLong("id"), rs.getLong("event_id"), rs.getString("reservation_id")));
+    }
+
+    private Map<Long, List<Long>> queryGroupedByEvent(String sql, MapSqlParameterSource params) {
+        Map<Long, List<Long>> seatIdsByEvent = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, params, rs -> {
+            seatIdsByEvent.computeIfAbsent(rs.getLong("event_id"), id -> new ArrayList<>()).add(rs.getLong("id"));
+        });
+        return seatIdsByEvent;
+    }
+}
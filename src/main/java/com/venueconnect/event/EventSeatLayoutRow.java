@@ -0,0 +1,9 @@
+package com.venueconnect.event;
+
+// Lightweight projection of an event seat and its physical position, used to build in-memory seat layouts
+public interface EventSeatLayoutRow {
+    Long getEventSeatId();
+    Long getTicketTypeId();
+    String getSeatRow();
+    String getSeatNumber();
+}
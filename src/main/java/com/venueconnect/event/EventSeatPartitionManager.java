@@ -0,0 +1,76 @@
+package com.venueconnect.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manages the RANGE(event_id) partitions of event_seats (see V9__Partition_EventSeats.sql):
+ * every block of 1000 event ids gets its own partition, and blocks of long-past events can be detached.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventSeatPartitionManager {
+
+    private static final String PARTITION_PREFIX = "event_seats_p";
+    private static final String ARCHIVED_PREFIX = "event_seats_archived_p";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Creates the partition for the event's block of ids if it does not exist yet; called before its seats are created
+    public void ensurePartitionFor(Long eventId) {
+        jdbcTemplate.queryForObject("SELECT ensure_event_seats_partition(:eventId)",
+                new MapSqlParameterSource("eventId", eventId), String.class);
+    }
+
+    /**
+     * Detaches every partition whose block of event ids is complete and whose events all ended more than
+     * {@code retention} ago. Detached partitions are kept as event_seats_archived_p{start} tables for archiving.
+     * Order items of those events keep the copy of their seat's row and number; their event seat no longer resolves.
+     *
+     * @return the names of the archived tables
+     */
+    @Transactional
+    public List<String> detachEndedPartitions(Duration retention) {
+        String sql = "SELECT substring(c.relname FROM '[0-9]+$')::bigint AS range_start " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'event_seats'::regclass AND c.relname LIKE '" + PARTITION_PREFIX + "%' " +
+                "  AND substring(c.relname FROM '[0-9]+$')::bigint + 1000 <= (SELECT COALESCE(MAX(id), 0) FROM events) " +
+                "  AND NOT EXISTS (SELECT 1 FROM events e " +
+                "                  WHERE e.id >= substring(c.relname FROM '[0-9]+$')::bigint " +
+                "                    AND e.id < substring(c.relname FROM '[0-9]+$')::bigint + 1000 " +
+                "                    AND e.end_time > :endedBefore) " +
+                "ORDER BY range_start";
+        MapSqlParameterSource params = new MapSqlParameterSource("endedBefore",
+                Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+
+        List<Long> rangeStarts = jdbcTemplate.query(sql, params, (rs, rowNum) -> rs.getLong("range_start"));
+
+        List<String> archived = new ArrayList<>();
+        for (Long rangeStart : rangeStarts) {
+            // Names are built from numbers only, so they are safe to inline into the DDL
+            String partition = PARTITION_PREFIX + rangeStart;
+            String archive = ARCHIVED_PREFIX + rangeStart;
+            // Items stored before they carried their seat get it copied while the partition is still attached
+            jdbcTemplate.update("UPDATE order_items oi SET seat_row = s.seat_row, seat_number = s.seat_number " +
+                            "FROM " + partition + " es JOIN seats s ON s.id = es.seat_id " +
+                            "WHERE es.id = oi.event_seat_id AND oi.seat_row IS NULL",
+                    new MapSqlParameterSource());
+            jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE event_seats DETACH PARTITION " + partition);
+            jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE " + partition + " RENAME TO " + archive);
+            archived.add(archive);
+        }
+        log.info("Detached {} event_seats partitions of ended events: {}", archived.size(), archived);
+        return archived;
+    }
+}
@@ -2,7 +2,11 @@ package com.venueconnect.event;
 
 import com.venueconnect.venue.SeatStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,42 @@ public interface EventSeatRepository extends JpaRepository<EventSeat, Long> {
     // Find a specific seat for a specific event
     Optional<EventSeat> findByEventIdAndSeatId(Long eventId, Long seatId);
     List<EventSeat> findByReservationId(String reservationId);
+
+    // The seats of a reservation with their ticket type (price) and physical seat, in one query
+    @Query("SELECT es FROM EventSeat es JOIN FETCH es.ticketType JOIN FETCH es.seat " +
+            "WHERE es.reservationId = :reservationId ORDER BY es.id")
+    List<EventSeat> findByReservationIdWithDetails(@Param("reservationId") String reservationId);
+
+    // All seat ids of an event in a stable order; a seat's position in this list is its inventory offset
+    @Query("SELECT es.id FROM EventSeat es WHERE es.event.id = :eventId ORDER BY es.id")
+    List<Long> findIdsByEventId(@Param("eventId") Long eventId);
+
+    // Every seat of the event with its status, in the same order as findIdsByEventId
+    @Query("SELECT es.id AS eventSeatId, es.ticketType.id AS ticketTypeId, es.status AS status " +
+            "FROM EventSeat es WHERE es.event.id = :eventId ORDER BY es.id")
+    List<EventSeatStatusRow> findStatusesByEventId(@Param("eventId") Long eventId);
+
+    @Query("SELECT es.ticketType.id AS ticketTypeId, es.status AS status, COUNT(es) AS seatCount " +
+            "FROM EventSeat es WHERE es.event.id = :eventId GROUP BY es.ticketType.id, es.status")
+    List<TicketTypeStatusCount> countByTicketTypeAndStatus(@Param("eventId") Long eventId);
+
+    @Query("SELECT es.id FROM EventSeat es WHERE es.event.id = :eventId AND es.status = :status")
+    List<Long> findIdsByEventIdAndStatus(@Param("eventId") Long eventId, @Param("status") SeatStatus status);
+
+    // The physical layout of every seat of the event, in the same order as findIdsByEventId
+    @Query("SELECT es.id AS eventSeatId, es.ticketType.id AS ticketTypeId, s.seatRow AS seatRow, s.seatNumber AS seatNumber " +
+            "FROM EventSeat es JOIN es.seat s WHERE es.event.id = :eventId ORDER BY es.id")
+    List<EventSeatLayoutRow> findLayoutByEventId(@Param("eventId") Long eventId);
+
+    /**
+     * Flips every requested seat of the event from AVAILABLE to RESERVED in a single statement.
+     * Seats that are missing, belong to another event or are no longer AVAILABLE are simply not matched,
+     * so the caller must compare the returned count with the number of requested seats.
+     */
+    @Modifying
+    @Query("UPDATE EventSeat es SET es.status = com.venueconnect.venue.SeatStatus.RESERVED, es.reservationId = :reservationId, es.version = es.version + 1 " +
+            "WHERE es.id IN :eventSeatIds AND es.event.id = :eventId AND es.status = com.venueconnect.venue.SeatStatus.AVAILABLE")
+    int claimSeats(@Param("eventId") Long eventId,
+                   @Param("eventSeatIds") Collection<Long> eventSeatIds,
+                   @Param("reservationId") String reservationId);
 }
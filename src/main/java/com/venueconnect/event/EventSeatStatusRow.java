@@ -0,0 +1,10 @@
+package com.venueconnect.event;
+
+import com.venueconnect.venue.SeatStatus;
+
+// Lightweight projection of an event seat's status, used to build the cached seat availability structures
+public interface EventSeatStatusRow {
+    Long getEventSeatId();
+    Long getTicketTypeId();
+    SeatStatus getStatus();
+}
@@ -1,6 +1,11 @@
 package com.venueconnect.event;
 import com.venueconnect.event.dto.EventResponse;
+import com.venueconnect.event.dto.SeatMapResponse;
 import com.venueconnect.event.dto.TicketTypeResponse;
+import com.venueconnect.inventory.GeneralAdmissionInventory;
+import com.venueconnect.inventory.SeatBitmapService;
+import com.venueconnect.inventory.SeatMapService;
+import com.venueconnect.inventory.TicketTypeAvailability;
 import com.venueconnect.venue.Hall;
 import com.venueconnect.venue.Venue;
 import jakarta.persistence.EntityNotFoundException;
@@ -9,6 +14,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,6 +22,10 @@ import java.util.stream.Collectors;
 public class EventService {
 
     private final EventRepository eventRepository;
+    private final EventSeatRepository eventSeatRepository;
+    private final SeatMapService seatMapService;
+    private final SeatBitmapService seatBitmapService;
+    private final GeneralAdmissionInventory generalAdmissionInventory;
 
     @Transactional(readOnly = true) // Use read-only transactions for 'GET' operations
     public List<EventResponse> getAllEvents() {
@@ -31,18 +41,51 @@ public class EventService {
         return mapToEventResponse(event);
     }
 
+    // Cheap version lookup so unchanged polls can be answered with 304 before reading the map
+    public Long getSeatMapVersion(Long eventId) {
+        return seatMapService.currentVersion(eventId);
+    }
+
+    /**
+     * Returns the event's seat map from the Redis cache: only the changes after {@code since} when the
+     * change log still covers them, otherwise the full map. Falls back to Postgres when the cache is unavailable.
+     * Events without seats (general admission only, or not generated yet) are cached as an empty map.
+     */
+    public SeatMapResponse getSeatMap(Long eventId, Long since) {
+        if (since != null) {
+            SeatMapResponse changes = seatMapService.readChanges(eventId, since);
+            if (changes != null) {
+                return changes;
+            }
+        }
+
+        SeatMapResponse seatMap = seatMapService.read(eventId);
+        if (seatMap != null) {
+            return seatMap;
+        }
+
+        // Unknown ids must not trigger a rebuild: they would never be cached and hit Postgres on every request
+        if (!eventRepository.existsById(eventId)) {
+            throw new EntityNotFoundException("Event not found with id: " + eventId);
+        }
+        seatBitmapService.rebuild(eventId);
+        seatMap = seatMapService.read(eventId);
+        if (seatMap == null) {
+            seatMap = seatMapService.fromRows(eventId, eventSeatRepository.findStatusesByEventId(eventId));
+        }
+        return seatMap;
+    }
+
     // Helper method to map Event Entity to EventResponse DTO
     private EventResponse mapToEventResponse(Event event) {
         Hall hall = event.getHall();
         Venue venue = hall.getVenue();
 
+        // One Redis read per event instead of counting event_seats per ticket type
+        Map<Long, TicketTypeAvailability> availability = seatMapService.availability(event.getId());
+
         List<TicketTypeResponse> ticketTypeResponses = event.getTicketTypes().stream()
-                .map(ticketType -> TicketTypeResponse.builder()
-                        .id(ticketType.getId())
-                        .name(ticketType.getName())
-                        .price(ticketType.getPrice())
-                        .totalQuantity(ticketType.getTotalQuantity())
-                        .build())
+                .map(ticketType -> mapToTicketTypeResponse(ticketType, availability.get(ticketType.getId())))
                 .collect(Collectors.toList());
 
         return EventResponse.builder()
@@ -57,4 +100,22 @@ public class EventService {
                 .ticketTypes(ticketTypeResponses)
                 .build();
     }
-}
\ No newline at end of file
+
+    private TicketTypeResponse mapToTicketTypeResponse(TicketType ticketType, TicketTypeAvailability availability) {
+        TicketTypeResponse.TicketTypeResponseBuilder builder = TicketTypeResponse.builder()
+                .id(ticketType.getId())
+                .name(ticketType.getName())
+                .price(ticketType.getPrice())
+                .totalQuantity(ticketType.getTotalQuantity())
+                .generalAdmission(ticketType.isGeneralAdmission())
+                .seatCategory(ticketType.getSeatCategory());
+        if (ticketType.isGeneralAdmission()) {
+            builder.availableQuantity(generalAdmissionInventory.availableQuantity(ticketType.getId()));
+        } else if (availability != null) {
+            builder.availableQuantity(availability.available())
+                    .reservedQuantity(availability.reserved())
+                    .bookedQuantity(availability.booked());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,207 @@
+package com.venueconnect.event;
+
+import com.venueconnect.event.dto.SeatMapResponse;
+import com.venueconnect.event.dto.SeatMapResponse.SeatChange;
+import com.venueconnect.inventory.SeatMapService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Supplier;
+
+/**
+ * Pushes live seat status changes to clients watching an event's seat map over Server-Sent Events.
+ * <p>
+ * Every node subscribes to the {@code SeatChanges:*} Redis channels that {@link SeatMapService} publishes to when
+ * it applies a committed transition, so a transition costs no extra database work however many users watch.
+ * Changes are coalesced per event and flushed as one delta (same shape as {@code GET /seats?since=}) per window.
+ * <p>
+ * The scheduler only builds and serialises each delta (once, whatever the number of watchers); the blocking writes
+ * to the clients run on {@code seatStreamExecutor}. An event has at most one flush in flight, so its deltas reach
+ * every watcher in order, and changes arriving meanwhile are coalesced into the next one.
+ */
+@Component
+@Slf4j
+public class SeatStatusStream implements MessageListener {
+
+    private final Map<Long, Set<SseEmitter>> watchers = new ConcurrentHashMap<>();
+    private final Map<Long, PendingChanges> pending = new ConcurrentHashMap<>();
+    private final Set<Long> sending = ConcurrentHashMap.newKeySet();
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor seatStreamExecutor;
+
+    public SeatStatusStream(ObjectMapper objectMapper, ThreadPoolTaskExecutor seatStreamExecutor) {
+        this.objectMapper = objectMapper;
+        this.seatStreamExecutor = seatStreamExecutor;
+    }
+
+    @Value("${application.seat-stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    // Changes of one event received since the last flush; later changes of a seat replace earlier ones
+    private static class PendingChanges {
+        private final Map<Long, Integer> statuses = new LinkedHashMap<>();
+        private long version;
+    }
+
+    /**
+     * Registers a watcher and sends it the current map (or delta) from {@code initial} as its first message.
+     */
+    public SseEmitter subscribe(Long eventId, Supplier<SeatMapResponse> initial) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        watchers.compute(eventId, (id, eventWatchers) -> {
+            Set<SseEmitter> updated = eventWatchers != null ? eventWatchers : new CopyOnWriteArraySet<>();
+            updated.add(emitter);
+            return updated;
+        });
+        Runnable remove = () -> removeWatcher(eventId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // Registered before the map is read, so nothing published in between is lost (re-applying a change is harmless)
+        SeatMapResponse seatMap;
+        try {
+            seatMap = initial.get();
+        } catch (RuntimeException e) {
+            removeWatcher(eventId, emitter);
+            throw e;
+        }
+        send(eventId, emitter, seatMap.getVersion(), serialise(seatMap));
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Long eventId = Long.valueOf(channel.substring(SeatMapService.CHANGES_CHANNEL_PREFIX.length()));
+        Set<SseEmitter> eventWatchers = watchers.get(eventId);
+        if (eventWatchers == null || eventWatchers.isEmpty()) {
+            return;
+        }
+
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":"); // version:status:id,id,...
+        long version = Long.parseLong(parts[0]);
+        int status = Integer.parseInt(parts[1]);
+        // compute() is atomic per event, so a change never lands in a batch that flush() already took
+        pending.compute(eventId, (id, changes) -> {
+            PendingChanges updated = changes != null ? changes : new PendingChanges();
+            for (String eventSeatId : parts[2].split(",")) {
+                updated.statuses.put(Long.valueOf(eventSeatId), status);
+            }
+            updated.version = Math.max(updated.version, version);
+            return updated;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${application.seat-stream.flush-ms:250}")
+    public void flush() {
+        for (Long eventId : List.copyOf(pending.keySet())) {
+            // The previous delta is still being written: these changes go out with the next flush
+            if (!sending.add(eventId)) {
+                continue;
+            }
+            PendingChanges changes = pending.remove(eventId);
+            if (changes == null) {
+                sending.remove(eventId);
+                continue;
+            }
+
+            List<SeatChange> seatChanges = new ArrayList<>();
+            changes.statuses.forEach((eventSeatId, status) -> seatChanges.add(new SeatChange(eventSeatId, status)));
+            SeatMapResponse delta = SeatMapResponse.builder()
+                    .eventId(eventId)
+                    .version(changes.version)
+                    .full(false)
+                    .changes(seatChanges)
+                    .build();
+            String json = serialise(delta);
+            dispatch(eventId, () -> {
+                try {
+                    watchers.getOrDefault(eventId, Set.of()).forEach(emitter -> send(eventId, emitter, delta.getVersion(), json));
+                } finally {
+                    sending.remove(eventId);
+                }
+            }, () -> {
+                requeue(eventId, changes);
+                sending.remove(eventId);
+            });
+        }
+    }
+
+    // Keeps idle connections open through proxies and notices clients that went away
+    @Scheduled(fixedDelayString = "${application.seat-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        watchers.forEach((eventId, eventWatchers) -> dispatch(eventId, () -> eventWatchers.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                removeWatcher(eventId, emitter);
+            }
+        }), () -> { }));
+    }
+
+    private void dispatch(Long eventId, Runnable task, Runnable onRejected) {
+        try {
+            seatStreamExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            // The senders are saturated: skip this round
+            log.warn("Seat stream senders are busy, skipping a round for event {}", eventId);
+            onRejected.run();
+        }
+    }
+
+    // Puts changes that could not be sent back under the ones received since, which are newer
+    private void requeue(Long eventId, PendingChanges changes) {
+        pending.merge(eventId, changes, (newer, older) -> {
+            older.statuses.putAll(newer.statuses);
+            older.version = Math.max(older.version, newer.version);
+            return older;
+        });
+    }
+
+    private String serialise(SeatMapResponse seatMap) {
+        try {
+            return objectMapper.writeValueAsString(seatMap);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise the seat map of event " + seatMap.getEventId(), e);
+        }
+    }
+
+    private void send(Long eventId, SseEmitter emitter, long version, String json) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("seats")
+                    .id(Long.toString(version))
+                    .data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping seat stream watcher of event {}: {}", eventId, e.getMessage());
+            removeWatcher(eventId, emitter);
+        }
+    }
+
+    private void removeWatcher(Long eventId, SseEmitter emitter) {
+        watchers.computeIfPresent(eventId, (id, eventWatchers) -> {
+            eventWatchers.remove(emitter);
+            return eventWatchers.isEmpty() ? null : eventWatchers;
+        });
+    }
+}
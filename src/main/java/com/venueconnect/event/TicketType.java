@@ -29,6 +29,13 @@ public class TicketType {
     @Column(nullable = false)
     private Integer totalQuantity; // Total available for this type
 
+    // General admission: sold by quantity from a stock counter, no EventSeat rows
+    @Column(nullable = false)
+    private boolean generalAdmission;
+
+    // Seated types only: the hall seats (by Seat.seatCategory) this type sells; null takes all unclaimed seats
+    private String seatCategory;
+
     // A TicketType belongs to one Event
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id", nullable = false)
@@ -1,6 +1,16 @@
 package com.venueconnect.event;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface TicketTypeRepository extends JpaRepository<TicketType, Long> {
+
+    @Query("SELECT t FROM TicketType t JOIN FETCH t.event WHERE t.id = :ticketTypeId")
+    Optional<TicketType> findByIdWithEvent(@Param("ticketTypeId") Long ticketTypeId);
+
+    List<TicketType> findByEventIdOrderById(Long eventId);
 }
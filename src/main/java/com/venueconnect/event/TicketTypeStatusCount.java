@@ -0,0 +1,10 @@
+package com.venueconnect.event;
+
+import com.venueconnect.venue.SeatStatus;
+
+// Number of an event's seats per ticket type and status, used to reconcile the cached availability counters
+public interface TicketTypeStatusCount {
+    Long getTicketTypeId();
+    SeatStatus getStatus();
+    long getSeatCount();
+}
@@ -8,4 +8,6 @@ public class CreateTicketTypeRequest {
     private String name;
     private BigDecimal price;
     private Integer totalQuantity;
+    private boolean generalAdmission; // Sold by quantity (standing room), no seats are assigned
+    private String seatCategory; // Seats of this category get this type; leave empty to take all remaining seats
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.venueconnect.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Compact seat availability of an event.
+ * <p>
+ * A full map ({@code full = true}) packs 2 bits per seat into {@code statuses} (base64), most significant bits first,
+ * in ascending event seat id order: 0 = AVAILABLE, 1 = RESERVED, 2 = BOOKED. {@code seatIdRanges} lists those ids as
+ * inclusive [first, last] ranges. A delta ({@code full = false}) only lists the seats that changed since the requested version.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatMapResponse {
+    private Long eventId;
+    private long version;
+    private boolean full;
+    private Integer seatCount;
+    private String statuses;
+    private List<List<Long>> seatIdRanges;
+    private List<SeatChange> changes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SeatChange {
+        private Long eventSeatId;
+        private int status;
+    }
+}
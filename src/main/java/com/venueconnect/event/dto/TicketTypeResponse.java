@@ -12,4 +12,10 @@ public class TicketTypeResponse {
     private String name;
     private BigDecimal price;
     private Integer totalQuantity;
+    private boolean generalAdmission;
+    private String seatCategory;
+    // Live counts from the inventory cache; null when not known yet (general-admission types only report available)
+    private Integer availableQuantity;
+    private Integer reservedQuantity;
+    private Integer bookedQuantity;
 }
\ No newline at end of file
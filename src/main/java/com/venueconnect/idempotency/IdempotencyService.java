@@ -0,0 +1,215 @@
+package com.venueconnect.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venueconnect.config.RedisLock;
+import com.venueconnect.user.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried POSTs safe: a request carrying an {@code Idempotency-Key} header runs once, and every retry with
+ * the same key gets the stored response instead of running it again.
+ * <p>
+ * The first request claims {@code Idempotency:{userId}:{scope}:{key}} in Redis (SET NX) and replaces the claim with
+ * its response once done. Duplicates that arrive while it is still running wait for that response. A failed request
+ * drops its claim, so the client can retry it. Reusing a key for a different request body is rejected.
+ * <p>
+ * The claim is extended while the request runs (a payment may wait on the gateway for longer than the claim's TTL),
+ * so the TTL only bounds how long the claim of an instance that died blocks the key.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String KEY_PREFIX = "Idempotency:";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long MAX_POLL_INTERVAL_MS = 200;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisLock redisLock;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${application.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // How long a claim survives if its request never finishes (e.g. the instance died); extended while it runs
+    @Value("${application.idempotency.in-flight-ttl-seconds:60}")
+    private long inFlightTtlSeconds;
+
+    @Value("${application.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    // What is stored under the key: a claim while the request runs, then its response
+    // The claim id makes every claim unique, so only its own request extends or drops it
+    private record StoredResponse(boolean completed, String fingerprint, String body, String claimId) {
+    }
+
+    /**
+     * The response of an idempotent request, and whether it was replayed from an earlier request.
+     */
+    public record Result<T>(T body, boolean replayed) {
+
+        public ResponseEntity<T> toResponseEntity() {
+            return toResponseEntity(ResponseEntity.ok());
+        }
+
+        public ResponseEntity<T> toResponseEntity(ResponseEntity.BodyBuilder builder) {
+            if (replayed) {
+                builder.header(REPLAYED_HEADER, "true");
+            }
+            return builder.body(body);
+        }
+    }
+
+    /**
+     * Runs the action once per idempotency key; without a key it simply runs it.
+     *
+     * @param scope   the operation, so the same key can be used for a reservation and a payment
+     * @param request the request body, used to detect a key reused for a different request
+     */
+    public <T> Result<T> execute(String idempotencyKey, String scope, Object request,
+                                 Class<T> responseType, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return new Result<>(action.get(), false);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must be at most " + MAX_KEY_LENGTH + " characters.");
+        }
+
+        String key = KEY_PREFIX + currentUserId() + ":" + scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        // 1. Claim the key, or use what the first request left there
+        String claim = write(new StoredResponse(false, fingerprint, null, UUID.randomUUID().toString()));
+        Duration claimTtl = Duration.ofSeconds(inFlightTtlSeconds);
+        Boolean claimed = stringRedisTemplate.opsForValue().setIfAbsent(key, claim, claimTtl);
+        if (!Boolean.TRUE.equals(claimed)) {
+            return new Result<>(awaitStored(key, fingerprint, responseType), true);
+        }
+
+        // 2. Run the request, keeping the claim alive, and store its response for retries
+        Duration renewEvery = claimTtl.dividedBy(3);
+        ScheduledFuture<?> renewal = taskScheduler.scheduleAtFixedRate(
+                () -> extendClaim(key, claim, claimTtl), Instant.now().plus(renewEvery), renewEvery);
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            renewal.cancel(false);
+            redisLock.release(key, claim);
+            throw e;
+        }
+        renewal.cancel(false);
+        try {
+            stringRedisTemplate.opsForValue().set(key, write(new StoredResponse(true, fingerprint, write(response), null)),
+                    Duration.ofHours(ttlHours));
+        } catch (Exception e) {
+            // The request itself succeeded; a retry will just find the claim expire and run again
+            log.error("Could not store the response for idempotency key {}: {}", key, e.getMessage(), e);
+        }
+        return new Result<>(response, false);
+    }
+
+    private void extendClaim(String key, String claim, Duration claimTtl) {
+        try {
+            if (!redisLock.extend(key, claim, claimTtl)) {
+                log.warn("Idempotency claim {} was lost while its request was still running.", key);
+            }
+        } catch (Exception e) {
+            log.warn("Could not extend idempotency claim {}: {}", key, e.getMessage());
+        }
+    }
+
+    private <T> T awaitStored(String key, String fingerprint, Class<T> responseType) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        long pollInterval = 10;
+        while (true) {
+            String value = stringRedisTemplate.opsForValue().get(key);
+            if (value == null) {
+                // The first request failed (or its claim expired): the client should send the request again
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "The original request with this " + HEADER + " did not complete. Please retry.");
+            }
+
+            StoredResponse stored = read(value, StoredResponse.class);
+            if (!stored.fingerprint().equals(fingerprint)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "This " + HEADER + " was already used for a different request.");
+            }
+            if (stored.completed()) {
+                return read(stored.body(), responseType);
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "A request with this " + HEADER + " is still being processed.");
+            }
+            sleep(pollInterval);
+            pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL_MS);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(write(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T read(String value, Class<T> type) {
+        try {
+            return objectMapper.readValue(value, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not deserialise " + type.getSimpleName(), e);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an in-flight idempotent request", e);
+        }
+    }
+
+    private Long currentUserId() {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return currentUser.getId();
+    }
+}
@@ -0,0 +1,164 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.event.EventSeatRepository;
+import com.venueconnect.venue.SeatStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the best block of adjacent available seats for a ticket type: the front-most row that has one,
+ * and within that row the block closest to the centre.
+ * <p>
+ * The hall layout of each event is cached in memory; current availability comes from the Redis seat bitmap
+ * (a single GET), so a search does not touch Postgres unless the bitmap is missing. Cached layouts expire after
+ * {@code application.inventory.best-available.layout-ttl-ms} and at most {@code max-layouts} are kept, so
+ * layouts of past events do not pile up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BestAvailableSeatFinder {
+
+    private final EventSeatRepository eventSeatRepository;
+    private final SeatBitmapService seatBitmapService;
+
+    private final Map<Long, CachedLayout> layouts = new ConcurrentHashMap<>();
+
+    @Value("${application.inventory.best-available.layout-ttl-ms:600000}")
+    private long layoutTtlMs;
+
+    @Value("${application.inventory.best-available.max-layouts:200}")
+    private int maxLayouts;
+
+    /**
+     * @return the event seat ids of the best block, or an empty list when no block of that size is free
+     */
+    public List<Long> findBestBlock(Long eventId, Long ticketTypeId, int quantity) {
+        EventSeatLayout layout = layout(eventId);
+        boolean[] available = availability(eventId, layout);
+        if (available.length != layout.seatCount()) {
+            // The seat set changed since the layout was cached; reload it once
+            evict(eventId);
+            layout = layout(eventId);
+            available = availability(eventId, layout);
+            if (available.length != layout.seatCount()) {
+                log.warn("Seat layout of event {} is inconsistent with its inventory; no block offered.", eventId);
+                return List.of();
+            }
+        }
+
+        for (EventSeatLayout.Row row : layout.rows(ticketTypeId)) {
+            int bestStart = findBestStart(row, available, quantity);
+            if (bestStart >= 0) {
+                return Arrays.stream(row.eventSeatIds, bestStart, bestStart + quantity).boxed().collect(Collectors.toList());
+            }
+        }
+        return List.of();
+    }
+
+    public void evict(Long eventId) {
+        layouts.remove(eventId);
+    }
+
+    @Scheduled(fixedDelayString = "${application.inventory.best-available.layout-ttl-ms:600000}")
+    public void evictExpiredLayouts() {
+        long now = System.currentTimeMillis();
+        layouts.values().removeIf(cached -> isExpired(cached, now));
+    }
+
+    private EventSeatLayout layout(Long eventId) {
+        long now = System.currentTimeMillis();
+        CachedLayout cached = layouts.get(eventId);
+        if (cached != null && !isExpired(cached, now)) {
+            return cached.layout();
+        }
+
+        // Loaded outside the map: a query inside compute() would block every other key of the same hash bin.
+        // Two threads may load the same layout at once; either copy is current.
+        CachedLayout loaded = new CachedLayout(loadLayout(eventId), now);
+        cached = layouts.merge(eventId, loaded, (current, fresh) -> isExpired(current, now) ? fresh : current);
+        if (layouts.size() > maxLayouts) {
+            evictOldest();
+        }
+        return cached.layout();
+    }
+
+    // Only runs when a layout is loaded beyond the bound, so a linear scan is fine
+    private void evictOldest() {
+        layouts.entrySet().stream()
+                .min(Map.Entry.comparingByValue(Comparator.comparingLong(CachedLayout::loadedAtMillis)))
+                .ifPresent(oldest -> layouts.remove(oldest.getKey(), oldest.getValue()));
+    }
+
+    private boolean isExpired(CachedLayout cached, long now) {
+        return now - cached.loadedAtMillis() > layoutTtlMs;
+    }
+
+    // Index of the first seat of the most central free block in the row, or -1
+    private int findBestStart(EventSeatLayout.Row row, boolean[] available, int quantity) {
+        double rowCentre = (row.size() - 1) / 2.0;
+        int bestStart = -1;
+        double bestDistance = Double.MAX_VALUE;
+
+        int runStart = 0;
+        for (int i = 0; i < row.size(); i++) {
+            if (!available[row.offsets[i]]) {
+                runStart = i + 1;
+                continue;
+            }
+            if (i > runStart && !row.adjacent(i - 1, i)) {
+                runStart = i;
+            }
+            int start = i - quantity + 1;
+            if (start >= runStart) {
+                double distance = Math.abs(start + (quantity - 1) / 2.0 - rowCentre);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestStart = start;
+                }
+            }
+        }
+        return bestStart;
+    }
+
+    private boolean[] availability(Long eventId, EventSeatLayout layout) {
+        byte[] bitmap = seatBitmapService.snapshot(eventId);
+        if (bitmap != null && bitmap.length == (layout.seatCount() + 7) / 8) {
+            boolean[] available = new boolean[layout.seatCount()];
+            for (int offset = 0; offset < available.length; offset++) {
+                available[offset] = (bitmap[offset >>> 3] & (0x80 >>> (offset & 7))) != 0;
+            }
+            return available;
+        }
+
+        // No usable bitmap: fall back to one query for the available seat ids
+        log.debug("No seat bitmap for event {}, reading availability from Postgres.", eventId);
+        List<Long> availableIds = eventSeatRepository.findIdsByEventIdAndStatus(eventId, SeatStatus.AVAILABLE);
+        boolean[] available = new boolean[layout.seatCount()];
+        for (Long id : availableIds) {
+            int offset = layout.offsetOf(id);
+            if (offset < 0) {
+                return new boolean[0]; // Seat unknown to the layout: signal a stale layout
+            }
+            available[offset] = true;
+        }
+        return available;
+    }
+
+    private EventSeatLayout loadLayout(Long eventId) {
+        return EventSeatLayout.of(eventSeatRepository.findLayoutByEventId(eventId));
+    }
+
+    private record CachedLayout(EventSeatLayout layout, long loadedAtMillis) {
+    }
+}
@@ -0,0 +1,219 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.config.RedisLock;
+import com.venueconnect.event.Event;
+import com.venueconnect.event.EventRepository;
+import com.venueconnect.event.EventSeatJdbcRepository;
+import com.venueconnect.event.EventSeatJdbcRepository.GeneratedChunk;
+import com.venueconnect.event.TicketType;
+import com.venueconnect.event.TicketTypeRepository;
+import com.venueconnect.venue.SeatRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Creates the event_seats of an event from the seats of its hall.
+ * <p>
+ * Runs in the background once the event is committed. Seats are inserted chunk by chunk with set-based
+ * INSERT ... SELECT statements: one round trip per chunk and no entity per seat. Each chunk commits on its own
+ * and skips seats the event already has, so a failed or interrupted run can simply be started again.
+ * Progress is kept in the {@code SeatGeneration:{eventId}} hash, so any instance can report it.
+ * <p>
+ * A seated ticket type takes the hall seats whose category equals its {@code seatCategory}. The first seated
+ * type without a category takes all remaining seats. Seats matching neither are not sold.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventSeatGenerator {
+
+    private static final String PROGRESS_KEY_PREFIX = "SeatGeneration:";
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final Duration PROGRESS_TTL = Duration.ofDays(1);
+    private static final Duration LOCK_TTL = Duration.ofMinutes(30);
+
+    private final EventRepository eventRepository;
+    private final TicketTypeRepository ticketTypeRepository;
+    private final SeatRepository seatRepository;
+    private final EventSeatJdbcRepository eventSeatJdbcRepository;
+    private final SeatBitmapService seatBitmapService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisLock redisLock;
+    private final ThreadPoolTaskExecutor seatGenerationExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.event-seats.generation.chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * Starts generating the event's seats once the surrounding transaction has committed.
+     */
+    public void generateAfterCommit(Long eventId) {
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                try {
+                    start(eventId);
+                } catch (Exception e) {
+                    log.error("Could not start seat generation for event {}: {}", eventId, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues a generation run for the event.
+     *
+     * @return false when a run for the event is already queued or in progress
+     */
+    public boolean start(Long eventId) {
+        String lockKey = PROGRESS_KEY_PREFIX + eventId + LOCK_SUFFIX;
+        String lockToken = redisLock.tryAcquire(lockKey, LOCK_TTL);
+        if (lockToken == null) {
+            return false;
+        }
+
+        String progressKey = PROGRESS_KEY_PREFIX + eventId;
+        stringRedisTemplate.delete(progressKey);
+        updateProgress(eventId, Map.of("state", SeatGenerationStatus.State.QUEUED.name()));
+        try {
+            seatGenerationExecutor.execute(() -> {
+                try {
+                    generate(eventId);
+                } finally {
+                    redisLock.release(lockKey, lockToken);
+                }
+            });
+        } catch (RuntimeException e) {
+            redisLock.release(lockKey, lockToken);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * @return the progress of the event's latest generation run, or null when there has been none recently
+     */
+    public SeatGenerationStatus status(Long eventId) {
+        Map<Object, Object> progress = stringRedisTemplate.opsForHash().entries(PROGRESS_KEY_PREFIX + eventId);
+        if (progress.isEmpty()) {
+            return null;
+        }
+        return SeatGenerationStatus.builder()
+                .eventId(eventId)
+                .state(SeatGenerationStatus.State.valueOf((String) progress.get("state")))
+                .totalSeats(longField(progress, "total"))
+                .processedSeats(longField(progress, "processed"))
+                .generatedSeats(longField(progress, "generated"))
+                .unmappedSeats(longField(progress, "unmapped"))
+                .startedAt(instantField(progress, "startedAt"))
+                .finishedAt(instantField(progress, "finishedAt"))
+                .error((String) progress.get("error"))
+                .build();
+    }
+
+    private void generate(Long eventId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Instant startedAt = Instant.now();
+        try {
+            // 1. Work out which ticket type each seat category goes to
+            Event event = eventRepository.findById(eventId)
+                    .orElseThrow(() -> new EntityNotFoundException("Event not found: " + eventId));
+            Long hallId = event.getHall().getId();
+            Map<String, Long> ticketTypeByCategory = new LinkedHashMap<>();
+            Long defaultTicketTypeId = null;
+            for (TicketType ticketType : ticketTypeRepository.findByEventIdOrderById(eventId)) {
+                if (ticketType.isGeneralAdmission()) {
+                    continue;
+                }
+                String category = ticketType.getSeatCategory();
+                if (category == null || category.isBlank()) {
+                    defaultTicketTypeId = defaultTicketTypeId != null ? defaultTicketTypeId : ticketType.getId();
+                } else {
+                    ticketTypeByCategory.putIfAbsent(category, ticketType.getId());
+                }
+            }
+
+            long total = seatRepository.countByHallId(hallId);
+            updateProgress(eventId, Map.of(
+                    "state", SeatGenerationStatus.State.RUNNING.name(),
+                    "total", Long.toString(total),
+                    "startedAt", startedAt.toString()));
+
+            // 2. Insert the event seats chunk by chunk, in hall seat id order
+            long processed = 0;
+            long mapped = 0;
+            long generated = 0;
+            long afterSeatId = 0;
+            if (!ticketTypeByCategory.isEmpty() || defaultTicketTypeId != null) {
+                while (true) {
+                    GeneratedChunk chunk = eventSeatJdbcRepository.insertHallSeats(
+                            eventId, hallId, afterSeatId, chunkSize, ticketTypeByCategory, defaultTicketTypeId);
+                    if (chunk.scanned() == 0) {
+                        break;
+                    }
+                    processed += chunk.scanned();
+                    mapped += chunk.mapped();
+                    generated += chunk.inserted();
+                    afterSeatId = chunk.lastSeatId();
+                    updateProgress(eventId, Map.of(
+                            "processed", Long.toString(processed),
+                            "generated", Long.toString(generated),
+                            "unmapped", Long.toString(processed - mapped)));
+                    if (chunk.scanned() < chunkSize) {
+                        break;
+                    }
+                }
+            } else {
+                processed = total;
+            }
+
+            // 3. Build the inventory caches (bitmap, seat map, counters) from the new rows
+            seatBitmapService.rebuild(eventId);
+
+            updateProgress(eventId, Map.of(
+                    "state", SeatGenerationStatus.State.COMPLETED.name(),
+                    "processed", Long.toString(processed),
+                    "unmapped", Long.toString(processed - mapped),
+                    "finishedAt", Instant.now().toString()));
+            log.info("Generated {} event seats for event {} in {} ms ({} hall seats, {} without a ticket type).",
+                    generated, eventId, Duration.between(startedAt, Instant.now()).toMillis(), total, processed - mapped);
+        } catch (Exception e) {
+            log.error("Seat generation for event {} failed: {}", eventId, e.getMessage(), e);
+            updateProgress(eventId, Map.of(
+                    "state", SeatGenerationStatus.State.FAILED.name(),
+                    "error", String.valueOf(e.getMessage()),
+                    "finishedAt", Instant.now().toString()));
+        } finally {
+            sample.stop(meterRegistry.timer("venueconnect.event-seats.generation"));
+        }
+    }
+
+    private void updateProgress(Long eventId, Map<String, String> fields) {
+        String key = PROGRESS_KEY_PREFIX + eventId;
+        stringRedisTemplate.opsForHash().putAll(key, fields);
+        stringRedisTemplate.expire(key, PROGRESS_TTL);
+    }
+
+    private long longField(Map<Object, Object> progress, String field) {
+        Object value = progress.get(field);
+        return value != null ? Long.parseLong((String) value) : 0;
+    }
+
+    private Instant instantField(Map<Object, Object> progress, String field) {
+        Object value = progress.get(field);
+        return value != null ? Instant.parse((String) value) : null;
+    }
+}
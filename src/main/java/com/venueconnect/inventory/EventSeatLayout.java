@@ -0,0 +1,114 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.event.EventSeatLayoutRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, array-based seat layout of one event: for every ticket type, its rows ordered front to back
+ * and each row's seats ordered by seat number. Seat offsets match the Redis seat bitmap
+ * (position in the event's seat ids ordered ascending).
+ */
+final class EventSeatLayout {
+
+    private final long[] seatIdsByOffset;
+    private final Map<Long, List<Row>> rowsByTicketType;
+
+    private EventSeatLayout(long[] seatIdsByOffset, Map<Long, List<Row>> rowsByTicketType) {
+        this.seatIdsByOffset = seatIdsByOffset;
+        this.rowsByTicketType = rowsByTicketType;
+    }
+
+    // Rows must be ordered by event seat id, as returned by EventSeatRepository.findLayoutByEventId
+    static EventSeatLayout of(List<EventSeatLayoutRow> seats) {
+        long[] seatIdsByOffset = new long[seats.size()];
+        Map<Long, Map<String, List<int[]>>> grouped = new HashMap<>(); // ticket type -> row -> [offset, number]
+
+        for (int offset = 0; offset < seats.size(); offset++) {
+            EventSeatLayoutRow seat = seats.get(offset);
+            seatIdsByOffset[offset] = seat.getEventSeatId();
+            grouped.computeIfAbsent(seat.getTicketTypeId(), id -> new TreeMap<>(ROW_ORDER))
+                    .computeIfAbsent(seat.getSeatRow(), row -> new ArrayList<>())
+                    .add(new int[]{offset, parseSeatNumber(seat.getSeatNumber())});
+        }
+
+        Map<Long, List<Row>> rowsByTicketType = new LinkedHashMap<>();
+        grouped.forEach((ticketTypeId, rows) -> {
+            List<Row> rowLayouts = new ArrayList<>(rows.size());
+            rows.forEach((name, rowSeats) -> rowLayouts.add(Row.of(name, rowSeats, seatIdsByOffset)));
+            rowsByTicketType.put(ticketTypeId, rowLayouts);
+        });
+        return new EventSeatLayout(seatIdsByOffset, rowsByTicketType);
+    }
+
+    int seatCount() {
+        return seatIdsByOffset.length;
+    }
+
+    List<Row> rows(Long ticketTypeId) {
+        return rowsByTicketType.getOrDefault(ticketTypeId, List.of());
+    }
+
+    // Offset of an event seat id, or -1 if it is not part of this layout
+    int offsetOf(long eventSeatId) {
+        int offset = Arrays.binarySearch(seatIdsByOffset, eventSeatId);
+        return offset >= 0 ? offset : -1;
+    }
+
+    static final class Row {
+        final String name;
+        final long[] eventSeatIds;
+        final int[] offsets;
+        private final int[] numbers;
+
+        private Row(String name, long[] eventSeatIds, int[] offsets, int[] numbers) {
+            this.name = name;
+            this.eventSeatIds = eventSeatIds;
+            this.offsets = offsets;
+            this.numbers = numbers;
+        }
+
+        private static Row of(String name, List<int[]> seats, long[] seatIdsByOffset) {
+            seats.sort(Comparator.comparingInt((int[] seat) -> seat[1]).thenComparingInt(seat -> seat[0]));
+            long[] ids = new long[seats.size()];
+            int[] offsets = new int[seats.size()];
+            int[] numbers = new int[seats.size()];
+            for (int i = 0; i < seats.size(); i++) {
+                offsets[i] = seats.get(i)[0];
+                numbers[i] = seats.get(i)[1];
+                ids[i] = seatIdsByOffset[offsets[i]];
+            }
+            return new Row(name, ids, offsets, numbers);
+        }
+
+        int size() {
+            return offsets.length;
+        }
+
+        // Seats are side by side when their numbers are consecutive (non-numeric seat numbers never are)
+        boolean adjacent(int left, int right) {
+            return numbers[left] != Integer.MAX_VALUE && numbers[right] == numbers[left] + 1;
+        }
+    }
+
+    private static int parseSeatNumber(String seatNumber) {
+        try {
+            return Integer.parseInt(seatNumber.trim());
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    // Front to back: numeric rows by value, then lettered rows so that "B" < "AA" (A..Z, AA..ZZ)
+    private static final Comparator<String> ROW_ORDER = Comparator
+            .comparingInt((String row) -> row.chars().allMatch(Character::isDigit) ? 0 : 1)
+            .thenComparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+}
@@ -0,0 +1,198 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.event.TicketType;
+import com.venueconnect.event.TicketTypeRepository;
+import com.venueconnect.order.OrderItemRepository;
+import com.venueconnect.reservation.ReservationService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sells general-admission ticket types by quantity instead of by seat.
+ * <p>
+ * Each GA ticket type has a stock counter in Redis ({@code TicketStock:{ticketTypeId}}) that reservations
+ * decrement atomically, together with a {@code ReservationHold:{reservationId}} hash recording what they took.
+ * No event_seats rows exist for GA tickets: a paid order gets one order item per ticket, pointing at the ticket type.
+ * The counter is initialised lazily from {@code totalQuantity} minus the tickets already sold in Postgres and
+ * minus the tickets still held by live reservations ({@code TicketStock:{ticketTypeId}:holds}, with their expiry
+ * times in {@code TicketStock:{ticketTypeId}:holds:expiry}). Holds that expired without being released drop out of
+ * that sum, so a lost release never keeps tickets off sale for longer than the hold's TTL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeneralAdmissionInventory {
+
+    private static final String STOCK_KEY_PREFIX = "TicketStock:";
+    private static final String HOLD_KEY_PREFIX = "ReservationHold:";
+    private static final String HOLDS_SUFFIX = ":holds";
+    private static final String HOLD_EXPIRY_SUFFIX = ":holds:expiry";
+    // The hold outlives the reservation timer so the expiry cleanup can still find (and restore) it
+    private static final Duration HOLD_TTL = Duration.ofMinutes(ReservationService.RESERVATION_TTL_MINUTES + 60);
+
+    private static final RedisScript<Long> RESERVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/ticket-stock-reserve.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_HOLD_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/reservation-hold-release.lua"), Long.class);
+    private static final RedisScript<Long> INIT_STOCK_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/ticket-stock-init.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TicketTypeRepository ticketTypeRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    // Ticket type metadata never changes after creation, so it is cached for the hot reservation path
+    private final Map<Long, TicketTypeInfo> ticketTypes = new ConcurrentHashMap<>();
+
+    private record TicketTypeInfo(Long eventId, boolean generalAdmission, int totalQuantity) {
+    }
+
+    public boolean isGeneralAdmission(Long ticketTypeId) {
+        return ticketTypeId != null && ticketType(ticketTypeId).generalAdmission();
+    }
+
+    /**
+     * Takes {@code quantity} tickets from the stock of a GA ticket type and records them as held by the reservation.
+     *
+     * @return the stock left after this reservation
+     */
+    public long reserve(Long eventId, Long ticketTypeId, int quantity, String reservationId) {
+        TicketTypeInfo info = ticketType(ticketTypeId);
+        if (!info.generalAdmission() || !info.eventId().equals(eventId)) {
+            throw new IllegalArgumentException("Ticket type " + ticketTypeId + " is not a general-admission type of event " + eventId);
+        }
+
+        Long remaining = executeReserve(ticketTypeId, quantity, reservationId);
+        if (remaining != null && remaining == -1) {
+            initialiseStock(ticketTypeId, info);
+            remaining = executeReserve(ticketTypeId, quantity, reservationId);
+        }
+
+        if (remaining == null || remaining < 0) {
+            throw new IllegalStateException("Not enough tickets of type " + ticketTypeId + " are left for " + quantity + " more.");
+        }
+        return remaining;
+    }
+
+    /**
+     * @return the tickets of a GA type that can still be reserved, or null when its stock counter is not initialised yet
+     */
+    public Integer availableQuantity(Long ticketTypeId) {
+        String stock = stringRedisTemplate.opsForValue().get(STOCK_KEY_PREFIX + ticketTypeId);
+        return stock != null ? Integer.valueOf(stock) : null;
+    }
+
+    /**
+     * Drops the hold of an expired reservation and returns its tickets to stock.
+     *
+     * @return the number of tickets returned, or 0 when the reservation held none (or was already handled)
+     */
+    public long restoreHold(String reservationId) {
+        Object ticketTypeId = stringRedisTemplate.opsForHash().get(HOLD_KEY_PREFIX + reservationId, "ticketTypeId");
+        if (ticketTypeId == null) {
+            return 0;
+        }
+        return releaseHold(reservationId, Long.valueOf(ticketTypeId.toString()), true);
+    }
+
+    /**
+     * Turns the hold of a reservation into sold tickets. If the surrounding transaction rolls back,
+     * the tickets go back to stock instead.
+     * The tickets stay among the live holds until then, so a stock initialised meanwhile never counts them as available.
+     *
+     * @return the number of tickets that were held
+     */
+    public long consumeHold(String reservationId, Long ticketTypeId) {
+        long quantity = releaseHold(reservationId, ticketTypeId, false);
+        if (quantity <= 0) {
+            throw new IllegalStateException("No tickets are held for reservation " + reservationId + ". It may have expired.");
+        }
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                returnToStock(ticketTypeId, quantity);
+            }
+            dropHeld(ticketTypeId, reservationId);
+        });
+        return quantity;
+    }
+
+    /**
+     * Returns sold tickets to stock (e.g. on cancellation) once the surrounding transaction has committed.
+     */
+    public void restoreAfterCommit(Long ticketTypeId, long quantity) {
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                returnToStock(ticketTypeId, quantity);
+            }
+        });
+    }
+
+    private Long executeReserve(Long ticketTypeId, int quantity, String reservationId) {
+        return stringRedisTemplate.execute(RESERVE_SCRIPT,
+                List.of(STOCK_KEY_PREFIX + ticketTypeId, HOLD_KEY_PREFIX + reservationId,
+                        STOCK_KEY_PREFIX + ticketTypeId + HOLDS_SUFFIX, STOCK_KEY_PREFIX + ticketTypeId + HOLD_EXPIRY_SUFFIX),
+                String.valueOf(quantity), String.valueOf(ticketTypeId), String.valueOf(HOLD_TTL.toSeconds()), reservationId);
+    }
+
+    private long releaseHold(String reservationId, Long ticketTypeId, boolean restore) {
+        Long quantity = stringRedisTemplate.execute(RELEASE_HOLD_SCRIPT,
+                List.of(HOLD_KEY_PREFIX + reservationId, STOCK_KEY_PREFIX + ticketTypeId,
+                        STOCK_KEY_PREFIX + ticketTypeId + HOLDS_SUFFIX, STOCK_KEY_PREFIX + ticketTypeId + HOLD_EXPIRY_SUFFIX),
+                restore ? "1" : "0", reservationId);
+        return quantity == null ? 0 : quantity;
+    }
+
+    private void dropHeld(Long ticketTypeId, String reservationId) {
+        try {
+            stringRedisTemplate.opsForHash().delete(STOCK_KEY_PREFIX + ticketTypeId + HOLDS_SUFFIX, reservationId);
+            stringRedisTemplate.opsForZSet().remove(STOCK_KEY_PREFIX + ticketTypeId + HOLD_EXPIRY_SUFFIX, reservationId);
+        } catch (Exception e) {
+            // Left among the live holds until its expiry time: a stock initialised before then is short, never oversold
+            log.error("Could not drop the hold of reservation {} on type {}: {}", reservationId, ticketTypeId, e.getMessage(), e);
+        }
+    }
+
+    private void returnToStock(Long ticketTypeId, long quantity) {
+        String stockKey = STOCK_KEY_PREFIX + ticketTypeId;
+        try {
+            // A missing counter is rebuilt from Postgres on next use, which already accounts for these tickets
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(stockKey))) {
+                stringRedisTemplate.opsForValue().increment(stockKey, quantity);
+            }
+        } catch (Exception e) {
+            log.error("Could not return {} tickets of type {} to stock: {}", quantity, ticketTypeId, e.getMessage(), e);
+        }
+    }
+
+    private void initialiseStock(Long ticketTypeId, TicketTypeInfo info) {
+        long sold = orderItemRepository.countActiveByTicketTypeId(ticketTypeId);
+        // The script also subtracts the live holds, and does nothing if another instance initialised the counter
+        Long available = stringRedisTemplate.execute(INIT_STOCK_SCRIPT,
+                List.of(STOCK_KEY_PREFIX + ticketTypeId,
+                        STOCK_KEY_PREFIX + ticketTypeId + HOLDS_SUFFIX, STOCK_KEY_PREFIX + ticketTypeId + HOLD_EXPIRY_SUFFIX),
+                Long.toString(info.totalQuantity() - sold));
+        if (available != null && available >= 0) {
+            log.info("Initialised stock of ticket type {}: {} of {} left.", ticketTypeId, available, info.totalQuantity());
+        }
+    }
+
+    private TicketTypeInfo ticketType(Long ticketTypeId) {
+        return ticketTypes.computeIfAbsent(ticketTypeId, id -> {
+            TicketType ticketType = ticketTypeRepository.findByIdWithEvent(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Ticket type not found: " + id));
+            int totalQuantity = ticketType.getTotalQuantity() == null ? 0 : ticketType.getTotalQuantity();
+            return new TicketTypeInfo(ticketType.getEvent().getId(), ticketType.isGeneralAdmission(), totalQuantity);
+        });
+    }
+}
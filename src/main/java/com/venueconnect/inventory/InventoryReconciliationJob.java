@@ -0,0 +1,132 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.event.Event;
+import com.venueconnect.event.EventRepository;
+import com.venueconnect.event.EventSeatRepository;
+import com.venueconnect.event.TicketTypeStatusCount;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Nightly check of the cached per-ticket-type seat counters and the seat bitmap against event_seats.
+ * Any event whose counters drifted (e.g. after a missed after-commit update), or whose bitmap still marks
+ * available seats as taken (e.g. a node died between its bitmap claim and its commit), gets its whole inventory
+ * cache rebuilt: bitmap, seat map and counters together, so they stay consistent with each other.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReconciliationJob {
+
+    private static final String LOCK_KEY = "InventoryReconciliation:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+
+    private final EventRepository eventRepository;
+    private final EventSeatRepository eventSeatRepository;
+    private final SeatMapService seatMapService;
+    private final SeatBitmapService seatBitmapService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.inventory.seat-bitmap.enabled:true}")
+    private boolean enabled;
+
+    // Seats found wrongly taken, and counters that disagree with Postgres, are checked again after this delay,
+    // so changes in flight are not taken for drift
+    @Value("${application.inventory.reconcile-recheck-ms:5000}")
+    private long recheckMs;
+
+    @Scheduled(cron = "${application.inventory.reconcile-cron:0 30 3 * * *}")
+    public void reconcileAvailability() {
+        if (!enabled) {
+            return;
+        }
+        // Only one node reconciles per night
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+
+        int drifted = 0;
+        for (Event event : eventRepository.findByEndTimeAfter(LocalDateTime.now())) {
+            try {
+                if (reconcile(event.getId())) {
+                    drifted++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Could not reconcile seat availability of event {}: {}", event.getId(), e.getMessage(), e);
+            }
+        }
+        log.info("Seat availability reconciliation finished: {} events rebuilt.", drifted);
+    }
+
+    // Returns true when the counters or the bitmap drifted and the event's cache was rebuilt
+    private boolean reconcile(Long eventId) throws InterruptedException {
+        Set<Long> falselyTaken = seatBitmapService.findFalselyTakenSeats(eventId);
+        if (!falselyTaken.isEmpty()) {
+            Thread.sleep(recheckMs);
+            falselyTaken.retainAll(seatBitmapService.findFalselyTakenSeats(eventId));
+        }
+        if (!falselyTaken.isEmpty()) {
+            log.warn("Seat bitmap of event {} marks {} available seats as taken. Rebuilding its inventory cache.",
+                    eventId, falselyTaken.size());
+            meterRegistry.counter("venueconnect.seats.bitmap.drift").increment();
+            seatBitmapService.rebuild(eventId);
+            return true;
+        }
+
+        // A transition commits in Postgres before its counters move, so one mismatch may just be a change in flight:
+        // only a mismatch seen again after the recheck delay counts as drift
+        Drift drift = availabilityDrift(eventId);
+        if (drift != null) {
+            Thread.sleep(recheckMs);
+            drift = availabilityDrift(eventId);
+        }
+        if (drift == null) {
+            return false;
+        }
+
+        log.warn("Seat availability of event {} drifted (cached {}, actual {}). Rebuilding its inventory cache.",
+                eventId, drift.cached(), drift.actual());
+        meterRegistry.counter("venueconnect.seats.availability.drift").increment();
+        seatBitmapService.rebuild(eventId);
+        return true;
+    }
+
+    private record Drift(Map<Long, TicketTypeAvailability> cached, Map<Long, TicketTypeAvailability> actual) {
+    }
+
+    // Compares the cached counters with Postgres; null when they match, or when the seat map changed meanwhile
+    // (the two sides were then read at different moments, which proves nothing)
+    private Drift availabilityDrift(Long eventId) {
+        Long version = seatMapService.currentVersion(eventId);
+
+        Map<Long, int[]> counts = new HashMap<>();
+        for (TicketTypeStatusCount row : eventSeatRepository.countByTicketTypeAndStatus(eventId)) {
+            counts.computeIfAbsent(row.getTicketTypeId(), id -> new int[3])[row.getStatus().ordinal()] = (int) row.getSeatCount();
+        }
+        Map<Long, TicketTypeAvailability> actual = new HashMap<>();
+        counts.forEach((ticketTypeId, c) -> actual.put(ticketTypeId, new TicketTypeAvailability(c[0], c[1], c[2])));
+
+        Map<Long, TicketTypeAvailability> cached = seatMapService.availability(eventId);
+        if (cached.equals(actual) || !Objects.equals(version, seatMapService.currentVersion(eventId))) {
+            return null;
+        }
+        return new Drift(cached, actual);
+    }
+}
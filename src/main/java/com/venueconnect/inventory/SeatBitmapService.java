@@ -0,0 +1,333 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.config.RedisLock;
+import com.venueconnect.event.Event;
+import com.venueconnect.event.EventRepository;
+import com.venueconnect.event.EventSeatRepository;
+import com.venueconnect.event.EventSeatStatusRow;
+import com.venueconnect.venue.SeatStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a per-event seat availability bitmap in Redis so that contended reservation attempts
+ * can be rejected without a Postgres round trip.
+ * <p>
+ * Postgres stays the source of truth: the bitmap is only a filter in front of it. A seat's bit offset
+ * is its position in the event's seat ids ordered ascending, stored in the {@code SeatIndex:{eventId}} hash.
+ * BOOKED seats simply keep their bit cleared, so only claims and releases have to be mirrored here.
+ * <p>
+ * A bit left "taken" by mistake would refuse a free seat for good, so releases are never lost silently: a failed
+ * release schedules a rebuild (retried until it succeeds), and a rebuild that raced with a release (seen through
+ * the {@code SeatBitmap:{eventId}:releases} counter) reads Postgres again instead of overwriting it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatBitmapService {
+
+    private static final String BITMAP_KEY_PREFIX = "SeatBitmap:";
+    static final String INDEX_KEY_PREFIX = "SeatIndex:";
+    private static final String REBUILD_LOCK_SUFFIX = ":rebuilding";
+    private static final Duration REBUILD_LOCK_TTL = Duration.ofSeconds(30);
+    private static final String RELEASES_SUFFIX = ":releases";
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+    private static final long CLAIM_BITMAP_MISSING = -1;
+    private static final long CLAIM_UNKNOWN_SEAT = -2;
+
+    private static final RedisScript<Long> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/seat-bitmap-claim.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/seat-bitmap-release.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final EventRepository eventRepository;
+    private final EventSeatRepository eventSeatRepository;
+    private final SeatMapService seatMapService;
+    private final RedisLock redisLock;
+
+    // Events whose bitmap may be stricter than Postgres and still needs a rebuild
+    private final Set<Long> pendingRepairs = ConcurrentHashMap.newKeySet();
+
+    @Value("${application.inventory.seat-bitmap.enabled:true}")
+    private boolean enabled;
+
+    public enum ClaimResult {
+        CLAIMED,  // Every seat was free in the bitmap and is now marked taken
+        REJECTED, // At least one seat is already taken; nothing was changed
+        UNKNOWN   // The bitmap cannot answer, so the caller must rely on Postgres alone
+    }
+
+    /**
+     * Atomically claims the seats in the event's bitmap. When the surrounding transaction does not commit,
+     * the bits are handed back automatically.
+     */
+    public ClaimResult tryClaim(Long eventId, List<Long> eventSeatIds) {
+        if (!enabled) {
+            return ClaimResult.UNKNOWN;
+        }
+
+        Long result;
+        try {
+            result = stringRedisTemplate.execute(CLAIM_SCRIPT, keys(eventId), toArgs(eventSeatIds));
+        } catch (Exception e) {
+            log.warn("Seat bitmap claim failed for event {}, falling back to Postgres: {}", eventId, e.getMessage());
+            return ClaimResult.UNKNOWN;
+        }
+
+        if (result == null || result == CLAIM_BITMAP_MISSING) {
+            // Not built yet: have it built in the background once the current work is done
+            rebuildAfterCompletion(eventId);
+            return ClaimResult.UNKNOWN;
+        }
+        if (result == CLAIM_UNKNOWN_SEAT) {
+            // A seat id the index has never seen (wrong or another event's): Postgres rejects it, no rebuild needed
+            return ClaimResult.UNKNOWN;
+        }
+        if (result == 0) {
+            return ClaimResult.REJECTED;
+        }
+
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                release(eventId, eventSeatIds);
+            }
+        });
+        return ClaimResult.CLAIMED;
+    }
+
+    /**
+     * Marks the seats as AVAILABLE again once the surrounding transaction has committed,
+     * so no other request can see a free bit while Postgres still holds the old status.
+     */
+    public void releaseAfterCommit(Long eventId, Collection<Long> eventSeatIds) {
+        if (!enabled || eventSeatIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(eventSeatIds);
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                release(eventId, ids);
+            }
+        });
+    }
+
+    /**
+     * Called when the bitmap and Postgres disagree (the bitmap let a claim through that Postgres refused).
+     * The bitmap is rebuilt by the repair pass after the current transaction finishes, so it never sees our own
+     * uncommitted rows.
+     */
+    public void reportDrift(Long eventId) {
+        log.warn("Seat bitmap for event {} drifted from event_seats. Scheduling a rebuild.", eventId);
+        rebuildAfterCompletion(eventId);
+    }
+
+    /**
+     * Reads the whole bitmap of an event in one round trip (bit = 1 means AVAILABLE).
+     *
+     * @return the raw bitmap bytes, or null when the bitmap is disabled, missing or unreachable
+     */
+    public byte[] snapshot(Long eventId) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            byte[] key = bytes(BITMAP_KEY_PREFIX + eventId);
+            return stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+        } catch (Exception e) {
+            log.warn("Could not read seat bitmap for event {}: {}", eventId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Seats whose bit says "taken" although Postgres has them AVAILABLE, e.g. claimed by a node that died before
+     * its transaction finished. Claims in flight show up here too, so callers should confirm the result later.
+     *
+     * @return the event seat ids wrongly marked taken; every available seat when the bitmap no longer matches the
+     *         event's seats, and none when there is no bitmap (claims then rebuild it)
+     */
+    public Set<Long> findFalselyTakenSeats(Long eventId) {
+        byte[] bitmap = snapshot(eventId);
+        if (bitmap == null) {
+            return new HashSet<>();
+        }
+        List<EventSeatStatusRow> seats = eventSeatRepository.findStatusesByEventId(eventId);
+        boolean sameLayout = bitmap.length == (seats.size() + 7) / 8;
+
+        Set<Long> falselyTaken = new HashSet<>();
+        for (int offset = 0; offset < seats.size(); offset++) {
+            EventSeatStatusRow seat = seats.get(offset);
+            if (seat.getStatus() == SeatStatus.AVAILABLE
+                    && (!sameLayout || (bitmap[offset / 8] & (0x80 >>> (offset % 8))) == 0)) {
+                falselyTaken.add(seat.getEventSeatId());
+            }
+        }
+        return falselyTaken;
+    }
+
+    /**
+     * Rebuilds the bitmap, seat index and seat status map of an event from the event_seats table.
+     *
+     * @return false when another rebuild of the event was running, so this one did not happen
+     */
+    public boolean rebuild(Long eventId) {
+        if (!enabled) {
+            return true;
+        }
+
+        String lockKey = BITMAP_KEY_PREFIX + eventId + REBUILD_LOCK_SUFFIX;
+        String lockToken = redisLock.tryAcquire(lockKey, REBUILD_LOCK_TTL);
+        if (lockToken == null) {
+            log.debug("Seat bitmap rebuild for event {} already running elsewhere.", eventId);
+            return false;
+        }
+
+        try {
+            // A release applied between reading Postgres and writing the bitmap would be overwritten: read again
+            String releasesKey = BITMAP_KEY_PREFIX + eventId + RELEASES_SUFFIX;
+            for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+                String releasesBefore = stringRedisTemplate.opsForValue().get(releasesKey);
+                writeFromPostgres(eventId);
+                if (Objects.equals(releasesBefore, stringRedisTemplate.opsForValue().get(releasesKey))) {
+                    return true;
+                }
+                log.debug("Seat bitmap rebuild for event {} raced with a release (attempt {}).", eventId, attempt);
+            }
+            log.warn("Seat bitmap rebuild for event {} kept racing with releases. Retrying it later.", eventId);
+            pendingRepairs.add(eventId);
+            return true;
+        } finally {
+            redisLock.release(lockKey, lockToken);
+        }
+    }
+
+    // Retries the rebuilds scheduled after a failed release (or a rebuild that could not settle)
+    @Scheduled(fixedDelayString = "${application.inventory.seat-bitmap.repair-ms:5000}")
+    public void repairBitmaps() {
+        for (Long eventId : List.copyOf(pendingRepairs)) {
+            pendingRepairs.remove(eventId);
+            try {
+                if (!rebuild(eventId)) {
+                    // The running rebuild may have read Postgres before the failed release committed
+                    pendingRepairs.add(eventId);
+                }
+            } catch (Exception e) {
+                pendingRepairs.add(eventId);
+                log.warn("Could not repair seat bitmap for event {}: {}", eventId, e.getMessage());
+            }
+        }
+    }
+
+    private void writeFromPostgres(Long eventId) {
+        List<EventSeatStatusRow> seats = eventSeatRepository.findStatusesByEventId(eventId);
+        if (seats.isEmpty()) {
+            // Cache an empty seat map so seat map reads of seatless events stop landing here
+            stringRedisTemplate.delete(keys(eventId));
+            stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+                seatMapService.write(connection, eventId, seats);
+                return null;
+            });
+            return;
+        }
+
+        byte[] bitmap = new byte[(seats.size() + 7) / 8];
+        Map<byte[], byte[]> index = new HashMap<>();
+        int available = 0;
+        for (int offset = 0; offset < seats.size(); offset++) {
+            EventSeatStatusRow seat = seats.get(offset);
+            index.put(bytes(seat.getEventSeatId().toString()), bytes(Integer.toString(offset)));
+            if (seat.getStatus() == SeatStatus.AVAILABLE) {
+                bitmap[offset / 8] |= (byte) (0x80 >>> (offset % 8)); // Redis bit 0 is the most significant bit
+                available++;
+            }
+        }
+
+        byte[] bitmapKey = bytes(BITMAP_KEY_PREFIX + eventId);
+        byte[] indexKey = bytes(INDEX_KEY_PREFIX + eventId);
+        byte[] tmpIndexKey = bytes(INDEX_KEY_PREFIX + eventId + ":tmp");
+        stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+            writeIndexAndBitmap(connection, indexKey, tmpIndexKey, index, bitmapKey, bitmap);
+            seatMapService.write(connection, eventId, seats);
+            return null;
+        });
+
+        log.info("Rebuilt seat bitmap for event {}: {} seats, {} available.", eventId, seats.size(), available);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildUpcomingEvents() {
+        if (!enabled) {
+            return;
+        }
+        for (Event event : eventRepository.findByEndTimeAfter(LocalDateTime.now())) {
+            try {
+                rebuild(event.getId());
+            } catch (Exception e) {
+                log.error("Could not rebuild seat bitmap for event {}: {}", event.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void release(Long eventId, List<Long> eventSeatIds) {
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT,
+                    List.of(BITMAP_KEY_PREFIX + eventId, INDEX_KEY_PREFIX + eventId, BITMAP_KEY_PREFIX + eventId + RELEASES_SUFFIX),
+                    toArgs(eventSeatIds));
+        } catch (Exception e) {
+            // The seats would stay "taken" in the bitmap although Postgres freed them: rebuild it
+            log.error("Could not release {} seats in bitmap for event {}, scheduling a rebuild: {}",
+                    eventSeatIds.size(), eventId, e.getMessage(), e);
+            pendingRepairs.add(eventId);
+        }
+    }
+
+    // Queued for the repair pass rather than rebuilt here: a rebuild reads every seat of the event and must not
+    // run on a request thread
+    private void rebuildAfterCompletion(Long eventId) {
+        TransactionCallbacks.afterCompletion(status -> pendingRepairs.add(eventId));
+    }
+
+    private void writeIndexAndBitmap(RedisConnection connection, byte[] indexKey, byte[] tmpIndexKey,
+                                     Map<byte[], byte[]> index, byte[] bitmapKey, byte[] bitmap) {
+        connection.keyCommands().del(tmpIndexKey);
+        connection.hashCommands().hMSet(tmpIndexKey, index);
+        connection.keyCommands().rename(tmpIndexKey, indexKey);
+        connection.stringCommands().set(bitmapKey, bitmap);
+    }
+
+    private List<String> keys(Long eventId) {
+        return List.of(BITMAP_KEY_PREFIX + eventId, INDEX_KEY_PREFIX + eventId);
+    }
+
+    private Object[] toArgs(Collection<Long> eventSeatIds) {
+        return eventSeatIds.stream().map(String::valueOf).toArray();
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,29 @@
+package com.venueconnect.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatGenerationStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private Long eventId;
+    private State state;
+    private long totalSeats;     // Seats in the event's hall
+    private long processedSeats; // Hall seats handled so far
+    private long generatedSeats; // Event seats created by this run (seats that already existed are not counted)
+    private long unmappedSeats;  // Hall seats no seated ticket type applies to; they are not sold
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
@@ -0,0 +1,191 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.event.EventSeatJdbcRepository;
+import com.venueconnect.event.EventSeatJdbcRepository.HeldSeat;
+import com.venueconnect.event.EventSeatRepository;
+import com.venueconnect.venue.SeatStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The single entry point for every event seat status transition.
+ * <p>
+ * Each transition is one conditional, set-based statement against event_seats, guarded by the
+ * current status, and is mirrored into the Redis seat bitmap. Callers own the transaction;
+ * the bitmap is only updated once that transaction has committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatInventoryService {
+
+    private final EventSeatRepository eventSeatRepository;
+    private final EventSeatJdbcRepository eventSeatJdbcRepository;
+    private final SeatBitmapService seatBitmapService;
+    private final SeatMapService seatMapService;
+    private final MeterRegistry meterRegistry;
+
+    // Keeps the IN list of a batch transition well below Postgres' bind parameter limit
+    private static final int TRANSITION_BATCH_SIZE = 1000;
+
+    /**
+     * AVAILABLE -> RESERVED for all requested seats, or none of them.
+     *
+     * @throws IllegalStateException if any seat is missing, belongs to another event or is already taken
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void claim(Long eventId, List<Long> eventSeatIds, String reservationId) {
+        // Reject contended requests from the Redis bitmap before touching Postgres at all
+        SeatBitmapService.ClaimResult bitmapClaim = seatBitmapService.tryClaim(eventId, eventSeatIds);
+        if (bitmapClaim == SeatBitmapService.ClaimResult.REJECTED) {
+            recordClaim(eventId, "rejected");
+            recordContention(eventId, "bitmap");
+            throw new IllegalStateException("One or more requested seats are no longer available.");
+        }
+
+        int claimed;
+        try {
+            claimed = eventSeatRepository.claimSeats(eventId, eventSeatIds, reservationId);
+        } catch (ConcurrencyFailureException e) {
+            // Deadlock or lock timeout against another claim on the same rows; the caller may retry
+            recordContention(eventId, "lock");
+            throw e;
+        }
+        if (claimed != eventSeatIds.size()) {
+            if (bitmapClaim == SeatBitmapService.ClaimResult.CLAIMED) {
+                seatBitmapService.reportDrift(eventId);
+            }
+            recordClaim(eventId, "conflict");
+            recordContention(eventId, "conflict");
+            // Throwing rolls back the seats we did flip, so nothing is left half-reserved
+            throw new IllegalStateException("Only " + claimed + " of " + eventSeatIds.size()
+                    + " requested seats are available for event " + eventId + ". No seats were reserved.");
+        }
+        seatMapService.recordAfterCommit(eventId, eventSeatIds, SeatStatus.RESERVED);
+        recordClaim(eventId, "claimed");
+    }
+
+    /**
+     * RESERVED -> AVAILABLE for every seat still held by the reservation.
+     *
+     * @return the released event seat ids
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> releaseReservation(String reservationId) {
+        Map<Long, List<Long>> released = eventSeatJdbcRepository.releaseReserved(reservationId);
+        mirrorAfterCommit(released, SeatStatus.AVAILABLE);
+        recordTransition("release", released);
+        return flatten(released);
+    }
+
+    /**
+     * RESERVED -> AVAILABLE for every seat held by any of the reservations, with one statement per chunk of reservations.
+     *
+     * @return the number of seats released per reservation (reservations that held no seats are omitted)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, Integer> releaseReservations(Collection<String> reservationIds) {
+        Map<String, List<Long>> released = transitionReservations(reservationIds, SeatStatus.AVAILABLE, "release",
+                eventSeatJdbcRepository::releaseReservedBatch);
+        Map<String, Integer> releasedPerReservation = new HashMap<>();
+        released.forEach((reservationId, seatIds) -> releasedPerReservation.put(reservationId, seatIds.size()));
+        return releasedPerReservation;
+    }
+
+    /**
+     * RESERVED -> BOOKED for every seat still held by the reservation. Booked seats keep their bitmap bit cleared.
+     *
+     * @return the booked event seat ids
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> book(String reservationId) {
+        Map<Long, List<Long>> booked = eventSeatJdbcRepository.bookReserved(reservationId);
+        mirrorAfterCommit(booked, SeatStatus.BOOKED);
+        recordTransition("book", booked);
+        return flatten(booked);
+    }
+
+    /**
+     * RESERVED -> BOOKED for every seat held by any of the reservations, with one statement per chunk of reservations.
+     *
+     * @return the booked event seat ids per reservation (reservations that held no seats are omitted)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, List<Long>> bookReservations(Collection<String> reservationIds) {
+        return transitionReservations(reservationIds, SeatStatus.BOOKED, "book",
+                eventSeatJdbcRepository::bookReservedBatch);
+    }
+
+    /**
+     * RESERVED/BOOKED -> AVAILABLE for the given seats, e.g. when their order is cancelled.
+     *
+     * @return the released event seat ids
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> release(Collection<Long> eventSeatIds) {
+        Map<Long, List<Long>> released = eventSeatJdbcRepository.releaseSeats(eventSeatIds);
+        mirrorAfterCommit(released, SeatStatus.AVAILABLE);
+        recordTransition("cancel", released);
+        return flatten(released);
+    }
+
+    private Map<String, List<Long>> transitionReservations(Collection<String> reservationIds, SeatStatus status, String operation,
+                                                           Function<List<String>, List<HeldSeat>> batchTransition) {
+        List<String> ids = List.copyOf(reservationIds);
+        Map<String, List<Long>> seatsPerReservation = new HashMap<>();
+        Map<Long, List<Long>> transitioned = new LinkedHashMap<>();
+        for (int from = 0; from < ids.size(); from += TRANSITION_BATCH_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + TRANSITION_BATCH_SIZE, ids.size()));
+            for (HeldSeat seat : batchTransition.apply(chunk)) {
+                transitioned.computeIfAbsent(seat.eventId(), id -> new ArrayList<>()).add(seat.eventSeatId());
+                seatsPerReservation.computeIfAbsent(seat.reservationId(), id -> new ArrayList<>()).add(seat.eventSeatId());
+            }
+        }
+        mirrorAfterCommit(transitioned, status);
+        recordTransition(operation, transitioned);
+        return seatsPerReservation;
+    }
+
+    // Mirrors a committed transition into the Redis bitmap (only AVAILABLE sets bits) and the seat status map
+    private void mirrorAfterCommit(Map<Long, List<Long>> seatIdsByEvent, SeatStatus status) {
+        seatIdsByEvent.forEach((eventId, seatIds) -> {
+            if (status == SeatStatus.AVAILABLE) {
+                seatBitmapService.releaseAfterCommit(eventId, seatIds);
+            }
+            seatMapService.recordAfterCommit(eventId, seatIds, status);
+        });
+    }
+
+    private void recordClaim(Long eventId, String outcome) {
+        meterRegistry.counter("venueconnect.seats.claims", "event", eventId.toString(), "outcome", outcome).increment();
+    }
+
+    // Per-event contention, exposed through /actuator/metrics/venueconnect.seats.contention?tag=event:{id}
+    private void recordContention(Long eventId, String reason) {
+        meterRegistry.counter("venueconnect.seats.contention", "event", eventId.toString(), "reason", reason).increment();
+    }
+
+    private void recordTransition(String type, Map<Long, List<Long>> seatIdsByEvent) {
+        seatIdsByEvent.forEach((eventId, seatIds) -> meterRegistry
+                .counter("venueconnect.seats.transitions", "event", eventId.toString(), "type", type)
+                .increment(seatIds.size()));
+    }
+
+    private List<Long> flatten(Map<Long, List<Long>> seatIdsByEvent) {
+        return seatIdsByEvent.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+}
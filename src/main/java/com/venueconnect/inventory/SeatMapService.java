@@ -0,0 +1,324 @@
+package com.venueconnect.inventory;
+
+import com.venueconnect.event.EventSeatStatusRow;
+import com.venueconnect.event.dto.SeatMapResponse;
+import com.venueconnect.event.dto.SeatMapResponse.SeatChange;
+import com.venueconnect.venue.SeatStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches a compact, versioned status map of every seat of an event in Redis for cheap client polling.
+ * <p>
+ * {@code SeatMap:{eventId}} packs 2 bits per seat at the seat's inventory offset (see {@link SeatBitmapService}).
+ * Every committed transition bumps {@code SeatMap:{eventId}:version} and is appended to a bounded change log,
+ * so clients can fetch only what changed since the version they hold, and is published for live seat streams.
+ * The same script keeps seat counts per ticket type and status in {@code SeatMap:{eventId}:availability}.
+ * The map is built together with the seat bitmap and updated after commit, so it is eventually consistent;
+ * Postgres stays the source of truth.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatMapService {
+
+    /** Pub/sub channel prefix on which every applied transition is published as "version:status:id,id,..." */
+    public static final String CHANGES_CHANNEL_PREFIX = "SeatChanges:";
+
+    private static final String SEAT_MAP_KEY_PREFIX = "SeatMap:";
+    private static final String VERSION_SUFFIX = ":version";
+    private static final String BASE_SUFFIX = ":base";
+    private static final String CHANGES_SUFFIX = ":changes";
+    private static final String IDS_SUFFIX = ":ids";
+    private static final String TICKET_TYPES_SUFFIX = ":ticketTypes";
+    private static final String AVAILABILITY_SUFFIX = ":availability";
+
+    // Availability counter field names, indexed by status code (must match seat-map-update.lua)
+    private static final String[] STATUS_NAMES = {"available", "reserved", "booked"};
+
+    private static final RedisScript<Long> UPDATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/seat-map-update.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${application.inventory.seat-bitmap.enabled:true}")
+    private boolean enabled;
+
+    @Value("${application.inventory.seat-map.max-changes:10000}")
+    private int maxChanges;
+
+    /**
+     * Applies the transition to the seat map once the surrounding transaction has committed.
+     */
+    public void recordAfterCommit(Long eventId, Collection<Long> eventSeatIds, SeatStatus status) {
+        if (!enabled || eventSeatIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(eventSeatIds);
+        TransactionCallbacks.afterCompletion(txStatus -> {
+            if (txStatus == TransactionSynchronization.STATUS_COMMITTED) {
+                apply(eventId, ids, status);
+            }
+        });
+    }
+
+    /**
+     * @return the current version of the event's cached map, or null when it is not cached
+     */
+    public Long currentVersion(Long eventId) {
+        if (!enabled) {
+            return null;
+        }
+        String version = stringRedisTemplate.opsForValue().get(key(eventId, VERSION_SUFFIX));
+        return version != null ? Long.valueOf(version) : null;
+    }
+
+    /**
+     * @return the full cached map, or null when it is not cached (or the cache is disabled)
+     */
+    public SeatMapResponse read(Long eventId) {
+        if (!enabled) {
+            return null;
+        }
+        // The version is read before the map, so the map is never older than the version the client is told
+        List<String> meta = stringRedisTemplate.opsForValue().multiGet(List.of(key(eventId, VERSION_SUFFIX), key(eventId, IDS_SUFFIX)));
+        if (meta == null || meta.get(0) == null || meta.get(1) == null) {
+            return null;
+        }
+        byte[] mapKey = bytes(key(eventId, ""));
+        byte[] packed = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(mapKey));
+        if (packed == null) {
+            return null;
+        }
+
+        List<List<Long>> seatIdRanges = parseRanges(meta.get(1));
+        return SeatMapResponse.builder()
+                .eventId(eventId)
+                .version(Long.parseLong(meta.get(0)))
+                .full(true)
+                .seatCount(countSeats(seatIdRanges))
+                .statuses(Base64.getEncoder().encodeToString(packed))
+                .seatIdRanges(seatIdRanges)
+                .build();
+    }
+
+    /**
+     * @return the seats that changed after version {@code since} (latest status per seat),
+     *         or null when the change log cannot answer that and a full map is needed
+     */
+    public SeatMapResponse readChanges(Long eventId, long since) {
+        if (!enabled) {
+            return null;
+        }
+        List<String> meta = stringRedisTemplate.opsForValue().multiGet(List.of(key(eventId, VERSION_SUFFIX), key(eventId, BASE_SUFFIX)));
+        if (meta == null || meta.get(0) == null || meta.get(1) == null) {
+            return null;
+        }
+        long version = Long.parseLong(meta.get(0));
+        long base = Long.parseLong(meta.get(1));
+        if (since < base || since > version) {
+            return null;
+        }
+
+        Set<ZSetOperations.TypedTuple<String>> entries = stringRedisTemplate.opsForZSet()
+                .rangeByScoreWithScores(key(eventId, CHANGES_SUFFIX), since + 1, Double.POSITIVE_INFINITY);
+
+        // Entries come oldest first, so later changes of the same seat overwrite earlier ones
+        Map<Long, Integer> latest = new LinkedHashMap<>();
+        long newestVersion = version;
+        if (entries != null) {
+            for (ZSetOperations.TypedTuple<String> entry : entries) {
+                String[] parts = entry.getValue().split(":"); // version:eventSeatId:status
+                latest.put(Long.valueOf(parts[1]), Integer.valueOf(parts[2]));
+                newestVersion = Math.max(newestVersion, Long.parseLong(parts[0]));
+            }
+        }
+
+        List<SeatChange> changes = new ArrayList<>();
+        latest.forEach((eventSeatId, status) -> changes.add(new SeatChange(eventSeatId, status)));
+        return SeatMapResponse.builder()
+                .eventId(eventId)
+                .version(newestVersion)
+                .full(false)
+                .changes(changes)
+                .build();
+    }
+
+    /**
+     * Builds an uncached full map straight from the given rows (used when Redis has no map for the event).
+     */
+    public SeatMapResponse fromRows(Long eventId, List<EventSeatStatusRow> seats) {
+        List<List<Long>> seatIdRanges = parseRanges(toRanges(seats));
+        return SeatMapResponse.builder()
+                .eventId(eventId)
+                .version(0)
+                .full(true)
+                .seatCount(seats.size())
+                .statuses(Base64.getEncoder().encodeToString(pack(seats)))
+                .seatIdRanges(seatIdRanges)
+                .build();
+    }
+
+    /**
+     * Seat counts per ticket type and status of the event, maintained with every transition applied to the map.
+     *
+     * @return counts by ticket type id; empty when the map is not cached
+     */
+    public Map<Long, TicketTypeAvailability> availability(Long eventId) {
+        if (!enabled) {
+            return Map.of();
+        }
+        Map<Object, Object> counters = stringRedisTemplate.opsForHash().entries(key(eventId, AVAILABILITY_SUFFIX));
+        Map<Long, int[]> counts = new HashMap<>();
+        counters.forEach((field, value) -> {
+            String[] parts = field.toString().split(":"); // ticketTypeId:status
+            int[] perStatus = counts.computeIfAbsent(Long.valueOf(parts[0]), id -> new int[3]);
+            perStatus[statusIndex(parts[1])] = Integer.parseInt(value.toString());
+        });
+
+        Map<Long, TicketTypeAvailability> availability = new HashMap<>();
+        counts.forEach((ticketTypeId, c) -> availability.put(ticketTypeId, new TicketTypeAvailability(c[0], c[1], c[2])));
+        return availability;
+    }
+
+    // Called by SeatBitmapService.rebuild with the same seat order it uses for the seat index (possibly no seats)
+    void write(RedisConnection connection, Long eventId, List<EventSeatStatusRow> seats) {
+        byte[] versionKey = bytes(key(eventId, VERSION_SUFFIX));
+        // Seeding the version from the clock keeps it increasing even if Redis lost the counter
+        connection.stringCommands().setNX(versionKey, bytes(Long.toString(System.currentTimeMillis())));
+        Long version = connection.stringCommands().incr(versionKey);
+
+        connection.stringCommands().set(bytes(key(eventId, "")), pack(seats));
+        connection.stringCommands().set(bytes(key(eventId, IDS_SUFFIX)), bytes(toRanges(seats)));
+        connection.stringCommands().set(bytes(key(eventId, BASE_SUFFIX)), bytes(String.valueOf(version)));
+        connection.keyCommands().del(bytes(key(eventId, CHANGES_SUFFIX)));
+
+        Map<byte[], byte[]> ticketTypes = new HashMap<>();
+        Map<String, Integer> counters = new HashMap<>();
+        for (EventSeatStatusRow seat : seats) {
+            ticketTypes.put(bytes(seat.getEventSeatId().toString()), bytes(seat.getTicketTypeId().toString()));
+            counters.merge(seat.getTicketTypeId() + ":" + STATUS_NAMES[code(seat.getStatus())], 1, Integer::sum);
+        }
+        // Every status gets a field, so a ticket type with no booked seats still reports 0
+        seats.stream().map(EventSeatStatusRow::getTicketTypeId).distinct().forEach(ticketTypeId -> {
+            for (String statusName : STATUS_NAMES) {
+                counters.putIfAbsent(ticketTypeId + ":" + statusName, 0);
+            }
+        });
+        Map<byte[], byte[]> availability = new HashMap<>();
+        counters.forEach((field, count) -> availability.put(bytes(field), bytes(count.toString())));
+
+        byte[] ticketTypesKey = bytes(key(eventId, TICKET_TYPES_SUFFIX));
+        byte[] availabilityKey = bytes(key(eventId, AVAILABILITY_SUFFIX));
+        connection.keyCommands().del(ticketTypesKey, availabilityKey);
+        if (!seats.isEmpty()) {
+            connection.hashCommands().hMSet(ticketTypesKey, ticketTypes);
+            connection.hashCommands().hMSet(availabilityKey, availability);
+        }
+    }
+
+    private void apply(Long eventId, List<Long> eventSeatIds, SeatStatus status) {
+        List<String> keys = List.of(key(eventId, ""), key(eventId, VERSION_SUFFIX), key(eventId, CHANGES_SUFFIX),
+                SeatBitmapService.INDEX_KEY_PREFIX + eventId, key(eventId, BASE_SUFFIX),
+                key(eventId, TICKET_TYPES_SUFFIX), key(eventId, AVAILABILITY_SUFFIX));
+        List<String> args = new ArrayList<>(eventSeatIds.size() + 3);
+        args.add(String.valueOf(code(status)));
+        args.add(String.valueOf(maxChanges));
+        args.add(CHANGES_CHANNEL_PREFIX + eventId);
+        eventSeatIds.forEach(id -> args.add(id.toString()));
+        try {
+            stringRedisTemplate.execute(UPDATE_SCRIPT, keys, args.toArray());
+        } catch (Exception e) {
+            // A missed update leaves the map stale until the next rebuild of the event's inventory cache
+            log.error("Could not update seat map of event {} for {} seats: {}", eventId, eventSeatIds.size(), e.getMessage(), e);
+        }
+    }
+
+    private static int statusIndex(String statusName) {
+        for (int i = 0; i < STATUS_NAMES.length; i++) {
+            if (STATUS_NAMES[i].equals(statusName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown seat status counter: " + statusName);
+    }
+
+    private static int code(SeatStatus status) {
+        return switch (status) {
+            case AVAILABLE -> 0;
+            case RESERVED -> 1;
+            case BOOKED -> 2;
+        };
+    }
+
+    private static byte[] pack(List<EventSeatStatusRow> seats) {
+        byte[] packed = new byte[(seats.size() + 3) / 4];
+        for (int offset = 0; offset < seats.size(); offset++) {
+            // Same layout as Redis BITFIELD u2 #offset: the first seat takes the two most significant bits
+            packed[offset / 4] |= (byte) (code(seats.get(offset).getStatus()) << (6 - 2 * (offset % 4)));
+        }
+        return packed;
+    }
+
+    // Seat ids as inclusive ranges, e.g. "1-500,502-900"; seats of one event are mostly created in one go
+    private static String toRanges(List<EventSeatStatusRow> seats) {
+        StringBuilder ranges = new StringBuilder();
+        int i = 0;
+        while (i < seats.size()) {
+            long first = seats.get(i).getEventSeatId();
+            long last = first;
+            while (i + 1 < seats.size() && seats.get(i + 1).getEventSeatId() == last + 1) {
+                last = seats.get(++i).getEventSeatId();
+            }
+            if (ranges.length() > 0) {
+                ranges.append(',');
+            }
+            ranges.append(first).append('-').append(last);
+            i++;
+        }
+        return ranges.toString();
+    }
+
+    private static List<List<Long>> parseRanges(String ranges) {
+        List<List<Long>> parsed = new ArrayList<>();
+        if (ranges.isEmpty()) {
+            return parsed;
+        }
+        for (String range : ranges.split(",")) {
+            int dash = range.indexOf('-');
+            parsed.add(List.of(Long.valueOf(range.substring(0, dash)), Long.valueOf(range.substring(dash + 1))));
+        }
+        return parsed;
+    }
+
+    private static int countSeats(List<List<Long>> seatIdRanges) {
+        return seatIdRanges.stream().mapToInt(range -> (int) (range.get(1) - range.get(0) + 1)).sum();
+    }
+
+    private String key(Long eventId, String suffix) {
+        return SEAT_MAP_KEY_PREFIX + eventId + suffix;
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
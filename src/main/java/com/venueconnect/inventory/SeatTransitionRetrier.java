@@ -0,0 +1,80 @@
+package com.venueconnect.inventory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a seat transition in its own transaction and retries it a bounded number of times when it loses
+ * a concurrency race (optimistic lock failure, deadlock, lock timeout). Backoff is exponential with full jitter
+ * so that colliding requests spread out instead of retrying in lock-step.
+ * <p>
+ * Business failures such as "seat already taken" are not retried; only {@link ConcurrencyFailureException}s are.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatTransitionRetrier {
+
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.inventory.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${application.inventory.retry.base-backoff-ms:10}")
+    private long baseBackoffMs;
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        // Retrying inside someone else's transaction cannot help: the whole outer transaction is already doomed
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("venueconnect.seats.retries.exhausted", "operation", operation).increment();
+                    log.warn("Seat transition '{}' still contended after {} attempts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                meterRegistry.counter("venueconnect.seats.retries", "operation", operation).increment();
+                log.debug("Seat transition '{}' hit contention on attempt {}, retrying: {}", operation, attempt, e.getMessage());
+                sleep(backoffMillis(attempt));
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = baseBackoffMs << Math.min(attempt - 1, 10);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off a seat transition retry", e);
+        }
+    }
+}
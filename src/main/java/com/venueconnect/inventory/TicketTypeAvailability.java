@@ -0,0 +1,7 @@
+package com.venueconnect.inventory;
+
+/**
+ * Seats of one ticket type per status, as maintained in Redis. General-admission types only know {@code available}.
+ */
+public record TicketTypeAvailability(Integer available, Integer reserved, Integer booked) {
+}
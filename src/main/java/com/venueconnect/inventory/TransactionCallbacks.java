@@ -0,0 +1,29 @@
+package com.venueconnect.inventory;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Defers Redis side effects until the surrounding Postgres transaction has finished.
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    // Runs the callback when the current transaction completes, or straight away when there is none
+    public static void afterCompletion(IntConsumer callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(TransactionSynchronization.STATUS_COMMITTED);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status);
+            }
+        });
+    }
+}
@@ -4,8 +4,11 @@ package com.venueconnect.kafka;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -20,31 +23,32 @@ public class KafkaProducerService {
 
     /**
      * Sends an audit-related event to the audit topic.
+     * @param key The order id: all events of an order go to the same partition, so they stay in order.
      * @param event The event payload (will be serialized to JSON).
+     * @return completes when the broker acknowledged the event, or exceptionally when it could not be sent
      */
-    public void sendAuditEvent(Object event) {
+    public CompletableFuture<SendResult<String, Object>> sendAuditEvent(String key, Object event) {
         log.info("Sending audit event to topic {}: {}", AUDIT_TOPIC, event);
-        try {
-            // Send the event. The key is null, value is the event object.
-            kafkaTemplate.send(AUDIT_TOPIC, event);
-        } catch (Exception e) {
-            log.error("Error sending audit event to Kafka: {}", e.getMessage(), e);
-            // Handle exceptions (e.g., logging, metrics)
-        }
+        return send(AUDIT_TOPIC, key, event);
     }
 
     /**
      * Sends an analytics-related event to the analytics topic.
+     * @param key The order id: all events of an order go to the same partition, so they stay in order.
      * @param event The event payload (will be serialized to JSON).
+     * @return completes when the broker acknowledged the event, or exceptionally when it could not be sent
      */
-    public void sendAnalyticsEvent(Object event) {
+    public CompletableFuture<SendResult<String, Object>> sendAnalyticsEvent(String key, Object event) {
         log.info("Sending analytics event to topic {}: {}", ANALYTICS_TOPIC, event);
+        return send(ANALYTICS_TOPIC, key, event);
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object event) {
         try {
-            // Send the event. The key is null, value is the event object.
-            kafkaTemplate.send(ANALYTICS_TOPIC, event);
+            return kafkaTemplate.send(topic, key, event);
         } catch (Exception e) {
-            log.error("Error sending analytics event to Kafka: {}", e.getMessage(), e);
-            // Handle exceptions
+            // e.g. serialization errors or no metadata for the topic: report them like a failed send
+            return CompletableFuture.failedFuture(e);
         }
     }
-}
\ No newline at end of file
+}
@@ -11,4 +11,5 @@ import lombok.NoArgsConstructor;
 public class BookingConfirmationMessage {
     private Long orderId;
     private String reservationId; // Include this in case the worker needs it
+    private Long eventId; // Picks the booking queue shard, so one event's confirmations stay in order
 }
\ No newline at end of file
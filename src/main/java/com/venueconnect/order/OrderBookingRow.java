@@ -0,0 +1,15 @@
+package com.venueconnect.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Lightweight projection of an order for the booking worker: its reservation, state and number of seated items
+public interface OrderBookingRow {
+    Long getOrderId();
+    String getReservationId();
+    OrderStatus getStatus();
+    Long getUserId();
+    BigDecimal getTotalAmount();
+    LocalDateTime getCreatedAt();
+    Long getSeatCount();
+}
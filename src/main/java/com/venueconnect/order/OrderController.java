@@ -1,25 +1,81 @@
 package com.venueconnect.order;
+import com.venueconnect.idempotency.IdempotencyService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/v1/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
+    // RFC 7240: the client would rather get 202 right away than wait for the payment
+    private static final String PREFER_ASYNC = "respond-async";
+
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderStatusWatcher orderStatusWatcher;
+    private final OrderHistoryService orderHistoryService;
+
+    @Value("${application.orders.status.max-wait-seconds:30}")
+    private long maxWaitSeconds;
+
+    /**
+     * The current user's orders, newest first. Follow {@code nextCursor} for older ones.
+     */
+    @GetMapping
+    public ResponseEntity<OrderPageResponse> getMyOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(orderHistoryService.getMyOrders(cursor, limit));
+    }
 
+    /**
+     * Pays for a reservation. With {@code Prefer: respond-async} the PAYMENT_PENDING order is returned with
+     * 202 Accepted as soon as it is stored; its Location is the status endpoint to long-poll.
+     */
     @PostMapping("/pay")
     public ResponseEntity<OrderResponse> createOrderAndPay(
-            @RequestBody PaymentRequest request
+            @RequestBody PaymentRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = "Prefer", required = false) String prefer
     ) {
-        OrderResponse orderResponse = orderService.createOrder(request);
-        return ResponseEntity.ok(orderResponse);
+        if (prefer != null && prefer.toLowerCase().contains(PREFER_ASYNC)) {
+            IdempotencyService.Result<OrderResponse> result = idempotencyService.execute(idempotencyKey, "payments",
+                    request, OrderResponse.class, () -> orderService.submitOrder(request));
+            URI statusUri = URI.create("/api/v1/orders/" + result.body().getOrderId() + "/status");
+            return result.toResponseEntity(ResponseEntity.accepted()
+                    .location(statusUri)
+                    .header("Preference-Applied", PREFER_ASYNC));
+        }
+        return idempotencyService.execute(idempotencyKey, "payments", request, OrderResponse.class,
+                () -> orderService.createOrder(request)).toResponseEntity();
     }
+
+    /**
+     * The order's status. With {@code waitSeconds}, waits (without holding a thread) until the status differs from
+     * {@code knownStatus} or the order reaches CONFIRMED, FAILED or CANCELLED, and returns the unchanged status
+     * when the wait runs out.
+     */
+    @GetMapping("/{id}/status")
+    public DeferredResult<OrderStatusResponse> getOrderStatus(
+            @PathVariable Long id,
+            @RequestParam(required = false) OrderStatus knownStatus,
+            @RequestParam(defaultValue = "0") long waitSeconds
+    ) {
+        long waitMillis = Duration.ofSeconds(Math.max(0, Math.min(waitSeconds, maxWaitSeconds))).toMillis();
+        return orderStatusWatcher.watch(id, knownStatus, waitMillis, () -> orderService.getOrderStatus(id));
+    }
+
     @PostMapping("/{id}/cancel")
     public ResponseEntity<OrderResponse> cancelOrder(@PathVariable Long id) {
         OrderResponse cancelledOrder = orderService.cancelOrder(id);
         return ResponseEntity.ok(cancelledOrder);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.venueconnect.order;
+
+import java.math.BigDecimal;
+
+// Lightweight projection of an order item for the order history, with its seat and event
+public interface OrderHistoryItemRow {
+    Long getOrderId();
+    Long getEventSeatId();
+    Long getTicketTypeId();
+    String getSeatRow();
+    String getSeatNumber();
+    BigDecimal getPrice();
+    Long getEventId();
+    String getEventName();
+}
@@ -0,0 +1,105 @@
+package com.venueconnect.order;
+
+import com.venueconnect.user.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The current user's orders, newest first, in keyset pages.
+ * <p>
+ * A page is two projection queries whatever its size: the orders after the cursor, then all their items with
+ * seats and events. The cursor is the (createdAt, id) of the last order of the previous page, so a page never
+ * skips or repeats orders when new ones are placed meanwhile, and its cost does not grow with its depth.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderHistoryService {
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${application.orders.history.max-page-size:100}")
+    private int maxPageSize;
+
+    @Transactional(readOnly = true)
+    public OrderPageResponse getMyOrders(String cursor, int limit) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        // 1. One more order than the page holds tells whether there is a next page
+        List<OrderSummaryRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findHistoryByUserId(currentUser.getId(), Limit.of(pageSize + 1));
+        } else {
+            Cursor after = decode(cursor);
+            rows = orderRepository.findHistoryByUserIdAfter(currentUser.getId(), after.createdAt(), after.orderId(),
+                    Limit.of(pageSize + 1));
+        }
+        boolean hasNext = rows.size() > pageSize;
+        List<OrderSummaryRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        // 2. All items of the page at once
+        Map<Long, OrderResponse> orders = new LinkedHashMap<>();
+        for (OrderSummaryRow row : page) {
+            orders.put(row.getOrderId(), OrderResponse.builder()
+                    .orderId(row.getOrderId())
+                    .status(row.getStatus().name())
+                    .totalAmount(row.getTotalAmount())
+                    .createdAt(row.getCreatedAt())
+                    .items(new ArrayList<>())
+                    .build());
+        }
+        if (!orders.isEmpty()) {
+            for (OrderHistoryItemRow item : orderItemRepository.findHistoryItems(orders.keySet())) {
+                orders.get(item.getOrderId()).getItems().add(OrderItemResponse.builder()
+                        .eventSeatId(item.getEventSeatId())
+                        .ticketTypeId(item.getTicketTypeId())
+                        .seatRow(item.getSeatRow())
+                        .seatNumber(item.getSeatNumber())
+                        .price(item.getPrice())
+                        .eventId(item.getEventId())
+                        .eventName(item.getEventName())
+                        .build());
+            }
+        }
+
+        OrderSummaryRow last = hasNext ? page.get(page.size() - 1) : null;
+        return OrderPageResponse.builder()
+                .orders(new ArrayList<>(orders.values()))
+                .nextCursor(last != null ? encode(new Cursor(last.getCreatedAt(), last.getOrderId())) : null)
+                .build();
+    }
+
+    private record Cursor(LocalDateTime createdAt, Long orderId) {
+    }
+
+    private String encode(Cursor cursor) {
+        String value = cursor.createdAt() + "|" + cursor.orderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)), Long.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+    }
+}
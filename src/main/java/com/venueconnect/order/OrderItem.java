@@ -1,6 +1,7 @@
 package com.venueconnect.order;
 
 import com.venueconnect.event.EventSeat;
+import com.venueconnect.event.TicketType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -25,11 +26,21 @@ public class OrderItem {
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
-    // Link to the specific seat that was booked
+    // Link to the specific seat that was booked (null for general-admission tickets).
+    // Only its id is safe to read: the seat row is gone once the event's event_seats partition is detached.
     @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "event_seat_id", nullable = false, unique = true)
+    @JoinColumn(name = "event_seat_id", unique = true)
     private EventSeat eventSeat;
 
+    // Copied from the seat when the order is created, so the item still shows its seat after archiving
+    private String seatRow;
+    private String seatNumber;
+
+    // The ticket type that was sold (set for seated and general-admission items)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ticket_type_id")
+    private TicketType ticketType;
+
     // Store the price at the time of purchase
     @Column(nullable = false)
     private BigDecimal price;
@@ -1,6 +1,29 @@
 package com.venueconnect.order;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-}
\ No newline at end of file
+
+    // Tickets of a type that are sold or being paid for (cancelled and failed orders gave theirs back)
+    @Query("SELECT COUNT(oi) FROM OrderItem oi WHERE oi.ticketType.id = :ticketTypeId " +
+            "AND oi.order.status NOT IN (com.venueconnect.order.OrderStatus.CANCELLED, com.venueconnect.order.OrderStatus.FAILED)")
+    long countActiveByTicketTypeId(@Param("ticketTypeId") Long ticketTypeId);
+
+    // The items of a page of orders with their seat and event, in one query
+    @Query("SELECT i.order.id AS orderId, i.eventSeat.id AS eventSeatId, tt.id AS ticketTypeId, i.seatRow AS seatRow, " +
+            "i.seatNumber AS seatNumber, i.price AS price, e.id AS eventId, e.name AS eventName " +
+            "FROM OrderItem i LEFT JOIN i.ticketType tt LEFT JOIN tt.event e " +
+            "WHERE i.order.id IN :orderIds ORDER BY i.order.id, i.id")
+    List<OrderHistoryItemRow> findHistoryItems(@Param("orderIds") Collection<Long> orderIds);
+
+    // A failed payment never owned its seats: unlink them so a later order can take them (event_seat_id is UNIQUE)
+    @Modifying
+    @Query("UPDATE OrderItem oi SET oi.eventSeat = null WHERE oi.order.id = :orderId")
+    int detachSeats(@Param("orderId") Long orderId);
+}
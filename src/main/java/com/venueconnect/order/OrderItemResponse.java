@@ -1,15 +1,22 @@
 package com.venueconnect.order;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class OrderItemResponse {
-    private Long eventSeatId;
+    private Long eventSeatId; // null for general-admission tickets
+    private Long ticketTypeId;
     private String seatRow;
     private String seatNumber;
     private BigDecimal price;
+    private Long eventId;     // Set in the order history
+    private String eventName; // Set in the order history
 }
\ No newline at end of file
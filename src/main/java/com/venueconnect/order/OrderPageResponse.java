@@ -0,0 +1,17 @@
+package com.venueconnect.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    private List<OrderResponse> orders;
+    private String nextCursor; // Pass as ?cursor= for the next page; null on the last page
+}
@@ -1,12 +1,65 @@
 package com.venueconnect.order;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id = :orderId")
     Optional<Order> findByIdWithItems(@Param("orderId") Long orderId);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.id = :orderId")
+    Optional<Order> findByIdWithUser(@Param("orderId") Long orderId);
+
+    // Locks the order row, so the payment callback and payment reconciliation cannot both settle the order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId")
+    Optional<Order> findByIdForUpdate(@Param("orderId") Long orderId);
+
+    // Orders still waiting for their payment's outcome since before the cutoff, oldest first (idx_orders_payment_pending)
+    @Query("SELECT o.id FROM Order o WHERE o.status = com.venueconnect.order.OrderStatus.PAYMENT_PENDING " +
+            "AND o.createdAt < :cutoff ORDER BY o.createdAt")
+    List<Long> findPaymentPendingIdsBefore(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // Status and owner only, for status polling
+    @Query("SELECT o.status AS status, o.user.id AS userId FROM Order o WHERE o.id = :orderId")
+    Optional<OrderStatusRow> findStatusById(@Param("orderId") Long orderId);
+
+    // First page of a user's order history, newest first (idx_orders_user_id_created_at)
+    @Query("SELECT o.id AS orderId, o.status AS status, o.totalAmount AS totalAmount, o.createdAt AS createdAt " +
+            "FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryRow> findHistoryByUserId(@Param("userId") Long userId, Limit limit);
+
+    // Next page after the (createdAt, id) of the last order seen. The createdAt <= bound lets the index seek to the
+    // cursor, so deep pages cost the same as the first one.
+    @Query("SELECT o.id AS orderId, o.status AS status, o.totalAmount AS totalAmount, o.createdAt AS createdAt " +
+            "FROM Order o WHERE o.user.id = :userId AND o.createdAt <= :createdAt " +
+            "AND (o.createdAt < :createdAt OR o.id < :orderId) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryRow> findHistoryByUserIdAfter(@Param("userId") Long userId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("orderId") Long orderId,
+                                                   Limit limit);
+
+    // What the booking worker needs of each order, including how many seats it should book, in one query
+    @Query("SELECT o.id AS orderId, o.reservationId AS reservationId, o.status AS status, o.user.id AS userId, " +
+            "o.totalAmount AS totalAmount, o.createdAt AS createdAt, COUNT(i.eventSeat.id) AS seatCount " +
+            "FROM Order o LEFT JOIN o.orderItems i WHERE o.id IN :orderIds " +
+            "GROUP BY o.id, o.reservationId, o.status, o.user.id, o.totalAmount, o.createdAt")
+    List<OrderBookingRow> findBookingRows(@Param("orderIds") Collection<Long> orderIds);
+
+    // PAYMENT_COMPLETE -> CONFIRMED for every given order that is still paid
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.venueconnect.order.OrderStatus.CONFIRMED " +
+            "WHERE o.id IN :orderIds AND o.status = com.venueconnect.order.OrderStatus.PAYMENT_COMPLETE")
+    int confirmPaid(@Param("orderIds") Collection<Long> orderIds);
 }
\ No newline at end of file
@@ -1,57 +1,178 @@
 package com.venueconnect.order;
 
 // ... other imports ...
-import com.venueconnect.config.RabbitMQConfig;
 import com.venueconnect.event.EventSeat;
 import com.venueconnect.event.EventSeatRepository;
-import com.venueconnect.kafka.KafkaProducerService;
+import com.venueconnect.event.TicketType;
+import com.venueconnect.event.TicketTypeRepository;
+import com.venueconnect.inventory.GeneralAdmissionInventory;
+import com.venueconnect.inventory.TransactionCallbacks;
+import com.venueconnect.inventory.SeatInventoryService;
+import com.venueconnect.inventory.SeatTransitionRetrier;
 import com.venueconnect.kafka.OrderEventPayload;
+import com.venueconnect.outbox.OutboxMessage;
+import com.venueconnect.outbox.OutboxService;
+import com.venueconnect.payment.PaymentCharge;
+import com.venueconnect.payment.PaymentClient;
+import com.venueconnect.payment.PaymentResult;
 import com.venueconnect.reservation.Reservation;
+import com.venueconnect.reservation.ReservationDeadlineQueue;
+import com.venueconnect.reservation.ReservationService;
+import com.venueconnect.reservation.SeatCapService;
 import com.venueconnect.user.Role; // Import Role
 import com.venueconnect.user.User;
 import com.venueconnect.venue.SeatStatus;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.access.AccessDeniedException; // Import AccessDeniedException
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime; // Ensure LocalDateTime is imported
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 // ... (existing class content) ...
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class OrderService {
 
     // ... (existing fields: repositories, templates, kafka service) ...
     private final OrderRepository orderRepository;
     private final EventSeatRepository eventSeatRepository;
     private final RedisTemplate<String, Object> redisTemplate;
-    private final RabbitTemplate rabbitTemplate;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatTransitionRetrier seatTransitionRetrier;
+    private final TicketTypeRepository ticketTypeRepository;
+    private final GeneralAdmissionInventory generalAdmissionInventory;
+    private final ReservationDeadlineQueue reservationDeadlineQueue;
+    private final SeatCapService seatCapService;
+    private final PaymentClient paymentClient;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolTaskExecutor paymentCallbackExecutor;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderStatusWatcher orderStatusWatcher;
 
     private final String REDIS_KEY_PREFIX = "Reservation:";
 
+    // What completing (or failing) a PAYMENT_PENDING order needs, captured when it was created
+    private record PendingPayment(Long orderId, Long userId, Long eventId, String reservationId,
+                                  BigDecimal totalAmount, LocalDateTime createdAt, List<Long> eventSeatIds,
+                                  Map<Long, Long> generalAdmissionTickets, long ticketCount, OrderResponse response) {
+    }
+
+    private record PaymentOutcome(OrderStatus status, String failureReason) {
+    }
+
+    private record PaymentInProgress(PendingPayment pending, CompletableFuture<PaymentOutcome> outcome) {
+    }
+
 
     // ... (existing createOrder method) ...
-    @Transactional
+    /**
+     * Creates the order as PAYMENT_PENDING, charges it through the payment gateway and waits for the gateway's answer.
+     * No transaction (and so no pooled connection) is held while the charge is in flight. When the gateway's answer
+     * is lost (timeout, gateway error), the order is returned still PAYMENT_PENDING and settled by reconciliation.
+     */
     public OrderResponse createOrder(PaymentRequest request) {
+        PaymentInProgress payment = startPayment(request);
+
+        PaymentOutcome outcome = payment.outcome().join();
+
+        if (outcome.status() != OrderStatus.PAYMENT_COMPLETE && outcome.status() != OrderStatus.PAYMENT_PENDING) {
+            throw new IllegalStateException("Payment failed for order " + payment.pending().orderId() + ": " + outcome.failureReason());
+        }
+
+        // Return a response (note status is PAYMENT_COMPLETE, or PAYMENT_PENDING while the gateway's answer is unknown)
+        OrderResponse response = payment.pending().response();
+        response.setStatus(outcome.status().name());
+        return response;
+    }
+
+    /**
+     * Like {@link #createOrder}, but returns the PAYMENT_PENDING order as soon as it is stored. The client follows it
+     * with {@link #getOrderStatus} while the payment callback and the booking worker complete it.
+     */
+    public OrderResponse submitOrder(PaymentRequest request) {
+        return startPayment(request).pending().response();
+    }
+
+    /**
+     * The current status of an order owned by the current user (or any order, for admins and organizers).
+     */
+    public OrderStatus getOrderStatus(Long orderId) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        OrderStatusRow order = orderRepository.findStatusById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderId));
+
+        boolean isAdminOrOrganizer = currentUser.getRole() == Role.ROLE_ADMIN || currentUser.getRole() == Role.ROLE_ORGANIZER;
+        if (!order.getUserId().equals(currentUser.getId()) && !isAdminOrOrganizer) {
+            throw new AccessDeniedException("User does not have permission to view this order.");
+        }
+        return order.getStatus();
+    }
+
+    private PaymentInProgress startPayment(PaymentRequest request) {
 
         // 1. Get user
         User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
-        // 2. Fetch reservation from REDIS
+        // 2. Fail fast (503) while the gateway is unavailable, before the reservation is touched
+        PaymentClient.Permit permit = paymentClient.acquire();
+
+        // 3. Persist the order as PAYMENT_PENDING in a short transaction of its own
+        PendingPayment pending;
+        try {
+            pending = new TransactionTemplate(transactionManager).execute(status -> createPendingOrder(request, currentUser));
+        } catch (RuntimeException e) {
+            paymentClient.release(permit);
+            throw e;
+        }
+
+        // 4. Charge outside any transaction; the gateway's answer (its callback) completes the order
+        PaymentCharge charge = PaymentCharge.builder()
+                .orderId(pending.orderId())
+                .userId(pending.userId())
+                .amount(pending.totalAmount())
+                .paymentMethod(request.getPaymentMethod())
+                .reference(chargeReference(pending.orderId()))
+                .build();
+        CompletableFuture<PaymentOutcome> outcome = paymentClient.charge(permit, charge)
+                .handleAsync((result, error) -> completePayment(pending, result, error), paymentCallbackExecutor)
+                .exceptionally(error -> {
+                    // Completing the order failed, or the callback executor rejected it: the order stays
+                    // PAYMENT_PENDING until PaymentReconciliationScheduler settles it with the gateway
+                    Throwable cause = PaymentClient.unwrap(error);
+                    log.error("Could not complete the payment of order {}: {}", pending.orderId(), cause.getMessage(), cause);
+                    return new PaymentOutcome(OrderStatus.PAYMENT_PENDING, "Payment outcome unknown");
+                });
+        return new PaymentInProgress(pending, outcome);
+    }
+
+    private PendingPayment createPendingOrder(PaymentRequest request, User currentUser) {
+
+        // 1. Fetch reservation from REDIS
         String redisKey = REDIS_KEY_PREFIX + request.getReservationId();
         Reservation reservation = (Reservation) redisTemplate.opsForValue().get(redisKey);
 
-        // 3. Validate reservation
+        // 2. Validate reservation
         if (reservation == null) {
             throw new EntityNotFoundException("Reservation not found or has expired: " + request.getReservationId());
         }
@@ -59,96 +180,268 @@ public class OrderService {
             throw new IllegalStateException("This reservation does not belong to the current user.");
         }
 
-        // 4. Mock payment
-        boolean paymentSuccessful = mockPayment(request.getPaymentMethod());
-        if (!paymentSuccessful) {
-            // If payment fails, we just throw an exception. The Redis key will expire eventually.
-            // We could optionally delete the Redis key here if needed.
-            throw new RuntimeException("Payment failed.");
+        // 3. Take the reservation off the deadline queue. Whoever removes it owns it: if the expiry sweeper got there
+        //    first, its seats are already being released and must not be sold
+        if (!reservationDeadlineQueue.remove(request.getReservationId())) {
+            throw new IllegalStateException("Reservation has expired: " + request.getReservationId());
         }
+        Instant expiresAt = reservation.getCreatedAt().plus(ReservationService.RESERVATION_TTL_MINUTES, ChronoUnit.MINUTES);
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                // The order holds the seats now: delete the reservation "timer" from REDIS
+                redisTemplate.delete(redisKey);
+            } else {
+                // Nothing was ordered: hand the reservation back to the sweeper with its original deadline
+                reservationDeadlineQueue.schedule(request.getReservationId(), expiresAt);
+            }
+        });
 
         // --- START OF REFACTORED LOGIC ---
 
-        // 5. Fetch seats from POSTGRES (using reservationId) just to calculate the total amount
-        List<EventSeat> reservedSeats = eventSeatRepository.findByReservationId(request.getReservationId());
-        if (reservedSeats.isEmpty()) {
-            throw new IllegalStateException("No seats found for this reservation. It may have expired.");
-        }
-
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        List<Long> eventSeatIds = reservedSeats.stream().map(EventSeat::getId).collect(Collectors.toList()); // Collect seat IDs
-
-        for (EventSeat seat : reservedSeats) {
-            // Check if seats are still RESERVED (important!)
-            if (seat.getStatus() != SeatStatus.RESERVED) {
-                throw new IllegalStateException("Seat " + seat.getId() + " status is not RESERVED. Cannot proceed.");
-            }
-            totalAmount = totalAmount.add(seat.getTicketType().getPrice());
-        }
-
-        // 6. Create the Order in POSTGRES with status PAYMENT_COMPLETE
+        // 4. Create the Order in POSTGRES with status PAYMENT_PENDING (the gateway has not been called yet)
         Order newOrder = Order.builder()
                 .user(currentUser)
-                .totalAmount(totalAmount)
-                .status(OrderStatus.PAYMENT_COMPLETE) // Use the new status
+                .status(OrderStatus.PAYMENT_PENDING)
                 .createdAt(LocalDateTime.now())
                 .reservationId(request.getReservationId())
                 .build();
 
-        // 7. Create OrderItems (linking seats but NOT changing their status yet)
-        List<OrderItem> orderItems = reservedSeats.stream()
-                .map(seat -> OrderItem.builder()
-                        .order(newOrder)
-                        .eventSeat(seat)
-                        .price(seat.getTicketType().getPrice())
-                        .build())
-                .collect(Collectors.toList());
+        // 5. Create OrderItems: one per reserved seat (NOT changing their status yet),
+        //    or one per general-admission ticket held for this reservation
+        List<OrderItem> orderItems = reservation.getTicketTypeId() != null
+                ? createGeneralAdmissionItems(newOrder, reservation)
+                : createSeatItems(newOrder, request.getReservationId());
         newOrder.setOrderItems(orderItems);
+        newOrder.setTotalAmount(orderItems.stream().map(OrderItem::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add));
 
-        // 8. Save the Order (and its items)
+        List<Long> eventSeatIds = orderItems.stream()
+                .map(OrderItem::getEventSeat)
+                .filter(Objects::nonNull)
+                .map(EventSeat::getId)
+                .collect(Collectors.toList()); // Collect seat IDs
+
+        // 6. Save the Order (and its items)
         Order savedOrder = orderRepository.save(newOrder);
 
-        // 9. Create the message for RabbitMQ
-        BookingConfirmationMessage message = new BookingConfirmationMessage(
-                savedOrder.getId(),
-                savedOrder.getReservationId()
-        );
+        // 7. The tickets belong to the order now: they keep counting against the user's cap until it is cancelled or its payment fails
+        seatCapService.settleAfterCommit(request.getReservationId());
 
-        // 10. Publish the message to the booking exchange
-        rabbitTemplate.convertAndSend(
-                RabbitMQConfig.BOOKING_EXCHANGE_NAME,
-                RabbitMQConfig.BOOKING_ROUTING_KEY,
-                message
-        );
+        // --- END OF REFACTORED LOGIC ---
 
-        // 11. Delete the reservation "timer" from REDIS (payment is done)
-        redisTemplate.delete(redisKey);
+        // 8. Keep what the payment callback needs, so completing the order does not reload its items
+        Map<Long, Long> generalAdmissionTickets = orderItems.stream()
+                .filter(item -> item.getEventSeat() == null)
+                .collect(Collectors.groupingBy(item -> item.getTicketType().getId(), Collectors.counting()));
+        return new PendingPayment(savedOrder.getId(), currentUser.getId(), reservation.getEventId(),
+                savedOrder.getReservationId(), savedOrder.getTotalAmount(), savedOrder.getCreatedAt(), eventSeatIds,
+                generalAdmissionTickets, orderItems.size(), mapToOrderResponse(savedOrder));
+    }
 
-        // --- END OF REFACTORED LOGIC ---
+    // Runs on the payment callback executor once the gateway answered (or the call failed or timed out)
+    private PaymentOutcome completePayment(PendingPayment pending, PaymentResult result, Throwable error) {
+        if (error != null) {
+            // A timed-out charge may still go through at the provider: the order keeps its seats until
+            // PaymentReconciliationScheduler settles it with the gateway's final answer
+            log.warn("Outcome of the payment for order {} is unknown ({}); leaving it to reconciliation",
+                    pending.orderId(), PaymentClient.unwrap(error).getClass().getSimpleName());
+            return new PaymentOutcome(OrderStatus.PAYMENT_PENDING, "Payment outcome unknown");
+        }
+
+        String failureReason = null;
+        if (!result.isApproved()) {
+            failureReason = result.getDeclineReason() != null ? result.getDeclineReason() : "Payment declined";
+        }
+
+        String reason = failureReason;
+        // Retried with backoff if releasing the seats of a failed payment loses a lock race
+        return seatTransitionRetrier.execute("payment", () -> reason == null
+                ? confirmPayment(pending, result)
+                : failPayment(pending, reason));
+    }
+
+    private PaymentOutcome confirmPayment(PendingPayment pending, PaymentResult result) {
+        Order order = orderRepository.findByIdForUpdate(pending.orderId())
+                .orElseThrow(() -> new EntityNotFoundException("Order not found: " + pending.orderId()));
+        if (order.getStatus() != OrderStatus.PAYMENT_PENDING) {
+            if (order.getStatus() == OrderStatus.FAILED) {
+                // Reconciliation failed the order before this charge went through: its seats are gone, refund it
+                refundAfterCommit(order.getId());
+            }
+            return new PaymentOutcome(order.getStatus(), "Order is no longer awaiting payment");
+        }
+        order.setStatus(OrderStatus.PAYMENT_COMPLETE);
+        orderStatusWatcher.publishAfterCommit(order.getId(), OrderStatus.PAYMENT_COMPLETE);
+        log.info("Payment {} approved for order {}", result.getTransactionId(), order.getId());
+
+        // 1. Create the message for RabbitMQ
+        BookingConfirmationMessage message = new BookingConfirmationMessage(
+                order.getId(),
+                order.getReservationId(),
+                pending.eventId()
+        );
+
+        // 2. Queue the message for the booking exchange; the outbox relay publishes it once this transaction commits
+        outboxService.enqueue(order.getId(), OutboxMessage.Destination.BOOKING_QUEUE, message);
 
         // --- SEND KAFKA EVENT ---
         OrderEventPayload kafkaPayload = OrderEventPayload.builder()
-                .orderId(savedOrder.getId())
-                .userId(currentUser.getId())
-                .reservationId(savedOrder.getReservationId())
-                .orderStatus(savedOrder.getStatus())
-                .totalAmount(savedOrder.getTotalAmount())
-                .timestamp(savedOrder.getCreatedAt())
-                .eventSeatIds(eventSeatIds)
+                .orderId(order.getId())
+                .userId(pending.userId())
+                .reservationId(order.getReservationId())
+                .orderStatus(order.getStatus())
+                .totalAmount(order.getTotalAmount())
+                .timestamp(order.getCreatedAt())
+                .eventSeatIds(pending.eventSeatIds())
                 .build();
 
-        kafkaProducerService.sendAuditEvent(kafkaPayload); // Send to audit topic
-        kafkaProducerService.sendAnalyticsEvent(kafkaPayload); // Send to analytics topic
+        outboxService.enqueue(order.getId(), OutboxMessage.Destination.AUDIT_TOPIC, kafkaPayload); // Send to audit topic
+        outboxService.enqueue(order.getId(), OutboxMessage.Destination.ANALYTICS_TOPIC, kafkaPayload); // Send to analytics topic
         // --- END KAFKA EVENT ---
 
+        return new PaymentOutcome(OrderStatus.PAYMENT_COMPLETE, null);
+    }
+
+    private PaymentOutcome failPayment(PendingPayment pending, String failureReason) {
+        Order order = orderRepository.findByIdForUpdate(pending.orderId())
+                .orElseThrow(() -> new EntityNotFoundException("Order not found: " + pending.orderId()));
+        if (order.getStatus() != OrderStatus.PAYMENT_PENDING) {
+            return new PaymentOutcome(order.getStatus(), "Order is no longer awaiting payment");
+        }
+        order.setStatus(OrderStatus.FAILED);
+        orderStatusWatcher.publishAfterCommit(order.getId(), OrderStatus.FAILED);
+        log.warn("Payment for order {} failed: {}", order.getId(), failureReason);
+
+        // 1. The reservation was used up by the order: its seats and tickets go back now
+        List<Long> releasedSeatIds = pending.eventSeatIds().isEmpty()
+                ? List.of()
+                : seatInventoryService.releaseReservation(pending.reservationId());
+        orderItemRepository.detachSeats(order.getId());
+        pending.generalAdmissionTickets().forEach(generalAdmissionInventory::restoreAfterCommit);
+        seatCapService.decrementAfterCommit(pending.eventId(), pending.userId(), pending.ticketCount());
+
+        // 2. Audit the failure
+        OrderEventPayload kafkaPayload = OrderEventPayload.builder()
+                .orderId(order.getId())
+                .userId(pending.userId())
+                .reservationId(order.getReservationId())
+                .orderStatus(OrderStatus.FAILED)
+                .totalAmount(order.getTotalAmount())
+                .timestamp(LocalDateTime.now())
+                .eventSeatIds(releasedSeatIds)
+                .build();
+        outboxService.enqueue(order.getId(), OutboxMessage.Destination.AUDIT_TOPIC, kafkaPayload);
+
+        return new PaymentOutcome(OrderStatus.FAILED, failureReason);
+    }
+
+    /**
+     * Settles an order left PAYMENT_PENDING because its payment callback never completed it (the node died, the
+     * callback failed or was rejected, or the gateway timed out) with the gateway's final answer for its charge.
+     * A charge the gateway never received fails the order. When the gateway does not answer, the order is left
+     * for the next sweep.
+     */
+    public void reconcilePayment(Long orderId) {
+        Optional<PaymentResult> result = paymentClient.lookup(chargeReference(orderId)).join();
+        PaymentOutcome outcome = seatTransitionRetrier.execute("payment", () -> {
+            Order order = orderRepository.findByIdWithItems(orderId)
+                    .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderId));
+            if (order.getStatus() != OrderStatus.PAYMENT_PENDING) {
+                return new PaymentOutcome(order.getStatus(), null);
+            }
+            PendingPayment pending = toPendingPayment(order);
+            if (result.isEmpty()) {
+                return failPayment(pending, "Payment was never received by the gateway");
+            }
+            return result.get().isApproved()
+                    ? confirmPayment(pending, result.get())
+                    : failPayment(pending, result.get().getDeclineReason() != null ? result.get().getDeclineReason() : "Payment declined");
+        });
+        log.info("Reconciled payment of order {}: {}", orderId, outcome.status());
+    }
+
+    // Rebuilds what completing the order needs from the stored order (reconciliation has no in-memory PendingPayment)
+    private PendingPayment toPendingPayment(Order order) {
+        List<Long> eventSeatIds = order.getOrderItems().stream()
+                .map(OrderItem::getEventSeat)
+                .filter(Objects::nonNull)
+                .map(EventSeat::getId)
+                .collect(Collectors.toList());
+        Map<Long, Long> generalAdmissionTickets = order.getOrderItems().stream()
+                .filter(item -> item.getEventSeat() == null)
+                .collect(Collectors.groupingBy(item -> item.getTicketType().getId(), Collectors.counting()));
+        Long eventId = order.getOrderItems().get(0).getTicketType().getEvent().getId();
+        return new PendingPayment(order.getId(), order.getUser().getId(), eventId, order.getReservationId(),
+                order.getTotalAmount(), order.getCreatedAt(), eventSeatIds, generalAdmissionTickets,
+                order.getOrderItems().size(), null);
+    }
 
-        // 12. Return a response (note status is PAYMENT_COMPLETE)
-        return mapToOrderResponse(savedOrder);
+    private void refundAfterCommit(Long orderId) {
+        TransactionCallbacks.afterCompletion(status -> paymentClient.refund(chargeReference(orderId))
+                .whenComplete((refunded, error) -> {
+                    if (error != null) {
+                        log.error("Could not refund the late charge of order {}: {}", orderId, PaymentClient.unwrap(error).toString());
+                    } else {
+                        log.warn("Refunded the late charge of failed order {}", orderId);
+                    }
+                }));
+    }
+
+    // The charge's idempotency key at the gateway; reconciliation and refunds find the charge by it
+    private static String chargeReference(Long orderId) {
+        return "order-" + orderId;
+    }
+
+    private List<OrderItem> createSeatItems(Order order, String reservationId) {
+        // Fetch seats from POSTGRES (using reservationId) with their ticket type and physical seat in one query,
+        // so pricing the items and mapping the response do not load them one by one
+        List<EventSeat> reservedSeats = eventSeatRepository.findByReservationIdWithDetails(reservationId);
+        if (reservedSeats.isEmpty()) {
+            throw new IllegalStateException("No seats found for this reservation. It may have expired.");
+        }
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (EventSeat seat : reservedSeats) {
+            // Check if seats are still RESERVED (important!)
+            if (seat.getStatus() != SeatStatus.RESERVED) {
+                throw new IllegalStateException("Seat " + seat.getId() + " status is not RESERVED. Cannot proceed.");
+            }
+            orderItems.add(OrderItem.builder()
+                    .order(order)
+                    .eventSeat(seat)
+                    .seatRow(seat.getSeat().getSeatRow())
+                    .seatNumber(seat.getSeat().getSeatNumber())
+                    .ticketType(seat.getTicketType())
+                    .price(seat.getTicketType().getPrice())
+                    .build());
+        }
+        return orderItems;
+    }
+
+    private List<OrderItem> createGeneralAdmissionItems(Order order, Reservation reservation) {
+        TicketType ticketType = ticketTypeRepository.findById(reservation.getTicketTypeId())
+                .orElseThrow(() -> new EntityNotFoundException("Ticket type not found: " + reservation.getTicketTypeId()));
+
+        // The held tickets become sold; they return to stock if this transaction rolls back
+        long quantity = generalAdmissionInventory.consumeHold(reservation.getId(), ticketType.getId());
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (int i = 0; i < quantity; i++) {
+            orderItems.add(OrderItem.builder()
+                    .order(order)
+                    .ticketType(ticketType)
+                    .price(ticketType.getPrice())
+                    .build());
+        }
+        return orderItems;
     }
 
     // --- ADD CANCEL ORDER METHOD ---
-    @Transactional
     public OrderResponse cancelOrder(Long orderId) {
+        // Runs in its own transaction, retried with backoff if releasing the seats loses a lock race
+        return seatTransitionRetrier.execute("cancel", () -> cancelOrderInTransaction(orderId));
+    }
+
+    private OrderResponse cancelOrderInTransaction(Long orderId) {
         // 1. Get current user
         User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 
@@ -175,22 +468,27 @@ public class OrderService {
 
         // 5. Update Order Status
         order.setStatus(OrderStatus.CANCELLED);
+        orderStatusWatcher.publishAfterCommit(order.getId(), OrderStatus.CANCELLED);
 
-        // 6. Release the Seats
-        List<Long> releasedSeatIds = order.getOrderItems().stream()
-                .map(item -> {
-                    EventSeat seat = item.getEventSeat();
-                    // Only release if it was actually booked by this order
-                    if (seat.getStatus() == SeatStatus.BOOKED || seat.getStatus() == SeatStatus.RESERVED) {
-                        seat.setStatus(SeatStatus.AVAILABLE);
-                        seat.setReservationId(null); // Clear any lingering reservation ID
-                        eventSeatRepository.save(seat);
-                        return seat.getId();
-                    }
-                    return null; // Should not happen in CONFIRMED state
-                })
-                .filter(java.util.Objects::nonNull)
+        // 6. Release the Seats (only those still RESERVED or BOOKED are flipped back)
+        List<Long> orderSeatIds = order.getOrderItems().stream()
+                .map(OrderItem::getEventSeat)
+                .filter(Objects::nonNull)
+                .map(EventSeat::getId)
                 .collect(Collectors.toList());
+        List<Long> releasedSeatIds = orderSeatIds.isEmpty() ? List.of() : seatInventoryService.release(orderSeatIds);
+
+        // General-admission tickets go back to their ticket type's stock once the cancellation has committed
+        Map<Long, Long> generalAdmissionTickets = order.getOrderItems().stream()
+                .filter(item -> item.getEventSeat() == null && item.getTicketType() != null)
+                .collect(Collectors.groupingBy(item -> item.getTicketType().getId(), Collectors.counting()));
+        generalAdmissionTickets.forEach(generalAdmissionInventory::restoreAfterCommit);
+
+        // The cancelled tickets stop counting against the order owner's cap for their event
+        Map<Long, Long> ticketsPerEvent = order.getOrderItems().stream()
+                .collect(Collectors.groupingBy(item -> item.getTicketType().getEvent().getId(), Collectors.counting()));
+        ticketsPerEvent.forEach((eventId, tickets) ->
+                seatCapService.decrementAfterCommit(eventId, order.getUser().getId(), tickets));
 
 
         // 7. Mock Refund Process
@@ -209,8 +507,8 @@ public class OrderService {
                 .timestamp(LocalDateTime.now()) // Use current time for cancellation event
                 .eventSeatIds(releasedSeatIds)
                 .build();
-        kafkaProducerService.sendAuditEvent(kafkaPayload); // Audit cancellation
-        kafkaProducerService.sendAnalyticsEvent(kafkaPayload); // Analytics
+        outboxService.enqueue(cancelledOrder.getId(), OutboxMessage.Destination.AUDIT_TOPIC, kafkaPayload); // Audit cancellation
+        outboxService.enqueue(cancelledOrder.getId(), OutboxMessage.Destination.ANALYTICS_TOPIC, kafkaPayload); // Analytics
 
         return mapToOrderResponse(cancelledOrder);
     }
@@ -222,18 +520,10 @@ public class OrderService {
     // --- END CANCEL ORDER METHOD ---
 
 
-    // ... (mockPayment and mapToOrderResponse methods remain the same) ...
-    private boolean mockPayment(String paymentMethod) {
-        return true;
-    }
+    // ... (mapToOrderResponse methods remain the same) ...
     private OrderResponse mapToOrderResponse(Order order) {
         List<OrderItemResponse> itemResponses = order.getOrderItems().stream()
-                .map(item -> OrderItemResponse.builder()
-                        .eventSeatId(item.getEventSeat().getId())
-                        .seatRow(item.getEventSeat().getSeat().getSeatRow())
-                        .seatNumber(item.getEventSeat().getSeat().getSeatNumber())
-                        .price(item.getPrice())
-                        .build())
+                .map(this::mapToOrderItemResponse)
                 .collect(Collectors.toList());
 
         return OrderResponse.builder()
@@ -244,4 +534,17 @@ public class OrderService {
                 .items(itemResponses)
                 .build();
     }
-}
\ No newline at end of file
+
+    private OrderItemResponse mapToOrderItemResponse(OrderItem item) {
+        OrderItemResponse.OrderItemResponseBuilder builder = OrderItemResponse.builder()
+                .ticketTypeId(item.getTicketType() != null ? item.getTicketType().getId() : null)
+                .price(item.getPrice());
+        // General-admission tickets have no seat
+        if (item.getEventSeat() != null) {
+            builder.eventSeatId(item.getEventSeat().getId())
+                    .seatRow(item.getSeatRow())
+                    .seatNumber(item.getSeatNumber());
+        }
+        return builder.build();
+    }
+}
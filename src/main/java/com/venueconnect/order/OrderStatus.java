@@ -5,5 +5,6 @@ public enum OrderStatus {
     CONFIRMED,  // Payment successful, seats are booked
     FAILED,     // Payment failed
     CANCELLED,   // Order was cancelled
-    PAYMENT_COMPLETE
+    PAYMENT_COMPLETE,
+    PAYMENT_PENDING // Order created, waiting for the payment gateway's answer
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.venueconnect.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResponse {
+    private Long orderId;
+    private String status;
+    private boolean terminal; // CONFIRMED, FAILED or CANCELLED: the status will not change by itself any more
+}
@@ -0,0 +1,7 @@
+package com.venueconnect.order;
+
+// Lightweight projection of an order for status polling: its state and owner
+public interface OrderStatusRow {
+    OrderStatus getStatus();
+    Long getUserId();
+}
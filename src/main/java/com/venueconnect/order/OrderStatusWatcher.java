@@ -0,0 +1,134 @@
+package com.venueconnect.order;
+
+import com.venueconnect.inventory.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Supplier;
+
+/**
+ * Long-polls on order status changes without polling the database.
+ * <p>
+ * Whoever changes an order's status publishes the new status on {@code OrderStatus:{orderId}} once the change has
+ * committed. Every node subscribes to {@code OrderStatus:*} and completes the requests of that order that are
+ * waiting on it. A waiting request holds no thread and no database connection.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusWatcher implements MessageListener {
+
+    /** Pub/sub channel prefix on which committed order status changes are published as the status name */
+    public static final String CHANNEL_PREFIX = "OrderStatus:";
+
+    private static final Set<OrderStatus> TERMINAL = EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.FAILED, OrderStatus.CANCELLED);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Map<Long, Set<Watcher>> watchers = new ConcurrentHashMap<>();
+
+    // A waiting request and the status its client already knows (null: any published change wakes it)
+    private record Watcher(DeferredResult<OrderStatusResponse> result, OrderStatus knownStatus) {
+    }
+
+    public static boolean isTerminal(OrderStatus status) {
+        return TERMINAL.contains(status);
+    }
+
+    /**
+     * Answers with the order's status as soon as it differs from {@code knownStatus} (the current status when null),
+     * or with the unchanged status after {@code timeoutMs}. A terminal status is answered right away.
+     */
+    public DeferredResult<OrderStatusResponse> watch(Long orderId, OrderStatus knownStatus, long timeoutMs,
+                                                     Supplier<OrderStatus> current) {
+        DeferredResult<OrderStatusResponse> result = new DeferredResult<>(timeoutMs);
+
+        // Registered before the status is read, so a change published in between is not lost
+        Watcher watcher = new Watcher(result, knownStatus);
+        watchers.computeIfAbsent(orderId, id -> new CopyOnWriteArraySet<>()).add(watcher);
+        result.onCompletion(() -> removeWatcher(orderId, watcher));
+
+        OrderStatus status;
+        try {
+            status = current.get();
+        } catch (RuntimeException e) {
+            removeWatcher(orderId, watcher);
+            throw e;
+        }
+        if (timeoutMs <= 0 || isTerminal(status) || (knownStatus != null && status != knownStatus)) {
+            result.setResult(response(orderId, status));
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(response(orderId, status)));
+        return result;
+    }
+
+    /**
+     * Publishes the new status of the orders once the surrounding transaction has committed.
+     */
+    public void publishAfterCommit(Collection<Long> orderIds, OrderStatus status) {
+        List<Long> ids = List.copyOf(orderIds);
+        TransactionCallbacks.afterCompletion(txStatus -> {
+            if (txStatus == TransactionSynchronization.STATUS_COMMITTED) {
+                for (Long orderId : ids) {
+                    try {
+                        stringRedisTemplate.convertAndSend(CHANNEL_PREFIX + orderId, status.name());
+                    } catch (Exception e) {
+                        // Waiting clients just see the change when their poll times out
+                        log.warn("Could not publish status {} of order {}: {}", status, orderId, e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    public void publishAfterCommit(Long orderId, OrderStatus status) {
+        publishAfterCommit(List.of(orderId), status);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Long orderId = Long.valueOf(channel.substring(CHANNEL_PREFIX.length()));
+        Set<Watcher> orderWatchers = watchers.get(orderId);
+        if (orderWatchers == null || orderWatchers.isEmpty()) {
+            return;
+        }
+
+        OrderStatus status = OrderStatus.valueOf(new String(message.getBody(), StandardCharsets.UTF_8));
+        for (Watcher watcher : orderWatchers) {
+            if (watcher.knownStatus() != status) {
+                watcher.result().setResult(response(orderId, status));
+            }
+        }
+    }
+
+    private OrderStatusResponse response(Long orderId, OrderStatus status) {
+        return OrderStatusResponse.builder()
+                .orderId(orderId)
+                .status(status.name())
+                .terminal(isTerminal(status))
+                .build();
+    }
+
+    private void removeWatcher(Long orderId, Watcher watcher) {
+        watchers.computeIfPresent(orderId, (id, orderWatchers) -> {
+            orderWatchers.remove(watcher);
+            return orderWatchers.isEmpty() ? null : orderWatchers;
+        });
+    }
+}
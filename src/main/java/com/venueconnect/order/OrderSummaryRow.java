@@ -0,0 +1,12 @@
+package com.venueconnect.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Lightweight projection of an order for the order history: one row per order, without its items
+public interface OrderSummaryRow {
+    Long getOrderId();
+    OrderStatus getStatus();
+    BigDecimal getTotalAmount();
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,76 @@
+package com.venueconnect.order;
+
+import com.venueconnect.config.RedisLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Settles orders that stayed PAYMENT_PENDING longer than any payment callback can take: the node charging them
+ * died, completing them failed, or the gateway's answer was lost. Each one is completed or failed with the gateway's
+ * final answer for its charge (see {@link OrderService#reconcilePayment}). One node sweeps at a time.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentReconciliationScheduler {
+
+    private static final String LOCK_KEY = "PaymentReconciliation:lock";
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final RedisLock redisLock;
+
+    @Value("${application.payment.reconciliation.stale-after-ms:60000}")
+    private long staleAfterMs;
+
+    @Value("${application.payment.reconciliation.poll-ms:30000}")
+    private long pollMs;
+
+    @Value("${application.payment.reconciliation.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${application.payment.reconciliation.poll-ms:30000}")
+    public void reconcileStalePayments() {
+        String lockToken = null;
+        try {
+            lockToken = redisLock.tryAcquire(LOCK_KEY, Duration.ofMillis(pollMs));
+            if (lockToken == null) {
+                return;
+            }
+
+            LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+            List<Long> orderIds = orderRepository.findPaymentPendingIdsBefore(cutoff, Limit.of(batchSize));
+            for (Long orderId : orderIds) {
+                try {
+                    orderService.reconcilePayment(orderId);
+                } catch (Exception e) {
+                    // Left PAYMENT_PENDING: the next sweep tries again
+                    log.error("Could not reconcile the payment of order {}: {}", orderId, e.getMessage(), e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Payment reconciliation sweep failed: {}", e.getMessage(), e);
+        } finally {
+            // A sweep that outlived the lock must not delete the lock of the node sweeping now
+            if (lockToken != null) {
+                releaseLock(lockToken);
+            }
+        }
+    }
+
+    private void releaseLock(String lockToken) {
+        try {
+            redisLock.release(LOCK_KEY, lockToken);
+        } catch (Exception e) {
+            log.warn("Could not release the payment reconciliation lock: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.venueconnect.outbox;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_messages")
+public class OutboxMessage {
+
+    public enum Destination {
+        BOOKING_QUEUE,  // RabbitMQ booking exchange, BookingConfirmationMessage
+        AUDIT_TOPIC,    // Kafka events.audit, OrderEventPayload
+        ANALYTICS_TOPIC // Kafka events.analytics, OrderEventPayload
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The order this message is about
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Destination destination;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+}
@@ -0,0 +1,6 @@
+package com.venueconnect.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+}
@@ -0,0 +1,201 @@
+package com.venueconnect.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venueconnect.config.BookingShardRouter;
+import com.venueconnect.config.RabbitMQConfig;
+import com.venueconnect.kafka.KafkaProducerService;
+import com.venueconnect.kafka.OrderEventPayload;
+import com.venueconnect.order.BookingConfirmationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes outbox messages to RabbitMQ and Kafka in batches, oldest first.
+ * <p>
+ * One instance relays at a time (a transaction-scoped advisory lock), so messages of an order always leave in the
+ * order they were written. A row is deleted only once the broker confirmed it (Kafka acks, RabbitMQ publisher
+ * confirms). When a message fails, the later messages of the same order wait for the next run; after
+ * {@code max-attempts} failures it is parked (kept for inspection, no longer relayed) and its order moves on.
+ * Delivery is at-least-once: a message published just before a crash is sent again, so consumers must tolerate
+ * duplicates (the booking worker skips orders that are no longer PAYMENT_COMPLETE).
+ * Plain JDBC keeps the relay's polling out of the Hibernate session and statistics.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    // Arbitrary but fixed key for pg_try_advisory_xact_lock
+    private static final long RELAY_LOCK_KEY = 0x6f7574626f78L; // "outbox"
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final RabbitTemplate rabbitTemplate;
+    private final BookingShardRouter bookingShardRouter;
+    private final KafkaProducerService kafkaProducerService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    // How long a round of sends may wait for the brokers' acknowledgements
+    @Value("${application.outbox.confirm-timeout-ms:10000}")
+    private long confirmTimeoutMs;
+
+    private record PendingMessage(long id, long aggregateId, OutboxMessage.Destination destination, String payload) {
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.relay-interval-ms:200}")
+    public void relay() {
+        // Drain the backlog, one batch per transaction
+        int published;
+        do {
+            Integer count = new TransactionTemplate(transactionManager).execute(status -> relayBatch());
+            published = count == null ? 0 : count;
+        } while (published >= batchSize);
+    }
+
+    private int relayBatch() {
+        // 1. Only one relay at a time, so per-order ordering holds across instances
+        Boolean locked = jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return 0;
+        }
+
+        // 2. Oldest messages first, leaving out parked ones
+        List<PendingMessage> batch = jdbcTemplate.query(
+                "SELECT id, aggregate_id, destination, payload FROM outbox_messages " +
+                        "WHERE attempts < :maxAttempts ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource().addValue("maxAttempts", maxAttempts).addValue("limit", batchSize),
+                (rs, rowNum) -> new PendingMessage(rs.getLong("id"), rs.getLong("aggregate_id"),
+                        OutboxMessage.Destination.valueOf(rs.getString("destination")), rs.getString("payload")));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 3. Publish in rounds: the first message of every order, then the second, and so on. A round is sent at
+        //    once and then awaited, so an order's messages leave one after another; an order whose message failed
+        //    publishes nothing more in this batch
+        Map<Long, Deque<PendingMessage>> messagesByOrder = new LinkedHashMap<>();
+        batch.forEach(message -> messagesByOrder.computeIfAbsent(message.aggregateId(), id -> new ArrayDeque<>()).add(message));
+        List<Long> publishedIds = new ArrayList<>();
+        Set<Long> blockedOrders = new HashSet<>();
+        while (!messagesByOrder.isEmpty()) {
+            Map<PendingMessage, CompletableFuture<Void>> round = new LinkedHashMap<>();
+            for (Iterator<Deque<PendingMessage>> orders = messagesByOrder.values().iterator(); orders.hasNext(); ) {
+                Deque<PendingMessage> messages = orders.next();
+                PendingMessage message = messages.poll();
+                round.put(message, publish(message));
+                if (messages.isEmpty()) {
+                    orders.remove();
+                }
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+            for (Map.Entry<PendingMessage, CompletableFuture<Void>> delivery : round.entrySet()) {
+                PendingMessage message = delivery.getKey();
+                try {
+                    delivery.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    publishedIds.add(message.id());
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                    blockedOrders.add(message.aggregateId());
+                    messagesByOrder.remove(message.aggregateId());
+                    meterRegistry.counter("venueconnect.outbox.failures", "destination", message.destination().name()).increment();
+                    log.warn("Could not publish outbox message {} ({}) for order {}: {}",
+                            message.id(), message.destination(), message.aggregateId(), cause.toString());
+                    recordFailure(message, cause);
+                }
+            }
+        }
+
+        // 4. Published messages are done
+        if (!publishedIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM outbox_messages WHERE id IN (:ids)", new MapSqlParameterSource("ids", publishedIds));
+            meterRegistry.counter("venueconnect.outbox.published").increment(publishedIds.size());
+        }
+        // A batch held back by failures is not "full": wait for the next run instead of spinning on it
+        return blockedOrders.isEmpty() ? batch.size() : 0;
+    }
+
+    // Sends the message; the future completes once the broker has confirmed it
+    private CompletableFuture<Void> publish(PendingMessage message) {
+        try {
+            // Kafka events are keyed by order, so all events of an order land in one partition, in order
+            String key = Long.toString(message.aggregateId());
+            return switch (message.destination()) {
+                case BOOKING_QUEUE -> {
+                    BookingConfirmationMessage booking = objectMapper.readValue(message.payload(), BookingConfirmationMessage.class);
+                    CorrelationData correlation = new CorrelationData(Long.toString(message.id()));
+                    rabbitTemplate.convertAndSend(
+                            RabbitMQConfig.BOOKING_EXCHANGE_NAME,
+                            bookingShardRouter.routingKeyFor(booking.getEventId()),
+                            booking,
+                            correlation);
+                    yield correlation.getFuture().thenAccept(confirm -> {
+                        if (!confirm.isAck()) {
+                            throw new AmqpException("Broker did not confirm the message: " + confirm.getReason());
+                        }
+                        if (correlation.getReturned() != null) {
+                            throw new AmqpException("Message was unroutable: " + correlation.getReturned().getReplyText());
+                        }
+                    });
+                }
+                case AUDIT_TOPIC -> kafkaProducerService.sendAuditEvent(key,
+                        objectMapper.readValue(message.payload(), OrderEventPayload.class)).thenAccept(sent -> { });
+                case ANALYTICS_TOPIC -> kafkaProducerService.sendAnalyticsEvent(key,
+                        objectMapper.readValue(message.payload(), OrderEventPayload.class)).thenAccept(sent -> { });
+            };
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void recordFailure(PendingMessage message, Throwable e) {
+        String error = String.valueOf(e.getMessage());
+        Integer attempts = jdbcTemplate.queryForObject(
+                "UPDATE outbox_messages SET attempts = attempts + 1, last_error = :error WHERE id = :id RETURNING attempts",
+                new MapSqlParameterSource()
+                        .addValue("id", message.id())
+                        .addValue("error", error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error),
+                Integer.class);
+        if (attempts != null && attempts >= maxAttempts) {
+            meterRegistry.counter("venueconnect.outbox.parked", "destination", message.destination().name()).increment();
+            log.error("Parking outbox message {} ({}) for order {} after {} failed attempts; the order's later messages go ahead",
+                    message.id(), message.destination(), message.aggregateId(), attempts);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.venueconnect.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records messages for RabbitMQ and Kafka in the outbox_messages table, inside the caller's transaction.
+ * They are only published (by {@link OutboxRelay}) once that transaction has committed, so a rollback sends nothing
+ * and a crash after the commit loses nothing.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long orderId, OutboxMessage.Destination destination, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise outbox message for order " + orderId, e);
+        }
+        outboxMessageRepository.save(OutboxMessage.builder()
+                .aggregateId(orderId)
+                .destination(destination)
+                .payload(json)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,20 @@
+package com.venueconnect.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentCharge {
+    private Long orderId;
+    private Long userId;
+    private BigDecimal amount;
+    private String paymentMethod;
+    private String reference; // Sent as the provider's idempotency key, so a retried charge is not taken twice
+}
@@ -0,0 +1,121 @@
+package com.venueconnect.payment;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for the payment gateway.
+ * <p>
+ * CLOSED: calls pass, and the outcomes of the last {@code windowSize} calls are kept. Once at least
+ * {@code minimumCalls} are recorded and the failure rate reaches the threshold, the breaker opens.
+ * OPEN: calls are rejected for {@code openMillis}, then the breaker goes HALF_OPEN.
+ * HALF_OPEN: up to {@code halfOpenCalls} trial calls pass; the breaker closes when all of them succeed
+ * and opens again as soon as one fails.
+ */
+class PaymentCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] window; // true = failed
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    PaymentCircuitBreaker(int windowSize, int minimumCalls, double failureRatePercent, long openMillis, int halfOpenCalls) {
+        this(windowSize, minimumCalls, failureRatePercent, openMillis, halfOpenCalls, System::currentTimeMillis);
+    }
+
+    PaymentCircuitBreaker(int windowSize, int minimumCalls, double failureRatePercent, long openMillis, int halfOpenCalls,
+                          LongSupplier clock) {
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRatePercent / 100.0;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * @return whether a call may go to the gateway now; every permitted call must be followed by {@link #record}
+     */
+    synchronized boolean tryPermit() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    synchronized void record(boolean failed) {
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failed) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (recorded == window.length && window[next]) {
+                    failures--;
+                }
+                window[next] = failed;
+                next = (next + 1) % window.length;
+                recorded = Math.min(recorded + 1, window.length);
+                if (failed) {
+                    failures++;
+                }
+                if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // A call permitted before the breaker opened: its outcome no longer matters
+            }
+        }
+    }
+
+    // A permitted call that was never made: it records nothing, but its half-open trial slot is freed
+    synchronized void cancel() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.venueconnect.payment;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to the {@link PaymentGateway} with a timeout, a circuit breaker and a bulkhead.
+ * <p>
+ * A payment first takes a {@link Permit}: when the breaker is open or {@code max-concurrent-calls} charges are
+ * already in flight, this fails fast with 503 before the caller has written anything. The permit is then spent on
+ * one charge and given back when the gateway answers or the timeout fires, whichever comes first.
+ * Gateway errors and timeouts count as failures for the breaker; declines do not.
+ */
+@Service
+@Slf4j
+public class PaymentClient {
+
+    private final PaymentGateway paymentGateway;
+    private final MeterRegistry meterRegistry;
+    private final PaymentCircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final long timeoutMs;
+
+    /**
+     * The right to make one gateway call. Spend it with {@link #charge} or give it back with {@link #release}.
+     */
+    public static final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+    }
+
+    public PaymentClient(
+            PaymentGateway paymentGateway,
+            MeterRegistry meterRegistry,
+            @Value("${application.payment.timeout-ms:5000}") long timeoutMs,
+            @Value("${application.payment.max-concurrent-calls:50}") int maxConcurrentCalls,
+            @Value("${application.payment.circuit-breaker.window-size:50}") int windowSize,
+            @Value("${application.payment.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${application.payment.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${application.payment.circuit-breaker.open-ms:30000}") long openMs,
+            @Value("${application.payment.circuit-breaker.half-open-calls:5}") int halfOpenCalls) {
+        this.paymentGateway = paymentGateway;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new PaymentCircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openMs, halfOpenCalls);
+        Gauge.builder("venueconnect.payment.in-flight", bulkhead, b -> maxConcurrentCalls - b.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("venueconnect.payment.circuit.open", circuitBreaker,
+                        cb -> cb.state() == PaymentCircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves room for one gateway call.
+     *
+     * @throws ResponseStatusException 503 when the circuit is open or the bulkhead is full
+     */
+    public Permit acquire() {
+        if (!bulkhead.tryAcquire()) {
+            meterRegistry.counter("venueconnect.payment.rejected", "reason", "bulkhead-full").increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many payments in progress. Please retry shortly.");
+        }
+        if (!circuitBreaker.tryPermit()) {
+            bulkhead.release();
+            meterRegistry.counter("venueconnect.payment.rejected", "reason", "circuit-open").increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payments are temporarily unavailable. Please retry later.");
+        }
+        return new Permit();
+    }
+
+    /**
+     * Gives back a permit that will not be used (e.g. the order could not be created). Does nothing if it was spent.
+     */
+    public void release(Permit permit) {
+        if (permit.released.compareAndSet(false, true)) {
+            bulkhead.release();
+            circuitBreaker.cancel();
+        }
+    }
+
+    /**
+     * Sends the charge without blocking. The future completes with the gateway's answer, or exceptionally with a
+     * {@link TimeoutException} or the gateway's error.
+     */
+    public CompletableFuture<PaymentResult> charge(Permit permit, PaymentCharge charge) {
+        if (permit.released.get()) {
+            throw new IllegalStateException("Payment permit already used");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<PaymentResult> call;
+        try {
+            call = paymentGateway.charge(charge);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    if (permit.released.compareAndSet(false, true)) {
+                        bulkhead.release();
+                        circuitBreaker.record(error != null);
+                    }
+                    String outcome = error != null
+                            ? (unwrap(error) instanceof TimeoutException ? "timeout" : "error")
+                            : (result.isApproved() ? "approved" : "declined");
+                    sample.stop(meterRegistry.timer("venueconnect.payment.gateway", "outcome", outcome));
+                    if (error != null) {
+                        log.warn("Payment gateway call for order {} failed ({}): {}", charge.getOrderId(), outcome, unwrap(error).toString());
+                    }
+                });
+    }
+
+    /**
+     * Asks the gateway for the final answer of an earlier charge (see {@link PaymentGateway#lookup}). Reconciliation
+     * calls are few and not on the request path, so they only get the timeout: no permit is needed.
+     */
+    public CompletableFuture<Optional<PaymentResult>> lookup(String reference) {
+        return call("lookup", () -> paymentGateway.lookup(reference));
+    }
+
+    public CompletableFuture<Void> refund(String reference) {
+        return call("refund", () -> paymentGateway.refund(reference));
+    }
+
+    private <T> CompletableFuture<T> call(String operation, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> call;
+        try {
+            call = request.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> meterRegistry.counter("venueconnect.payment.reconciliation.calls",
+                        "operation", operation, "outcome", error != null ? "error" : "ok").increment());
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,25 @@
+package com.venueconnect.payment;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A payment provider. Implementations must not block the caller: the charge is sent and the returned future
+ * completes when the provider answers (its callback). A decline completes the future normally with a declined
+ * {@link PaymentResult}; only gateway errors complete it exceptionally.
+ * <p>
+ * Callers go through {@link PaymentClient}, which adds the timeout, circuit breaker and bulkhead.
+ */
+public interface PaymentGateway {
+
+    CompletableFuture<PaymentResult> charge(PaymentCharge charge);
+
+    /**
+     * The provider's final answer for the charge with this reference, or empty when it never received that charge.
+     * Used to settle orders whose charge outcome was lost (timeout, gateway error, node restart).
+     */
+    CompletableFuture<Optional<PaymentResult>> lookup(String reference);
+
+    // Gives back the money of an approved charge; refunding the same reference twice has no further effect
+    CompletableFuture<Void> refund(String reference);
+}
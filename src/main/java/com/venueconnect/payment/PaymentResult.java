@@ -0,0 +1,24 @@
+package com.venueconnect.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentResult {
+    private boolean approved;
+    private String transactionId; // The provider's id for the charge, when approved
+    private String declineReason;
+
+    public static PaymentResult approved(String transactionId) {
+        return PaymentResult.builder().approved(true).transactionId(transactionId).build();
+    }
+
+    public static PaymentResult declined(String declineReason) {
+        return PaymentResult.builder().approved(false).declineReason(declineReason).build();
+    }
+}
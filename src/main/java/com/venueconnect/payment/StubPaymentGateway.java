@@ -0,0 +1,99 @@
+package com.venueconnect.payment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a payment provider: answers after a configurable latency and fails or declines a configurable
+ * share of the charges, so timeouts, the circuit breaker and failed payments can be exercised without a provider.
+ * Nothing blocks while a charge is "in flight"; the answer is scheduled on a delayed executor.
+ * The answers of the most recent charges are kept in memory, so lookups and refunds behave like the provider's.
+ */
+@Component
+@ConditionalOnProperty(name = "application.payment.gateway", havingValue = "stub", matchIfMissing = true)
+@Slf4j
+public class StubPaymentGateway implements PaymentGateway {
+
+    private static final int MAX_REMEMBERED_CHARGES = 10_000;
+
+    // Charge reference -> answer, oldest dropped first
+    private final Map<String, PaymentResult> answers = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PaymentResult> eldest) {
+                    return size() > MAX_REMEMBERED_CHARGES;
+                }
+            });
+
+    @Value("${application.payment.stub.latency-ms:50}")
+    private long latencyMs;
+
+    // Added to the latency at random, 0 to this many ms
+    @Value("${application.payment.stub.latency-jitter-ms:0}")
+    private long latencyJitterMs;
+
+    // Share of charges that fail with a gateway error (0.0 - 1.0)
+    @Value("${application.payment.stub.failure-rate:0}")
+    private double failureRate;
+
+    // Share of charges that are declined (0.0 - 1.0)
+    @Value("${application.payment.stub.decline-rate:0}")
+    private double declineRate;
+
+    @Override
+    public CompletableFuture<PaymentResult> charge(PaymentCharge charge) {
+        return CompletableFuture.supplyAsync(() -> {
+            // A retried reference gets the first answer again (idempotency key)
+            PaymentResult previous = answers.get(charge.getReference());
+            if (previous != null) {
+                return previous;
+            }
+            PaymentResult result = answer(charge);
+            answers.put(charge.getReference(), result);
+            return result;
+        }, delayed());
+    }
+
+    @Override
+    public CompletableFuture<Optional<PaymentResult>> lookup(String reference) {
+        return CompletableFuture.supplyAsync(() -> Optional.ofNullable(answers.get(reference)), delayed());
+    }
+
+    @Override
+    public CompletableFuture<Void> refund(String reference) {
+        return CompletableFuture.runAsync(() -> {
+            PaymentResult refunded = answers.computeIfPresent(reference,
+                    (ref, result) -> result.isApproved() ? PaymentResult.declined("Refunded") : result);
+            log.info("Stub gateway refunded charge {}: {}", reference, refunded != null);
+        }, delayed());
+    }
+
+    private Executor delayed() {
+        long latency = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        return CompletableFuture.delayedExecutor(latency, TimeUnit.MILLISECONDS);
+    }
+
+    private PaymentResult answer(PaymentCharge charge) {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < failureRate) {
+            throw new IllegalStateException("Stub gateway error for charge " + charge.getReference());
+        }
+        if (roll < failureRate + declineRate) {
+            return PaymentResult.declined("Declined by stub gateway");
+        }
+        log.debug("Stub gateway approved {} for charge {}", charge.getAmount(), charge.getReference());
+        return PaymentResult.approved("stub-" + UUID.randomUUID());
+    }
+}
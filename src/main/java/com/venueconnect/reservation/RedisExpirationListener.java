@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 public class RedisExpirationListener implements MessageListener { // Implement MessageListener directly
 
     private final ReservationCleanupService cleanupService;
+    private final ReservationDeadlineQueue deadlineQueue;
     private final String REDIS_KEY_PREFIX = "Reservation:";
 
     /**
@@ -29,6 +30,12 @@ public class RedisExpirationListener implements MessageListener { // Implement M
 
             // Call our service to clean up the seats
             try { // Add try-catch for better error logging
+                // Fast path only: the expiry sweeper releases anything this notification misses.
+                // Whoever takes the reservation off the deadline queue releases it, so it is never released twice.
+                if (!deadlineQueue.remove(reservationId)) {
+                    log.debug("Reservation {} was already released or paid.", reservationId);
+                    return;
+                }
                 cleanupService.releaseSeats(reservationId);
             } catch (Exception e) {
                 log.error("Error releasing seats for expired reservation {}: {}", reservationId, e.getMessage(), e);
@@ -28,6 +28,8 @@ public class Reservation implements Serializable {
 
     private Long eventId;
 //    private List<Long> eventSeatIds; // The IDs of the EventSeat entities
+    private Long ticketTypeId; // Set for general-admission reservations (held by quantity, no seats)
+    private Integer quantity;
     private String status; // e.g., "PENDING"
     private Instant createdAt;
 }
\ No newline at end of file
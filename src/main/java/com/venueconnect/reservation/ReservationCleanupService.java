@@ -1,44 +1,69 @@
 package com.venueconnect.reservation;
 
-import com.venueconnect.event.EventSeat;
-import com.venueconnect.event.EventSeatRepository;
-import com.venueconnect.venue.SeatStatus;
+import com.venueconnect.inventory.GeneralAdmissionInventory;
+import com.venueconnect.inventory.SeatInventoryService;
+import com.venueconnect.inventory.SeatTransitionRetrier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j // This is for logging
 public class ReservationCleanupService {
 
-    private final EventSeatRepository eventSeatRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatTransitionRetrier seatTransitionRetrier;
+    private final GeneralAdmissionInventory generalAdmissionInventory;
+    private final SeatCapService seatCapService;
 
-    @Transactional
     public void releaseSeats(String reservationId) {
         log.info("Reservation {} expired. Releasing seats.", reservationId);
 
-        // 1. Find all seats in Postgres tagged with this reservationId
-        List<EventSeat> seatsToRelease = eventSeatRepository.findByReservationId(reservationId);
+        // Its tickets no longer count against the user's cap for the event
+        seatCapService.release(reservationId);
 
-        if (seatsToRelease.isEmpty()) {
+        // General-admission reservations hold a quantity instead of seats: hand it back to the stock counter
+        long restoredTickets = generalAdmissionInventory.restoreHold(reservationId);
+        if (restoredTickets > 0) {
+            log.info("Returned {} general-admission tickets to stock for reservation {}", restoredTickets, reservationId);
+            return;
+        }
+
+        // Flip every seat still held by this reservation back to AVAILABLE in one (retried) transaction
+        List<Long> releasedSeatIds = seatTransitionRetrier.execute("release",
+                () -> seatInventoryService.releaseReservation(reservationId));
+
+        if (releasedSeatIds.isEmpty()) {
             log.warn("No seats found for expired reservation {}. They may have been booked.", reservationId);
             return;
         }
 
-        // 2. Loop through and set them back to AVAILABLE
-        for (EventSeat seat : seatsToRelease) {
-            // We double-check they are still RESERVED, just to be safe
-            if (seat.getStatus() == SeatStatus.RESERVED) {
-                seat.setStatus(SeatStatus.AVAILABLE);
-                seat.setReservationId(null); // Clean up the tag
-                eventSeatRepository.save(seat);
-            }
+        log.info("Successfully released {} seats for reservation {}", releasedSeatIds.size(), reservationId);
+    }
+
+    /**
+     * Releases a batch of expired reservations: general-admission holds go back to stock,
+     * and all their seats are released with set-based statements in a single (retried) transaction.
+     *
+     * @return the number of seats released per reservation (reservations that held no seats are omitted)
+     */
+    public Map<String, Integer> releaseExpired(Collection<String> reservationIds) {
+        long restoredTickets = 0;
+        for (String reservationId : reservationIds) {
+            seatCapService.release(reservationId);
+            restoredTickets += generalAdmissionInventory.restoreHold(reservationId);
         }
 
-        log.info("Successfully released {} seats for reservation {}", seatsToRelease.size(), reservationId);
+        Map<String, Integer> releasedSeats = seatTransitionRetrier.execute("release",
+                () -> seatInventoryService.releaseReservations(reservationIds));
+
+        log.info("Released {} expired reservations: {} seats, {} general-admission tickets",
+                reservationIds.size(), releasedSeats.values().stream().mapToInt(Integer::intValue).sum(), restoredTickets);
+        return releasedSeats;
     }
 }
\ No newline at end of file
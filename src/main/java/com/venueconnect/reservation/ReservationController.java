@@ -1,8 +1,12 @@
 package com.venueconnect.reservation;
+import com.venueconnect.idempotency.IdempotencyService;
+import com.venueconnect.waitingroom.AdmissionRateController;
+import com.venueconnect.waitingroom.WaitingRoomService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -12,12 +16,32 @@ import org.springframework.web.bind.annotation.RestController;
 public class ReservationController {
 
     private final ReservationService reservationService;
+    private final WaitingRoomService waitingRoomService;
+    private final AdmissionRateController admissionRateController;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/reserve")
     public ResponseEntity<ReservationResponse> createReservation(
-            @RequestBody ReservationRequest request
+            @RequestBody ReservationRequest request,
+            @RequestHeader(value = "X-Admission-Token", required = false) String admissionToken,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
-        ReservationResponse response = reservationService.createReservation(request);
-        return ResponseEntity.ok(response);
+        // A retried request gets the seats of its first attempt instead of holding a second block
+        return idempotencyService.execute(idempotencyKey, "reservations", request, ReservationResponse.class, () -> {
+            // During an on-sale spike only users admitted from the waiting room get through, once per admission
+            WaitingRoomService.Admission admission = waitingRoomService.consumeAdmission(request.getEventId(), admissionToken);
+
+            long start = System.nanoTime();
+            try {
+                return reservationService.createReservation(request);
+            } catch (RuntimeException e) {
+                // Nothing was reserved, so the user keeps their turn
+                waitingRoomService.restoreAdmission(admission);
+                throw e;
+            } finally {
+                // Feeds the adaptive admission rate
+                admissionRateController.recordReservationLatency(System.nanoTime() - start);
+            }
+        }).toResponseEntity();
     }
-}
\ No newline at end of file
+}
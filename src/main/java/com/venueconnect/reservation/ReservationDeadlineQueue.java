@@ -0,0 +1,68 @@
+package com.venueconnect.reservation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deadlines of pending reservations, kept in the {@code ReservationDeadlines} sorted set (score = expiry epoch millis).
+ * <p>
+ * Whoever removes a reservation from the queue owns its expiry: the sweeper, the keyspace-notification listener
+ * and a successful payment all go through {@link #remove} / {@link #claimDue}, so a reservation is released at most once.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationDeadlineQueue {
+
+    private static final String DEADLINES_KEY = "ReservationDeadlines";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_DUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/reservation-deadlines-claim.lua"), List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public void schedule(String reservationId, Instant expiresAt) {
+        stringRedisTemplate.opsForZSet().add(DEADLINES_KEY, reservationId, expiresAt.toEpochMilli());
+    }
+
+    /**
+     * @return true when this caller took the reservation off the queue (and so owns its release or completion)
+     */
+    public boolean remove(String reservationId) {
+        Long removed = stringRedisTemplate.opsForZSet().remove(DEADLINES_KEY, reservationId);
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * Atomically takes up to {@code limit} reservations whose deadline is at or before {@code now} off the queue.
+     *
+     * @return reservation id to deadline (epoch millis), oldest first
+     */
+    public Map<String, Long> claimDue(Instant now, int limit) {
+        List<?> flat = stringRedisTemplate.execute(CLAIM_DUE_SCRIPT, List.of(DEADLINES_KEY),
+                String.valueOf(now.toEpochMilli()), String.valueOf(limit));
+
+        Map<String, Long> due = new LinkedHashMap<>();
+        if (flat == null) {
+            return due;
+        }
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            due.put(flat.get(i).toString(), (long) Double.parseDouble(flat.get(i + 1).toString()));
+        }
+        return due;
+    }
+
+    // Puts reservations back after a failed release so the next sweep retries them
+    public void requeue(Map<String, Long> deadlines) {
+        deadlines.forEach((reservationId, deadline) ->
+                stringRedisTemplate.opsForZSet().add(DEADLINES_KEY, reservationId, deadline));
+    }
+}
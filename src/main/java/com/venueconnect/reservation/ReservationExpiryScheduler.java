@@ -0,0 +1,76 @@
+package com.venueconnect.reservation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Releases expired reservations by polling the deadline queue, instead of relying only on Redis keyspace
+ * notifications (which are fire-and-forget and emitted lazily). Every node sweeps; the atomic claim in
+ * {@link ReservationDeadlineQueue#claimDue} makes sure each reservation is handled by exactly one of them.
+ */
+@Component
+@Slf4j
+public class ReservationExpiryScheduler {
+
+    private final ReservationDeadlineQueue deadlineQueue;
+    private final ReservationCleanupService cleanupService;
+    private final Timer expiryLag;
+
+    @Value("${application.reservations.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${application.reservations.expiry.max-batches-per-sweep:20}")
+    private int maxBatchesPerSweep;
+
+    public ReservationExpiryScheduler(ReservationDeadlineQueue deadlineQueue,
+                                      ReservationCleanupService cleanupService,
+                                      MeterRegistry meterRegistry) {
+        this.deadlineQueue = deadlineQueue;
+        this.cleanupService = cleanupService;
+        // How long after its deadline a reservation was actually released
+        this.expiryLag = Timer.builder("venueconnect.reservations.expiry.lag")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.reservations.expiry.poll-ms:1000}")
+    public void releaseExpiredReservations() {
+        for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+            Instant now = Instant.now();
+            Map<String, Long> due;
+            try {
+                due = deadlineQueue.claimDue(now, batchSize);
+            } catch (Exception e) {
+                log.error("Could not poll the reservation deadline queue: {}", e.getMessage(), e);
+                return;
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+
+            try {
+                cleanupService.releaseExpired(due.keySet());
+            } catch (Exception e) {
+                log.error("Failed to release {} expired reservations, re-queueing them: {}", due.size(), e.getMessage(), e);
+                deadlineQueue.requeue(due);
+                return;
+            }
+
+            Instant released = Instant.now();
+            due.values().forEach(deadline ->
+                    expiryLag.record(Duration.between(Instant.ofEpochMilli(deadline), released)));
+
+            if (due.size() < batchSize) {
+                return;
+            }
+        }
+    }
+}
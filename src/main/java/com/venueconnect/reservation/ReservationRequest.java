@@ -12,4 +12,13 @@ import java.util.List;
 public class ReservationRequest {
     private Long eventId;
     private List<Long> eventSeatIds; // The list of seats the user wants to reserve
+
+    // Best-available mode: leave eventSeatIds empty and ask for N adjacent seats of a ticket type instead
+    private Long ticketTypeId;
+    private Integer quantity;
+
+    public ReservationRequest(Long eventId, List<Long> eventSeatIds) {
+        this.eventId = eventId;
+        this.eventSeatIds = eventSeatIds;
+    }
 }
\ No newline at end of file
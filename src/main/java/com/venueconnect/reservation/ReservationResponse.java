@@ -1,17 +1,23 @@
 package com.venueconnect.reservation;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ReservationResponse {
     private String reservationId; // This will be the key we use in Redis
     private Long eventId;
     private List<Long> eventSeatIds;
+    private Long ticketTypeId; // General admission: the ticket type and quantity that is held
+    private Integer quantity;
     private String status;
     private Instant expiresAt; // When the reservation TTL expires
 }
\ No newline at end of file
@@ -1,34 +1,40 @@
 package com.venueconnect.reservation;
 
-import com.venueconnect.event.EventSeat;
-import com.venueconnect.event.EventSeatRepository;
+import com.venueconnect.inventory.BestAvailableSeatFinder;
+import com.venueconnect.inventory.GeneralAdmissionInventory;
+import com.venueconnect.inventory.SeatInventoryService;
+import com.venueconnect.inventory.SeatTransitionRetrier;
 import com.venueconnect.user.User;
-import com.venueconnect.venue.SeatStatus;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ReservationService {
 
-    private final EventSeatRepository eventSeatRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatTransitionRetrier seatTransitionRetrier;
+    private final BestAvailableSeatFinder bestAvailableSeatFinder;
+    private final GeneralAdmissionInventory generalAdmissionInventory;
+    private final ReservationDeadlineQueue reservationDeadlineQueue;
+    private final SeatCapService seatCapService;
 
     public static final long RESERVATION_TTL_MINUTES = 15;
     private final String REDIS_KEY_PREFIX = "Reservation:";
+    private static final int BEST_AVAILABLE_ATTEMPTS = 3;
 
-    @Transactional // This method writes to the database, so it's transactional
+    // Not @Transactional: the seat claim runs in its own (retried) transaction before the Redis timer is written
     public ReservationResponse createReservation(ReservationRequest request) {
 
         // 1. Get the currently authenticated user
@@ -37,23 +43,43 @@ public class ReservationService {
         // 2. Generate the unique reservation ID *first*
         String reservationId = UUID.randomUUID().toString();
 
-        // 3. Validate and "tag" the requested seats in Postgres
-        for (Long eventSeatId : request.getEventSeatIds()) {
-            EventSeat eventSeat = eventSeatRepository.findById(eventSeatId)
-                    .orElseThrow(() -> new EntityNotFoundException("EventSeat not found: " + eventSeatId));
-
-            if (!eventSeat.getEvent().getId().equals(request.getEventId())) {
-                throw new IllegalArgumentException("Seat " + eventSeatId + " does not belong to event " + request.getEventId());
-            }
+        // 3. Count the tickets against the user's cap for this event (Redis only, rejected before any claim)
+        List<Long> requestedSeatIds = request.getEventSeatIds() != null
+                ? request.getEventSeatIds().stream().distinct().collect(Collectors.toList())
+                : List.of();
+        if (requestedSeatIds.isEmpty()) {
+            validateQuantityRequest(request);
+        }
+        int quantity = requestedSeatIds.isEmpty() ? request.getQuantity() : requestedSeatIds.size();
+        seatCapService.acquire(request.getEventId(), currentUser.getId(), quantity, reservationId);
+
+        try {
+            return reserve(request, currentUser, reservationId, requestedSeatIds);
+        } catch (RuntimeException e) {
+            // Nothing is held, so the tickets no longer count against the cap
+            seatCapService.release(reservationId);
+            throw e;
+        }
+    }
 
-            if (eventSeat.getStatus() != SeatStatus.AVAILABLE) {
-                throw new IllegalStateException("Seat " + eventSeatId + " is not available.");
+    private ReservationResponse reserve(ReservationRequest request, User currentUser, String reservationId,
+                                        List<Long> requestedSeatIds) {
+        // 4. Claim the seats in Postgres with one conditional update (all-or-nothing),
+        //    or take general-admission tickets from the ticket type's stock counter
+        List<Long> eventSeatIds;
+        boolean generalAdmission = false;
+        if (!requestedSeatIds.isEmpty()) {
+            eventSeatIds = requestedSeatIds;
+            seatTransitionRetrier.run("claim",
+                    () -> seatInventoryService.claim(request.getEventId(), eventSeatIds, reservationId));
+        } else {
+            generalAdmission = generalAdmissionInventory.isGeneralAdmission(request.getTicketTypeId());
+            if (generalAdmission) {
+                generalAdmissionInventory.reserve(request.getEventId(), request.getTicketTypeId(), request.getQuantity(), reservationId);
+                eventSeatIds = List.of();
+            } else {
+                eventSeatIds = claimBestAvailable(request, reservationId);
             }
-
-            // 4. THIS IS THE NEW LOGIC
-            eventSeat.setStatus(SeatStatus.RESERVED);
-            eventSeat.setReservationId(reservationId); // Tag the seat with the reservationId
-            eventSeatRepository.save(eventSeat);
         }
 
         // 5. Create the "timer" object for Redis
@@ -61,22 +87,79 @@ public class ReservationService {
                 .id(reservationId)
                 .userId(currentUser.getId())
                 .eventId(request.getEventId())
+                .ticketTypeId(generalAdmission ? request.getTicketTypeId() : null)
+                .quantity(generalAdmission ? request.getQuantity() : null)
                 .status("PENDING")
                 .createdAt(Instant.now())
                 .build(); // Note: We no longer add eventSeatIds here
 
-        // 6. Save to Redis with a 15-minute TTL
-        String redisKey = REDIS_KEY_PREFIX + reservationId;
-        redisTemplate.opsForValue().set(redisKey, reservation, RESERVATION_TTL_MINUTES, TimeUnit.MINUTES);
-
+        // 6. Register the deadline with the expiry sweeper, then save to Redis with a 15-minute TTL
         Instant expiresAt = Instant.now().plus(RESERVATION_TTL_MINUTES, TimeUnit.MINUTES.toChronoUnit());
+        boolean scheduled = false;
+        try {
+            reservationDeadlineQueue.schedule(reservationId, expiresAt);
+            scheduled = true;
+
+            String redisKey = REDIS_KEY_PREFIX + reservationId;
+            redisTemplate.opsForValue().set(redisKey, reservation, RESERVATION_TTL_MINUTES, TimeUnit.MINUTES);
+        } catch (RuntimeException e) {
+            releaseClaim(reservationId, generalAdmission, scheduled);
+            throw e;
+        }
 
         return ReservationResponse.builder()
                 .reservationId(reservationId)
                 .eventId(request.getEventId())
-                .eventSeatIds(request.getEventSeatIds())
+                .eventSeatIds(eventSeatIds)
+                .ticketTypeId(reservation.getTicketTypeId())
+                .quantity(reservation.getQuantity())
                 .status(reservation.getStatus())
                 .expiresAt(expiresAt)
                 .build();
     }
-}
\ No newline at end of file
+
+    // Picks the best block of adjacent seats and claims it; if another request wins part of it first, search again
+    private List<Long> claimBestAvailable(ReservationRequest request, String reservationId) {
+        IllegalStateException lastConflict = null;
+        for (int attempt = 0; attempt < BEST_AVAILABLE_ATTEMPTS; attempt++) {
+            List<Long> block = bestAvailableSeatFinder.findBestBlock(
+                    request.getEventId(), request.getTicketTypeId(), request.getQuantity());
+            if (block.isEmpty()) {
+                throw new IllegalStateException("No " + request.getQuantity() + " adjacent seats are available for ticket type "
+                        + request.getTicketTypeId() + ".");
+            }
+            try {
+                seatTransitionRetrier.run("claim",
+                        () -> seatInventoryService.claim(request.getEventId(), block, reservationId));
+                return block;
+            } catch (IllegalStateException e) {
+                lastConflict = e;
+            }
+        }
+        throw lastConflict;
+    }
+
+    // The claim has committed but the reservation could not be stored: give its seats or tickets back now, unless the
+    // expiry sweeper already owns it through its deadline (the caller takes the tickets off the user's cap)
+    private void releaseClaim(String reservationId, boolean generalAdmission, boolean scheduled) {
+        try {
+            if (scheduled && !reservationDeadlineQueue.remove(reservationId)) {
+                return;
+            }
+            if (generalAdmission) {
+                generalAdmissionInventory.restoreHold(reservationId);
+            } else {
+                seatTransitionRetrier.execute("release", () -> seatInventoryService.releaseReservation(reservationId));
+            }
+        } catch (RuntimeException e) {
+            // Redis is unreachable: a deadline that made it into the queue is still released by the sweeper
+            log.error("Could not release the claim of unsaved reservation {}: {}", reservationId, e.getMessage(), e);
+        }
+    }
+
+    private void validateQuantityRequest(ReservationRequest request) {
+        if (request.getTicketTypeId() == null || request.getQuantity() == null || request.getQuantity() < 1) {
+            throw new IllegalArgumentException("Request either eventSeatIds or a ticketTypeId with a positive quantity.");
+        }
+    }
+}
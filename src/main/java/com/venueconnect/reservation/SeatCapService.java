@@ -0,0 +1,138 @@
+package com.venueconnect.reservation;
+
+import com.venueconnect.inventory.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Limits how many tickets one user can hold or buy per event, without touching Postgres.
+ * <p>
+ * {@code SeatCap:{eventId}:{userId}} counts the user's tickets in live reservations and paid orders. A reservation
+ * adds to it atomically (rejecting it when it would pass the cap) and leaves a {@code SeatCapHold:{reservationId}}
+ * hash behind. Expiry takes the held tickets off the counter again; payment just drops the hold, so paid tickets
+ * keep counting until their order is cancelled. The cap is {@code application.reservations.seat-cap.default}
+ * (0 = unlimited) unless an admin set one for the event in {@code SeatCap:{eventId}:limit}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatCapService {
+
+    private static final String COUNTER_KEY_PREFIX = "SeatCap:";
+    private static final String LIMIT_KEY_SUFFIX = ":limit";
+    private static final String HOLD_KEY_PREFIX = "SeatCapHold:";
+    // The hold outlives the reservation timer so the expiry cleanup can still find it
+    private static final Duration HOLD_TTL = Duration.ofMinutes(ReservationService.RESERVATION_TTL_MINUTES + 60);
+
+    private static final RedisScript<Long> ACQUIRE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/seat-cap-acquire.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/seat-cap-release.lua"), Long.class);
+    private static final RedisScript<Long> DECREMENT_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/seat-cap-decrement.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 0 disables the cap (tickets are still counted, so it can be switched on later)
+    @Value("${application.reservations.seat-cap.default:0}")
+    private int defaultCap;
+
+    // Counters are not rebuilt from Postgres, so they live well past the end of any on-sale
+    @Value("${application.reservations.seat-cap.counter-ttl-days:90}")
+    private long counterTtlDays;
+
+    /**
+     * Counts {@code quantity} tickets of a new reservation against the user's cap for the event.
+     *
+     * @throws ResponseStatusException 409 when the user would hold or own more tickets than the cap allows
+     */
+    public void acquire(Long eventId, Long userId, int quantity, String reservationId) {
+        Long count = stringRedisTemplate.execute(ACQUIRE_SCRIPT,
+                List.of(counterKey(eventId, userId), COUNTER_KEY_PREFIX + eventId + LIMIT_KEY_SUFFIX, HOLD_KEY_PREFIX + reservationId),
+                String.valueOf(quantity), String.valueOf(defaultCap),
+                String.valueOf(HOLD_TTL.toSeconds()), String.valueOf(Duration.ofDays(counterTtlDays).toSeconds()));
+        if (count != null && count < 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "You can hold or buy at most " + (-count) + " tickets for event " + eventId + ".");
+        }
+    }
+
+    /**
+     * Takes the tickets of a released (expired or failed) reservation off the user's counter.
+     *
+     * @return the number of tickets the reservation held, or 0 when it was already released or paid
+     */
+    public long release(String reservationId) {
+        return releaseHold(reservationId, true);
+    }
+
+    /**
+     * Keeps a paid reservation's tickets on the counter once the surrounding transaction has committed:
+     * they are no longer held but bought, so expiry must not take them off.
+     */
+    public void settleAfterCommit(String reservationId) {
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                try {
+                    releaseHold(reservationId, false);
+                } catch (Exception e) {
+                    log.error("Could not settle the seat cap hold of reservation {}: {}", reservationId, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Takes cancelled tickets off the user's counter once the cancellation has committed.
+     */
+    public void decrementAfterCommit(Long eventId, Long userId, long quantity) {
+        TransactionCallbacks.afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                try {
+                    stringRedisTemplate.execute(DECREMENT_SCRIPT, List.of(counterKey(eventId, userId)), String.valueOf(quantity));
+                } catch (Exception e) {
+                    log.error("Could not return {} tickets to the seat cap of user {} for event {}: {}",
+                            quantity, userId, eventId, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Overrides the default cap for one event; null goes back to the default, 0 means unlimited.
+     */
+    public void setLimit(Long eventId, Integer limit) {
+        String key = COUNTER_KEY_PREFIX + eventId + LIMIT_KEY_SUFFIX;
+        if (limit == null) {
+            stringRedisTemplate.delete(key);
+        } else {
+            stringRedisTemplate.opsForValue().set(key, limit.toString());
+        }
+    }
+
+    private long releaseHold(String reservationId, boolean decrement) {
+        // The script may only touch declared keys, so the hold's counter is looked up first
+        Object counterKey = stringRedisTemplate.opsForHash().get(HOLD_KEY_PREFIX + reservationId, "counter");
+        if (counterKey == null) {
+            return 0;
+        }
+        Long quantity = stringRedisTemplate.execute(RELEASE_SCRIPT,
+                List.of(HOLD_KEY_PREFIX + reservationId, counterKey.toString()), decrement ? "1" : "0");
+        return quantity == null ? 0 : quantity;
+    }
+
+    private String counterKey(Long eventId, Long userId) {
+        return COUNTER_KEY_PREFIX + eventId + ":" + userId;
+    }
+}
@@ -1,4 +1,5 @@
 package com.venueconnect.security;
+import com.venueconnect.user.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -17,6 +18,9 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
+    // The user's id, so filters that run before the user is loaded (e.g. rate limiting) can tell callers apart
+    public static final String USER_ID_CLAIM = "uid";
+
     // You must add this key to your application.properties
     // It should be a strong, base64-encoded 256-bit key
     @Value("${application.security.jwt.secret-key}")
@@ -30,13 +34,22 @@ public class JwtService {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // Null for tokens issued before the claim existed
+    public Long extractUserId(String token) {
+        return extractClaim(token, claims -> claims.get(USER_ID_CLAIM, Long.class));
+    }
+
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+        }
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(
@@ -0,0 +1,127 @@
+package com.venueconnect.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token bucket rate limiting for the booking endpoints, shared by all instances through Redis.
+ * <p>
+ * Runs before {@link JwtAuthenticationFilter}, so a rejected request never loads its user from the database.
+ * Every matching request is checked against a bucket for its client IP and, when it carries a valid token,
+ * one for its user id (the {@code uid} claim). Both are evaluated in one Lua script: one Redis round trip,
+ * and a request only takes a token when every bucket has one. If Redis is unreachable, requests are let through.
+ * <p>
+ * Behind a proxy, set {@code server.forward-headers-strategy} so the client IP is the caller's, not the proxy's.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String KEY_PREFIX = "RateLimit:";
+
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/rate-limit-token-bucket.lua"), Long.class);
+
+    private final RateLimitProperties properties;
+    private final JwtService jwtService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        // 1. Only routes with a configured limit are checked
+        RateLimitProperties.Route route = properties.isEnabled() ? findRoute(request) : null;
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // 2. One bucket for the client IP, one for the user if the token names one
+        List<String> keys = new ArrayList<>(2);
+        List<String> args = new ArrayList<>(4);
+        keys.add(KEY_PREFIX + route.getName() + ":ip:" + request.getRemoteAddr());
+        args.add(Integer.toString(route.getIpCapacity()));
+        args.add(Double.toString(route.getIpRefillPerSecond()));
+        String user = userKey(request);
+        if (user != null) {
+            keys.add(KEY_PREFIX + route.getName() + ":user:" + user);
+            args.add(Integer.toString(route.getUserCapacity()));
+            args.add(Double.toString(route.getUserRefillPerSecond()));
+        }
+
+        // 3. Take a token from every bucket, or reject
+        Long waitMillis;
+        try {
+            waitMillis = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, keys, args.toArray());
+        } catch (Exception e) {
+            log.warn("Rate limit check for route {} failed, letting the request through: {}", route.getName(), e.getMessage());
+            waitMillis = 0L;
+        }
+
+        if (waitMillis != null && waitMillis > 0) {
+            meterRegistry.counter("venueconnect.ratelimit.rejected", "route", route.getName()).increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((waitMillis + 999) / 1000));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitProperties.Route findRoute(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            if ((route.getMethod() == null || route.getMethod().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(route.getPattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // The user id from the token (or its subject for older tokens); null when the request has no valid token
+    private String userKey(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        String jwt = authHeader.substring(7);
+        try {
+            Long userId = jwtService.extractUserId(jwt);
+            return userId != null ? userId.toString() : jwtService.extractUsername(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Invalid or expired: the IP bucket still applies, and authentication rejects the request later
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.venueconnect.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token bucket limits per route, bound from {@code application.rate-limit.*}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "application.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String name;
+        private String method;  // null matches every method
+        private String pattern; // Ant-style path pattern, e.g. /api/v1/reservations/**
+        // Per authenticated user (uid claim of the JWT)
+        private int userCapacity = 10;
+        private double userRefillPerSecond = 1;
+        // Per client IP, authenticated or not
+        private int ipCapacity = 50;
+        private double ipRefillPerSecond = 5;
+    }
+}
@@ -1,5 +1,6 @@
 package com.venueconnect.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,6 +18,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfiguration {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final AuthenticationProvider authenticationProvider;
 
     @Bean
@@ -24,6 +26,9 @@ public class SecurityConfiguration {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (long-polled order status) finish a request that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                        .permitAll()
                         // --- START OF UPDATED SECTION ---
                         .requestMatchers(
                                 "/api/v1/auth/**",
@@ -51,6 +56,12 @@ public class SecurityConfiguration {
                         .requestMatchers("/api/v1/admin/**")
                         .hasAnyRole("ADMIN", "ORGANIZER")
 
+                        // Actuator: health is public, metrics (e.g. seat contention) are admin-only
+                        .requestMatchers("/actuator/health")
+                        .permitAll()
+                        .requestMatchers("/actuator/**")
+                        .hasRole("ADMIN")
+
                         // All other endpoints require authentication
                         .anyRequest()
                         .authenticated()
@@ -59,7 +70,9 @@ public class SecurityConfiguration {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authenticationProvider(authenticationProvider)
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Rate limit before the JWT filter loads the user from the database
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
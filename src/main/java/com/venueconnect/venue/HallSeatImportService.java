@@ -0,0 +1,309 @@
+package com.venueconnect.venue;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports the seat layout of a hall from a CSV ({@code row,number,category}) or NDJSON
+ * ({@code {"row":"A","number":"1","category":"PREMIUM"}}) stream.
+ * <p>
+ * The body is read line by line and written in batches: each batch is one INSERT ... SELECT FROM unnest(...)
+ * that skips seats the hall already has ({@code uq_hall_seat}). Only the current batch and the first rejects are
+ * held in memory, so the size of the layout does not matter; lines are cut off at
+ * {@code application.hall-import.max-line-length} and rejected, so neither does one malformed line.
+ * The whole import is one transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HallSeatImportService {
+
+    // Column sizes of the seats table
+    private static final int MAX_ROW_LENGTH = 50;
+    private static final int MAX_NUMBER_LENGTH = 50;
+    private static final int MAX_CATEGORY_LENGTH = 100;
+
+    // Returns the positions (1-based, within the batch) of the seats that were not inserted
+    private static final String INSERT_SQL = "WITH input AS (" +
+            "    SELECT * FROM unnest(?::text[], ?::text[], ?::text[]) WITH ORDINALITY AS t(seat_row, seat_number, seat_category, idx)), " +
+            "inserted AS (" +
+            "    INSERT INTO seats (hall_id, seat_row, seat_number, seat_category) " +
+            "    SELECT ?, seat_row, seat_number, seat_category FROM input ORDER BY idx " +
+            "    ON CONFLICT ON CONSTRAINT uq_hall_seat DO NOTHING " +
+            "    RETURNING seat_row, seat_number) " +
+            "SELECT i.idx FROM input i " +
+            "WHERE NOT EXISTS (SELECT 1 FROM inserted s WHERE s.seat_row = i.seat_row AND s.seat_number = i.seat_number)";
+
+    private final HallRepository hallRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${application.hall-import.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${application.hall-import.max-reported-rejects:100}")
+    private int maxReportedRejects;
+
+    @Value("${application.hall-import.max-line-length:1024}")
+    private int maxLineLength;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    // One seat of the layout, as read from the body
+    private record SeatLine(long line, String seatRow, String seatNumber, String seatCategory) {
+    }
+
+    // The NDJSON shape of a seat
+    private record JsonSeat(@JsonAlias("seatRow") String row,
+                            @JsonAlias("seatNumber") String number,
+                            @JsonAlias("seatCategory") String category) {
+    }
+
+    @Transactional
+    public SeatImportResult importSeats(Long hallId, Format format, InputStream body) {
+        Hall hall = hallRepository.findById(hallId)
+                .orElseThrow(() -> new EntityNotFoundException("Hall not found: " + hallId));
+
+        ImportState state = new ImportState(hallId);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            LineReader lines = new LineReader(reader, maxLineLength);
+            String text;
+            long lineNumber = 0;
+            while ((text = lines.next()) != null) {
+                lineNumber++;
+                if (lines.tooLong()) {
+                    state.reject(lineNumber, null, null, "Line longer than " + maxLineLength + " characters");
+                    continue;
+                }
+                if (text.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(text))) {
+                    continue;
+                }
+                SeatLine seat = parse(format, lineNumber, text, state);
+                if (seat != null) {
+                    state.add(seat);
+                }
+            }
+            state.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the seat layout of hall " + hallId, e);
+        }
+
+        // The hall's capacity is its number of seats
+        Integer capacity = jdbcTemplate.queryForObject("SELECT count(*) FROM seats WHERE hall_id = ?", Integer.class, hallId);
+        hall.setCapacity(capacity);
+
+        log.info("Imported {} seats into hall {} ({} rejected, capacity now {}).", state.imported, hallId, state.rejected, capacity);
+        return SeatImportResult.builder()
+                .hallId(hallId)
+                .imported(state.imported)
+                .rejected(state.rejected)
+                .capacity(capacity)
+                .rejects(state.rejects)
+                .build();
+    }
+
+    private SeatLine parse(Format format, long lineNumber, String text, ImportState state) {
+        String seatRow;
+        String seatNumber;
+        String seatCategory;
+        if (format == Format.NDJSON) {
+            try {
+                JsonSeat seat = objectMapper.readValue(text, JsonSeat.class);
+                seatRow = seat.row();
+                seatNumber = seat.number();
+                seatCategory = seat.category();
+            } catch (JsonProcessingException e) {
+                state.reject(lineNumber, null, null, "Malformed JSON: " + e.getOriginalMessage());
+                return null;
+            }
+        } else {
+            List<String> fields = splitCsv(text);
+            seatRow = fields.size() > 0 ? fields.get(0) : null;
+            seatNumber = fields.size() > 1 ? fields.get(1) : null;
+            seatCategory = fields.size() > 2 ? fields.get(2) : null;
+        }
+
+        seatRow = trimToNull(seatRow);
+        seatNumber = trimToNull(seatNumber);
+        seatCategory = trimToNull(seatCategory);
+        if (seatRow == null || seatNumber == null) {
+            state.reject(lineNumber, seatRow, seatNumber, "Row and number are required");
+            return null;
+        }
+        if (seatRow.length() > MAX_ROW_LENGTH || seatNumber.length() > MAX_NUMBER_LENGTH
+                || (seatCategory != null && seatCategory.length() > MAX_CATEGORY_LENGTH)) {
+            state.reject(lineNumber, seatRow, seatNumber, "Value too long");
+            return null;
+        }
+        return new SeatLine(lineNumber, seatRow, seatNumber, seatCategory);
+    }
+
+    private boolean isCsvHeader(String text) {
+        List<String> fields = splitCsv(text);
+        return !fields.isEmpty() && fields.get(0).trim().equalsIgnoreCase("row");
+    }
+
+    // Splits one CSV line, honouring double-quoted fields ("" is an escaped quote)
+    private List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // Reads a line at a time like BufferedReader.readLine, but never holds more than maxLength characters of one
+    private static class LineReader {
+        private final Reader reader;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        private LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        // Returns the next line without its terminator, or null at the end of the body
+        private String next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            while (c != -1 && c != '\n') {
+                if (c != '\r') {
+                    if (line.length() < maxLength) {
+                        line.append((char) c);
+                    } else {
+                        // The rest of the line is skipped, not buffered
+                        tooLong = true;
+                    }
+                }
+                c = reader.read();
+            }
+            return line.toString();
+        }
+
+        // Whether the line last returned was cut off at maxLength
+        private boolean tooLong() {
+            return tooLong;
+        }
+    }
+
+    // Counters, the first rejects and the batch being filled
+    private class ImportState {
+        private final Long hallId;
+        private final List<SeatLine> batch = new ArrayList<>();
+        private final Set<String> batchKeys = new HashSet<>();
+        private final List<SeatImportResult.Reject> rejects = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        private ImportState(Long hallId) {
+            this.hallId = hallId;
+        }
+
+        private void add(SeatLine seat) {
+            // A seat listed twice within one batch would be silently merged by the insert, so catch it here
+            if (!batchKeys.add(seat.seatRow() + '\u0000' + seat.seatNumber())) {
+                reject(seat.line(), seat.seatRow(), seat.seatNumber(), "Duplicate seat in layout");
+                return;
+            }
+            batch.add(seat);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            String[] rows = new String[batch.size()];
+            String[] numbers = new String[batch.size()];
+            String[] categories = new String[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                rows[i] = batch.get(i).seatRow();
+                numbers[i] = batch.get(i).seatNumber();
+                categories[i] = batch.get(i).seatCategory();
+            }
+
+            List<Integer> notInserted = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+                statement.setArray(1, connection.createArrayOf("text", rows));
+                statement.setArray(2, connection.createArrayOf("text", numbers));
+                statement.setArray(3, connection.createArrayOf("text", categories));
+                statement.setLong(4, hallId);
+                return statement;
+            }, (rs, rowNum) -> rs.getInt("idx"));
+
+            for (Integer idx : notInserted) {
+                SeatLine seat = batch.get(idx - 1);
+                reject(seat.line(), seat.seatRow(), seat.seatNumber(), "Seat already exists in hall (uq_hall_seat)");
+            }
+            imported += batch.size() - notInserted.size();
+            batch.clear();
+            batchKeys.clear();
+        }
+
+        private void reject(long line, String seatRow, String seatNumber, String reason) {
+            rejected++;
+            if (rejects.size() < maxReportedRejects) {
+                rejects.add(new SeatImportResult.Reject(line, seatRow, seatNumber, reason));
+            }
+        }
+    }
+}
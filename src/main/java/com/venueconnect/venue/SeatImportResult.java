@@ -0,0 +1,30 @@
+package com.venueconnect.venue;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatImportResult {
+    private Long hallId;
+    private long imported;        // Seats added to the hall
+    private long rejected;        // Lines that were not imported (malformed, or the seat already exists)
+    private Integer capacity;     // Hall capacity after the import
+    private List<Reject> rejects; // The first rejected lines, for fixing the layout
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Reject {
+        private long line;
+        private String seatRow;
+        private String seatNumber;
+        private String reason;
+    }
+}
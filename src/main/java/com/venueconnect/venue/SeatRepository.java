@@ -3,4 +3,6 @@ package com.venueconnect.venue;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface SeatRepository extends JpaRepository<Seat, Long> {
+
+    long countByHallId(Long hallId);
 }
\ No newline at end of file
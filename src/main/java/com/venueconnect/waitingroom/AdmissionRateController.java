@@ -0,0 +1,122 @@
+package com.venueconnect.waitingroom;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adapts the waiting-room admission rate to the observed reservation latency (AIMD):
+ * while reservations stay under the latency target the rate grows by a fixed step each tick,
+ * and as soon as they exceed it the rate is cut by a factor. This keeps the booking path inside its SLO
+ * instead of letting a queue build up in Tomcat and the connection pool.
+ * <p>
+ * Every instance samples latency locally and adds its samples to a shared window in Redis once per tick
+ * ({@code WaitingRoom:latency}); the instance that admits the tick closes that window and steps the shared rate
+ * ({@code WaitingRoom:rate}), so all instances drive one controller whichever of them wins the tick.
+ */
+@Component
+@Slf4j
+public class AdmissionRateController {
+
+    private static final String WINDOW_KEY = "WaitingRoom:latency";
+    private static final String RATE_KEY = "WaitingRoom:rate";
+    private static final Duration RATE_IDLE_TTL = Duration.ofMinutes(10);
+
+    private static final RedisScript<Long> FLUSH_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/admission-latency-flush.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> NEXT_RATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/admission-rate-next.lua"), List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Timer reservationTimer;
+    private final LongAdder windowNanos = new LongAdder();
+    private final LongAdder windowCount = new LongAdder();
+
+    private final double initialRate;
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+    private final long targetLatencyNanos;
+
+    // Last rate this instance admitted at (for the gauge); the shared rate lives in Redis
+    private volatile double ratePerSecond;
+
+    public AdmissionRateController(MeterRegistry meterRegistry,
+                                   StringRedisTemplate stringRedisTemplate,
+                                   @Value("${application.waiting-room.initial-rate:50}") double initialRate,
+                                   @Value("${application.waiting-room.min-rate:5}") double minRate,
+                                   @Value("${application.waiting-room.max-rate:500}") double maxRate,
+                                   @Value("${application.waiting-room.additive-increase:5}") double additiveIncrease,
+                                   @Value("${application.waiting-room.decrease-factor:0.5}") double decreaseFactor,
+                                   @Value("${application.waiting-room.target-latency-ms:500}") long targetLatencyMs) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.reservationTimer = meterRegistry.timer("venueconnect.reservations.latency");
+        this.initialRate = initialRate;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.targetLatencyNanos = Duration.ofMillis(targetLatencyMs).toNanos();
+        this.ratePerSecond = initialRate;
+        meterRegistry.gauge("venueconnect.waitingroom.admission.rate", this, controller -> controller.ratePerSecond);
+    }
+
+    public void recordReservationLatency(long nanos) {
+        reservationTimer.record(Duration.ofNanos(nanos));
+        windowNanos.add(nanos);
+        windowCount.increment();
+    }
+
+    /**
+     * Adds the latency sampled on this instance since the last call to the shared window. Called by every instance
+     * each tick, whether or not it admits that tick.
+     */
+    public void flushWindow() {
+        long count = windowCount.sumThenReset();
+        long nanos = windowNanos.sumThenReset();
+        if (count == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(FLUSH_SCRIPT, List.of(WINDOW_KEY), Long.toString(nanos), Long.toString(count));
+        } catch (Exception e) {
+            // Keep the samples for the next tick
+            windowNanos.add(nanos);
+            windowCount.add(count);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the shared sampling window and returns the admission rate (users per second) for the next tick.
+     */
+    public double nextRate() {
+        List<?> result = stringRedisTemplate.execute(NEXT_RATE_SCRIPT, List.of(WINDOW_KEY, RATE_KEY),
+                Double.toString(initialRate), Double.toString(minRate), Double.toString(maxRate),
+                Double.toString(additiveIncrease), Double.toString(decreaseFactor),
+                Long.toString(targetLatencyNanos), Long.toString(RATE_IDLE_TTL.toSeconds()));
+        if (result == null || result.size() < 2) {
+            return ratePerSecond;
+        }
+
+        double rate = Double.parseDouble(result.get(0).toString());
+        long meanNanos = Long.parseLong(result.get(1).toString());
+        if (meanNanos > targetLatencyNanos) {
+            log.info("Reservation latency {} ms above target, admission rate cut to {}/s",
+                    Duration.ofNanos(meanNanos).toMillis(), Math.round(rate));
+        }
+        ratePerSecond = rate;
+        return rate;
+    }
+}
@@ -0,0 +1,61 @@
+package com.venueconnect.waitingroom;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Admits queued users once per tick at the rate chosen by {@link AdmissionRateController}.
+ * The tick lock is left to expire (never deleted) so that across all instances only one batch is admitted per tick.
+ * Every instance still runs the tick to hand its latency samples to the shared controller.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WaitingRoomAdmitter {
+
+    private static final String TICK_LOCK_KEY = "WaitingRoom:admitter";
+
+    private final WaitingRoomService waitingRoomService;
+    private final AdmissionRateController admissionRateController;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${application.waiting-room.tick-ms:1000}")
+    private long tickMs;
+
+    @Scheduled(fixedDelayString = "${application.waiting-room.tick-ms:1000}")
+    public void admitQueuedUsers() {
+        try {
+            // Every instance contributes its latency samples, whichever one admits this tick
+            admissionRateController.flushWindow();
+
+            Set<Long> eventIds = waitingRoomService.activeEventIds();
+            if (eventIds.isEmpty()) {
+                return;
+            }
+
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(TICK_LOCK_KEY, "1", Duration.ofMillis(tickMs));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+
+            // One admission budget for the shared booking path, split evenly between the open rooms
+            double budget = admissionRateController.nextRate() * tickMs / 1000.0;
+            long perEvent = Math.max(1, Math.round(budget / eventIds.size()));
+            for (Long eventId : eventIds) {
+                int admitted = waitingRoomService.admit(eventId, perEvent);
+                if (admitted > 0) {
+                    log.debug("Admitted {} users from the waiting room of event {}", admitted, eventId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Waiting room admission tick failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.venueconnect.waitingroom;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/waiting-room")
+@RequiredArgsConstructor
+public class WaitingRoomController {
+
+    private final WaitingRoomService waitingRoomService;
+
+    @PostMapping("/{eventId}/join")
+    public ResponseEntity<WaitingRoomStatus> join(@PathVariable Long eventId) {
+        return ResponseEntity.ok(waitingRoomService.join(eventId));
+    }
+
+    // Clients poll this until an admission token is returned
+    @GetMapping("/{eventId}")
+    public ResponseEntity<WaitingRoomStatus> status(@PathVariable Long eventId) {
+        return ResponseEntity.ok(waitingRoomService.status(eventId));
+    }
+}
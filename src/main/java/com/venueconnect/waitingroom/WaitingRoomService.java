@@ -0,0 +1,186 @@
+package com.venueconnect.waitingroom;
+
+import com.venueconnect.user.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Virtual waiting room in front of the reservation endpoint for high-demand on-sales.
+ * <p>
+ * While a room is open for an event, users queue in the {@code WaitingRoom:{eventId}:queue} sorted set
+ * (score = join time). The {@link WaitingRoomAdmitter} pops them in order and issues short-lived admission
+ * tokens ({@code Admission:{eventId}:{userId}}); only a request carrying the user's token may reserve seats, and it
+ * uses the token up.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitingRoomService {
+
+    private static final String ACTIVE_EVENTS_KEY = "WaitingRoom:events";
+    private static final String QUEUE_KEY_PREFIX = "WaitingRoom:";
+    private static final String QUEUE_KEY_SUFFIX = ":queue";
+    private static final String ADMISSION_KEY_PREFIX = "Admission:";
+
+    private static final RedisScript<Long> CONSUME_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/admission-consume.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${application.waiting-room.admission-ttl-seconds:300}")
+    private long admissionTtlSeconds;
+
+    public void open(Long eventId) {
+        stringRedisTemplate.opsForSet().add(ACTIVE_EVENTS_KEY, eventId.toString());
+        log.info("Waiting room opened for event {}", eventId);
+    }
+
+    public void close(Long eventId) {
+        // Queued users are let through directly; tokens already issued simply expire
+        stringRedisTemplate.opsForSet().remove(ACTIVE_EVENTS_KEY, eventId.toString());
+        stringRedisTemplate.delete(queueKey(eventId));
+        log.info("Waiting room closed for event {}", eventId);
+    }
+
+    public boolean isActive(Long eventId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(ACTIVE_EVENTS_KEY, eventId.toString()));
+    }
+
+    public Set<Long> activeEventIds() {
+        Set<String> members = stringRedisTemplate.opsForSet().members(ACTIVE_EVENTS_KEY);
+        if (members == null) {
+            return Set.of();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toSet());
+    }
+
+    public WaitingRoomStatus join(Long eventId) {
+        Long userId = currentUserId();
+        if (isActive(eventId) && findToken(eventId, userId) == null) {
+            // NX keeps the original place in line when a client joins again
+            stringRedisTemplate.opsForZSet().addIfAbsent(queueKey(eventId), userId.toString(), System.currentTimeMillis());
+        }
+        return status(eventId, userId);
+    }
+
+    public WaitingRoomStatus status(Long eventId) {
+        return status(eventId, currentUserId());
+    }
+
+    /**
+     * Admits the current user to reserve: always when the event has no open waiting room, otherwise by using up the
+     * user's admission token, so one admission buys one reservation. Hand the result to {@link #restoreAdmission}
+     * if the reservation fails, so the user keeps their turn.
+     *
+     * @return the consumed admission, or null when no waiting room is open
+     * @throws ResponseStatusException 403 when the room is open and the token is missing, expired or already used
+     */
+    public Admission consumeAdmission(Long eventId, String admissionToken) {
+        if (!isActive(eventId)) {
+            return null;
+        }
+        String key = admissionKey(eventId, currentUserId().toString());
+        Long remainingMs = admissionToken == null ? null
+                : stringRedisTemplate.execute(CONSUME_SCRIPT, List.of(key), admissionToken);
+        if (remainingMs == null || remainingMs < 0) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "The waiting room for event " + eventId + " is open. Join it and reserve with your admission token.");
+        }
+        return new Admission(key, admissionToken, Duration.ofMillis(remainingMs));
+    }
+
+    /**
+     * Gives a consumed admission back, with the time it had left, after the reservation it was used for failed.
+     */
+    public void restoreAdmission(Admission admission) {
+        if (admission == null) {
+            return;
+        }
+        try {
+            // NX: a token issued meanwhile is left alone
+            stringRedisTemplate.opsForValue().setIfAbsent(admission.key(), admission.token(), admission.remaining());
+        } catch (Exception e) {
+            log.error("Could not restore admission {}: {}", admission.key(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lets the {@code count} longest-waiting users of an event through.
+     *
+     * @return the number of users admitted
+     */
+    public int admit(Long eventId, long count) {
+        Set<ZSetOperations.TypedTuple<String>> admitted = stringRedisTemplate.opsForZSet().popMin(queueKey(eventId), count);
+        if (admitted == null || admitted.isEmpty()) {
+            return 0;
+        }
+        Duration ttl = Duration.ofSeconds(admissionTtlSeconds);
+        for (ZSetOperations.TypedTuple<String> entry : admitted) {
+            stringRedisTemplate.opsForValue().set(admissionKey(eventId, entry.getValue()), UUID.randomUUID().toString(), ttl);
+        }
+        return admitted.size();
+    }
+
+    /**
+     * An admission token taken by a reservation, with the time it had left.
+     */
+    public record Admission(String key, String token, Duration remaining) {
+    }
+
+    private WaitingRoomStatus status(Long eventId, Long userId) {
+        if (!isActive(eventId)) {
+            return WaitingRoomStatus.builder().eventId(eventId).active(false).build();
+        }
+
+        String token = findToken(eventId, userId);
+        if (token != null) {
+            Long ttl = stringRedisTemplate.getExpire(admissionKey(eventId, userId.toString()));
+            return WaitingRoomStatus.builder()
+                    .eventId(eventId)
+                    .active(true)
+                    .admissionToken(token)
+                    .admissionExpiresAt(ttl != null && ttl > 0 ? Instant.now().plusSeconds(ttl) : null)
+                    .build();
+        }
+
+        Long rank = stringRedisTemplate.opsForZSet().rank(queueKey(eventId), userId.toString());
+        return WaitingRoomStatus.builder()
+                .eventId(eventId)
+                .active(true)
+                .position(rank != null ? rank + 1 : null) // null: not in line, join first
+                .build();
+    }
+
+    private String findToken(Long eventId, Long userId) {
+        return stringRedisTemplate.opsForValue().get(admissionKey(eventId, userId.toString()));
+    }
+
+    private Long currentUserId() {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return currentUser.getId();
+    }
+
+    private String queueKey(Long eventId) {
+        return QUEUE_KEY_PREFIX + eventId + QUEUE_KEY_SUFFIX;
+    }
+
+    private String admissionKey(Long eventId, String userId) {
+        return ADMISSION_KEY_PREFIX + eventId + ":" + userId;
+    }
+}
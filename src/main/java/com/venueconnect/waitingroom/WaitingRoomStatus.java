@@ -0,0 +1,20 @@
+package com.venueconnect.waitingroom;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitingRoomStatus {
+    private Long eventId;
+    private boolean active;        // false: no waiting room, reserve directly
+    private Long position;         // 1-based place in the queue, null once admitted
+    private String admissionToken; // Send as X-Admission-Token when reserving
+    private Instant admissionExpiresAt;
+}
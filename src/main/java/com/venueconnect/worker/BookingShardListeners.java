@@ -0,0 +1,61 @@
+package com.venueconnect.worker;
+
+import com.venueconnect.config.BookingShardRouter;
+import com.venueconnect.config.RabbitMQConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Registers one single-consumer listener container per booking queue shard, all handing their batches to the
+ * {@link BookingWorker}. The containers live in the {@code RabbitListenerEndpointRegistry} like any
+ * {@code @RabbitListener}, with ids {@code booking-shard-0} ... {@code booking-shard-{shards - 1}}.
+ * <p>
+ * By default an instance listens to every shard. {@code application.booking.consumed-shards} limits it to some of
+ * them, to spread the shards' active consumers over several instances.
+ */
+@Component
+@Slf4j
+public class BookingShardListeners implements RabbitListenerConfigurer {
+
+    private final BookingWorker bookingWorker;
+    private final BookingShardRouter bookingShardRouter;
+
+    private final SimpleRabbitListenerContainerFactory bookingBatchListenerContainerFactory;
+
+    @Value("${application.booking.consumed-shards:}")
+    private List<Integer> consumedShards;
+
+    public BookingShardListeners(
+            BookingWorker bookingWorker,
+            BookingShardRouter bookingShardRouter,
+            @Qualifier(RabbitMQConfig.BOOKING_BATCH_LISTENER_FACTORY)
+            SimpleRabbitListenerContainerFactory bookingBatchListenerContainerFactory) {
+        this.bookingWorker = bookingWorker;
+        this.bookingShardRouter = bookingShardRouter;
+        this.bookingBatchListenerContainerFactory = bookingBatchListenerContainerFactory;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        for (int shard = 0; shard < bookingShardRouter.getShardCount(); shard++) {
+            if (!consumedShards.isEmpty() && !consumedShards.contains(shard)) {
+                continue;
+            }
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("booking-shard-" + shard);
+            endpoint.setQueueNames(RabbitMQConfig.bookingQueueName(shard));
+            endpoint.setMessageListener(bookingWorker);
+            registrar.registerEndpoint(endpoint, bookingBatchListenerContainerFactory);
+        }
+        log.info("Listening to booking queue shards {} of {}.",
+                consumedShards.isEmpty() ? "all" : consumedShards, bookingShardRouter.getShardCount());
+    }
+}
@@ -1,99 +1,140 @@
 package com.venueconnect.worker;
 
-import com.venueconnect.config.RabbitMQConfig;
-import com.venueconnect.event.EventSeat;
-import com.venueconnect.event.EventSeatRepository;
+import com.venueconnect.inventory.SeatInventoryService;
+import com.venueconnect.inventory.SeatTransitionRetrier;
 import com.venueconnect.kafka.KafkaProducerService; // <-- Import Kafka service
 import com.venueconnect.kafka.OrderEventPayload; // <-- Import event payload DTO
 import com.venueconnect.order.BookingConfirmationMessage;
 import com.venueconnect.order.Order;
+import com.venueconnect.order.OrderBookingRow;
 import com.venueconnect.order.OrderRepository;
 import com.venueconnect.order.OrderStatus;
-import com.venueconnect.venue.SeatStatus;
+import com.venueconnect.order.OrderStatusWatcher;
+import com.venueconnect.outbox.OutboxMessage;
+import com.venueconnect.outbox.OutboxService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareBatchMessageListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class BookingWorker {
+public class BookingWorker implements ChannelAwareBatchMessageListener {
 
     private final OrderRepository orderRepository;
-    private final EventSeatRepository eventSeatRepository;
+    private final SeatInventoryService seatInventoryService;
+    private final SeatTransitionRetrier seatTransitionRetrier;
     private final KafkaProducerService kafkaProducerService; // <-- Inject Kafka service
+    private final OutboxService outboxService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final OrderStatusWatcher orderStatusWatcher;
 
-    @RabbitListener(queues = RabbitMQConfig.BOOKING_QUEUE_NAME)
-    @Transactional
-    public void handleBookingConfirmation(BookingConfirmationMessage message) {
-        log.info("Received booking confirmation message for Order ID: {}", message.getOrderId());
-        Order order = null; // Declare order outside try block for use in catch/finally
-        List<EventSeat> seatsToBook = null;
-
+    /**
+     * Confirms a batch of bookings in one transaction: all their seats are booked with one UPDATE per chunk of
+     * reservations and all their orders are confirmed with one more. If anything in the batch is wrong, the batch
+     * rolls back and every message is confirmed on its own instead, so only the bad ones end up in the DLQ.
+     * <p>
+     * Batches come from one booking queue shard at a time (see {@link BookingShardListeners}).
+     */
+    @Override
+    public void onMessageBatch(List<Message> messages, Channel channel) {
         try {
-            order = orderRepository.findById(message.getOrderId())
-                    .orElseThrow(() -> new EntityNotFoundException("Order not found: " + message.getOrderId()));
+            handleBookingConfirmations(messages, channel);
+        } catch (IOException e) {
+            // The channel is gone: the unacknowledged messages are redelivered to the shard's next consumer
+            throw new AmqpIOException(e);
+        }
+    }
 
-            if (order.getStatus() != OrderStatus.PAYMENT_COMPLETE) {
-                log.warn("Order {} is not in PAYMENT_COMPLETE status. Current status: {}. Skipping confirmation.",
-                        order.getId(), order.getStatus());
-                return;
-            }
+    private void handleBookingConfirmations(List<Message> messages, Channel channel) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        meterRegistry.summary("venueconnect.booking.batch.size").record(messages.size());
 
-            seatsToBook = eventSeatRepository.findByReservationId(order.getReservationId());
-            if (seatsToBook.isEmpty()) {
-                log.error("CRITICAL: No seats found for reservationId {} linked to Order {}. Cannot confirm booking.",
-                        order.getReservationId(), order.getId());
-                // Consider throwing an exception here for DLQ
-                throw new IllegalStateException("No seats found for reservation " + order.getReservationId());
+        // 1. Unreadable messages can never succeed: straight to the DLQ
+        List<Message> readable = new ArrayList<>(messages.size());
+        List<BookingConfirmationMessage> payloads = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                payloads.add(objectMapper.readValue(message.getBody(), BookingConfirmationMessage.class));
+                readable.add(message);
+            } catch (IOException e) {
+                log.error("Dead-lettering unreadable booking message: {}", e.getMessage());
+                deadLetter(message, channel);
             }
+        }
+        if (readable.isEmpty()) {
+            return;
+        }
 
-            log.info("Updating {} seats to BOOKED for Order {}", seatsToBook.size(), order.getId());
-            for (EventSeat seat : seatsToBook) {
-                if (seat.getStatus() != SeatStatus.RESERVED) {
-                    log.error("CRITICAL: Seat {} for Order {} was expected to be RESERVED but was {}. Booking may be inconsistent.",
-                            seat.getId(), order.getId(), seat.getStatus());
-                    throw new IllegalStateException("Seat " + seat.getId() + " status mismatch during booking confirmation.");
+        // 2. Fast path: the whole batch in one (retried) transaction
+        Integer confirmed = null;
+        try {
+            confirmed = seatTransitionRetrier.execute("book", () -> confirmBatch(payloads));
+        } catch (Exception e) {
+            log.warn("Batch of {} booking confirmations failed, confirming them one by one: {}", messages.size(), e.getMessage());
+        }
+        if (confirmed != null) {
+            // Acked outside the try: a failed ack means the channel is gone, not that the batch failed, and must not
+            // send committed bookings through the fallback (they are redelivered and skipped as already confirmed)
+            if (readable.size() == messages.size()) {
+                channel.basicAck(deliveryTag(messages.get(messages.size() - 1)), true);
+            } else {
+                // Acking "up to" the last tag would cover the dead-lettered ones as well
+                for (Message message : readable) {
+                    channel.basicAck(deliveryTag(message), false);
                 }
-                seat.setStatus(SeatStatus.BOOKED);
-                seat.setReservationId(null);
-                eventSeatRepository.save(seat);
             }
+            meterRegistry.counter("venueconnect.booking.confirmed").increment(confirmed);
+            sample.stop(meterRegistry.timer("venueconnect.booking.batch", "mode", "batch"));
+            log.info("Confirmed {} orders from a batch of {} booking messages.", confirmed, messages.size());
+            return;
+        }
 
-            order.setStatus(OrderStatus.CONFIRMED);
-            orderRepository.save(order);
-
-            log.info("Successfully confirmed Order ID: {}", order.getId());
-
-            // --- SEND KAFKA EVENT ---
-            // Create payload based on the final confirmed state
-            List<Long> eventSeatIds = seatsToBook.stream().map(EventSeat::getId).collect(Collectors.toList());
-            OrderEventPayload kafkaPayload = OrderEventPayload.builder()
-                    .orderId(order.getId())
-                    .userId(order.getUser().getId()) // Get user ID from the order object
-                    .reservationId(order.getReservationId())
-                    .orderStatus(order.getStatus()) // Now CONFIRMED
-                    .totalAmount(order.getTotalAmount())
-                    .timestamp(order.getCreatedAt()) // Or update to confirmation time if needed
-                    .eventSeatIds(eventSeatIds)
-                    .build();
+        // 3. Fallback: one message at a time, in queue order, so a poison message only takes itself to the DLQ
+        for (int i = 0; i < readable.size(); i++) {
+            boolean handled;
+            try {
+                handleBookingConfirmation(payloads.get(i));
+                handled = true;
+            } catch (Exception e) {
+                handled = false;
+            }
+            if (handled) {
+                channel.basicAck(deliveryTag(readable.get(i)), false);
+            } else {
+                deadLetter(readable.get(i), channel);
+            }
+        }
+        sample.stop(meterRegistry.timer("venueconnect.booking.batch", "mode", "fallback"));
+    }
 
-            // Send only to analytics topic upon final confirmation
-            kafkaProducerService.sendAnalyticsEvent(kafkaPayload);
-            // --- END KAFKA EVENT ---
+    public void handleBookingConfirmation(BookingConfirmationMessage message) {
+        log.info("Received booking confirmation message for Order ID: {}", message.getOrderId());
 
+        try {
+            // Runs in its own transaction, retried with backoff if the seat update loses a lock race
+            seatTransitionRetrier.run("book", () -> confirmBooking(message));
         } catch (Exception e) {
             log.error("Failed to process booking confirmation for Order ID {}: {}", message.getOrderId(), e.getMessage(), e);
 
-            // Optional: Send a Kafka event indicating processing failure
-            if (order != null) { // Check if order was loaded
-                List<Long> eventSeatIds = (seatsToBook != null) ? seatsToBook.stream().map(EventSeat::getId).collect(Collectors.toList()) : List.of();
+            // Optional: Send a Kafka event indicating processing failure (the seat changes were rolled back)
+            orderRepository.findByIdWithUser(message.getOrderId()).ifPresent(order -> {
                 OrderEventPayload kafkaPayload = OrderEventPayload.builder()
                         .orderId(order.getId())
                         .userId(order.getUser().getId())
@@ -101,12 +142,137 @@ public class BookingWorker {
                         .orderStatus(OrderStatus.FAILED) // Indicate failure
                         .totalAmount(order.getTotalAmount())
                         .timestamp(order.getCreatedAt())
-                        .eventSeatIds(eventSeatIds) // Include seat IDs if available
+                        .eventSeatIds(List.of())
                         .build();
-                kafkaProducerService.sendAuditEvent(kafkaPayload); // Audit the failure
-            }
+                kafkaProducerService.sendAuditEvent(order.getId().toString(), kafkaPayload) // Audit the failure (best effort)
+                        .exceptionally(error -> {
+                            log.error("Could not audit the failed booking of order {}: {}", order.getId(), error.getMessage());
+                            return null;
+                        });
+            });
 
             throw e; // Re-throw to trigger DLQ
         }
     }
-}
\ No newline at end of file
+
+    private int confirmBatch(List<BookingConfirmationMessage> messages) {
+        // 1. Load every order of the batch with its seat count in one query
+        Set<Long> orderIds = new LinkedHashSet<>();
+        messages.forEach(message -> orderIds.add(message.getOrderId()));
+        List<OrderBookingRow> orders = orderRepository.findBookingRows(orderIds);
+        if (orders.size() != orderIds.size()) {
+            throw new EntityNotFoundException("Some orders of the batch do not exist");
+        }
+
+        List<OrderBookingRow> payable = new ArrayList<>();
+        for (OrderBookingRow order : orders) {
+            if (order.getStatus() == OrderStatus.PAYMENT_COMPLETE) {
+                payable.add(order);
+            } else {
+                log.warn("Order {} is not in PAYMENT_COMPLETE status. Current status: {}. Skipping confirmation.",
+                        order.getOrderId(), order.getStatus());
+            }
+        }
+        if (payable.isEmpty()) {
+            return 0;
+        }
+
+        // 2. Book the seats of all reservations at once (general-admission orders have none)
+        List<String> reservationIds = payable.stream()
+                .filter(order -> order.getSeatCount() > 0)
+                .map(OrderBookingRow::getReservationId)
+                .toList();
+        Map<String, List<Long>> bookedSeats = seatInventoryService.bookReservations(reservationIds);
+        for (OrderBookingRow order : payable) {
+            int booked = bookedSeats.getOrDefault(order.getReservationId(), List.of()).size();
+            if (order.getSeatCount() > 0 && booked != order.getSeatCount()) {
+                // Rolls back the whole batch; the per-message fallback isolates this order
+                throw new IllegalStateException("Only " + booked + " of " + order.getSeatCount()
+                        + " seats for order " + order.getOrderId() + " were still RESERVED");
+            }
+        }
+
+        // 3. Confirm all orders at once and queue their analytics events
+        List<Long> payableIds = payable.stream().map(OrderBookingRow::getOrderId).toList();
+        orderRepository.confirmPaid(payableIds);
+        orderStatusWatcher.publishAfterCommit(payableIds, OrderStatus.CONFIRMED);
+        for (OrderBookingRow order : payable) {
+            OrderEventPayload kafkaPayload = OrderEventPayload.builder()
+                    .orderId(order.getOrderId())
+                    .userId(order.getUserId())
+                    .reservationId(order.getReservationId())
+                    .orderStatus(OrderStatus.CONFIRMED)
+                    .totalAmount(order.getTotalAmount())
+                    .timestamp(order.getCreatedAt())
+                    .eventSeatIds(bookedSeats.getOrDefault(order.getReservationId(), List.of()))
+                    .build();
+            outboxService.enqueue(order.getOrderId(), OutboxMessage.Destination.ANALYTICS_TOPIC, kafkaPayload);
+        }
+        return payable.size();
+    }
+
+    private void confirmBooking(BookingConfirmationMessage message) {
+        // Items are fetched with the order: they are needed to count the seats to book
+        Order order = orderRepository.findByIdWithItems(message.getOrderId())
+                .orElseThrow(() -> new EntityNotFoundException("Order not found: " + message.getOrderId()));
+
+        if (order.getStatus() != OrderStatus.PAYMENT_COMPLETE) {
+            log.warn("Order {} is not in PAYMENT_COMPLETE status. Current status: {}. Skipping confirmation.",
+                    order.getId(), order.getStatus());
+            return;
+        }
+
+        // General-admission items have no seat: their tickets were already taken from stock at reservation time
+        long expectedSeats = order.getOrderItems().stream().filter(item -> item.getEventSeat() != null).count();
+        List<Long> bookedSeatIds = List.of();
+        if (expectedSeats > 0) {
+            // Flip every seat still RESERVED for this reservation to BOOKED in one statement
+            bookedSeatIds = seatInventoryService.book(order.getReservationId());
+            if (bookedSeatIds.isEmpty()) {
+                log.error("CRITICAL: No seats found for reservationId {} linked to Order {}. Cannot confirm booking.",
+                        order.getReservationId(), order.getId());
+                throw new IllegalStateException("No seats found for reservation " + order.getReservationId());
+            }
+
+            if (bookedSeatIds.size() != expectedSeats) {
+                log.error("CRITICAL: Only {} of {} seats for Order {} were still RESERVED. Booking may be inconsistent.",
+                        bookedSeatIds.size(), expectedSeats, order.getId());
+                throw new IllegalStateException("Seat status mismatch during booking confirmation for order " + order.getId());
+            }
+            log.info("Updated {} seats to BOOKED for Order {}", bookedSeatIds.size(), order.getId());
+        }
+
+        order.setStatus(OrderStatus.CONFIRMED);
+        orderRepository.save(order);
+        orderStatusWatcher.publishAfterCommit(order.getId(), OrderStatus.CONFIRMED);
+
+        log.info("Successfully confirmed Order ID: {}", order.getId());
+
+        // --- SEND KAFKA EVENT ---
+        // Create payload based on the final confirmed state
+        OrderEventPayload kafkaPayload = OrderEventPayload.builder()
+                .orderId(order.getId())
+                .userId(order.getUser().getId()) // Get user ID from the order object
+                .reservationId(order.getReservationId())
+                .orderStatus(order.getStatus()) // Now CONFIRMED
+                .totalAmount(order.getTotalAmount())
+                .timestamp(order.getCreatedAt()) // Or update to confirmation time if needed
+                .eventSeatIds(bookedSeatIds)
+                .build();
+
+        // Send only to analytics topic upon final confirmation (published by the outbox relay after commit)
+        outboxService.enqueue(order.getId(), OutboxMessage.Destination.ANALYTICS_TOPIC, kafkaPayload);
+        // --- END KAFKA EVENT ---
+        meterRegistry.counter("venueconnect.booking.confirmed").increment();
+    }
+
+    // Rejected without requeue: the queue's dead-letter exchange routes it to the DLQ
+    private void deadLetter(Message message, Channel channel) throws IOException {
+        channel.basicNack(deliveryTag(message), false, false);
+        meterRegistry.counter("venueconnect.booking.dead-lettered").increment();
+    }
+
+    private long deliveryTag(Message message) {
+        return message.getMessageProperties().getDeliveryTag();
+    }
+}
@@ -0,0 +1,6 @@
+-- V10__Add_TicketType_SeatCategory.sql
+
+-- 1. Which hall seats a seated ticket type sells, by seats.seat_category.
+--    NULL means the ticket type takes every seat that no other ticket type of the event claims.
+ALTER TABLE ticket_types
+ADD COLUMN seat_category VARCHAR(255);
@@ -0,0 +1,13 @@
+-- V11__Create_Outbox.sql
+
+-- 1. Messages written in the same transaction as the order change that caused them,
+--    and relayed to RabbitMQ / Kafka afterwards. Rows are deleted once they are published.
+CREATE TABLE outbox_messages (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_id BIGINT NOT NULL, -- The order the message is about; its messages are relayed in id order
+    destination VARCHAR(50) NOT NULL, -- (BOOKING_QUEUE, AUDIT_TOPIC, ANALYTICS_TOPIC)
+    payload TEXT NOT NULL, -- JSON message body
+    created_at TIMESTAMP NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT
+);
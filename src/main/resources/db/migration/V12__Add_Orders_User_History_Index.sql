@@ -0,0 +1,8 @@
+-- V12__Add_Orders_User_History_Index.sql
+
+-- Serves GET /api/v1/orders: a user's orders newest first, paged by (created_at, id).
+-- id breaks ties between orders created in the same microsecond, so every page boundary is exact.
+CREATE INDEX idx_orders_user_id_created_at ON orders(user_id, created_at DESC, id DESC);
+
+-- user_id lookups are served by the new index
+DROP INDEX idx_orders_user_id;
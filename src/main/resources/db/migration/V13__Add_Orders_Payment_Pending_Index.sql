@@ -0,0 +1,5 @@
+-- V13__Add_Orders_Payment_Pending_Index.sql
+
+-- Serves the payment reconciliation sweep: the (few) orders still waiting for their payment's outcome, oldest first.
+-- Partial, so settled orders never enter it.
+CREATE INDEX idx_orders_payment_pending ON orders(created_at) WHERE status = 'PAYMENT_PENDING';
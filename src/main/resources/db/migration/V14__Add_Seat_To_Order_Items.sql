@@ -0,0 +1,11 @@
+-- V14__Add_Seat_To_Order_Items.sql
+
+-- order_items.event_seat_id has no foreign key since V9, and the event_seats partitions of ended events get
+-- detached. Items keep a copy of their seat's row and number, so orders still show their seats afterwards.
+ALTER TABLE order_items ADD COLUMN seat_row VARCHAR(50);
+ALTER TABLE order_items ADD COLUMN seat_number VARCHAR(50);
+
+UPDATE order_items oi
+SET seat_row = s.seat_row, seat_number = s.seat_number
+FROM event_seats es JOIN seats s ON s.id = es.seat_id
+WHERE es.id = oi.event_seat_id;
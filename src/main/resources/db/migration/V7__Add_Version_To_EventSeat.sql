@@ -0,0 +1,6 @@
+-- V7__Add_Version_To_EventSeat.sql
+
+-- Optimistic locking column for event_seats.
+-- Every status transition (JPA or set-based) increments it, so concurrent read-modify-write cycles are detected.
+ALTER TABLE event_seats
+ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
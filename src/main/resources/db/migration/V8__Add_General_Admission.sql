@@ -0,0 +1,25 @@
+-- V8__Add_General_Admission.sql
+
+-- 1. A general-admission ticket type is sold by quantity, without physical seats
+ALTER TABLE ticket_types
+ADD COLUMN general_admission BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- 2. Order items can now point at a ticket type instead of a specific seat
+ALTER TABLE order_items
+ADD COLUMN ticket_type_id BIGINT,
+ADD CONSTRAINT fk_order_items_ticket_type
+    FOREIGN KEY(ticket_type_id)
+    REFERENCES ticket_types(id)
+    ON DELETE NO ACTION;
+
+ALTER TABLE order_items
+ALTER COLUMN event_seat_id DROP NOT NULL;
+
+-- Backfill the ticket type of existing seated items
+UPDATE order_items oi
+SET ticket_type_id = es.ticket_type_id
+FROM event_seats es
+WHERE oi.event_seat_id = es.id;
+
+-- Used to count sold general-admission tickets when the Redis stock counter is (re)initialised
+CREATE INDEX idx_order_items_ticket_type_id ON order_items(ticket_type_id);
@@ -0,0 +1,78 @@
+-- V9__Partition_EventSeats.sql
+-- Converts event_seats into a table partitioned by RANGE(event_id), one partition per block of 1000 event ids.
+-- Queries for one event only touch its partition, the partition count stays bounded, and the partition of a block
+-- of past events can be detached as a whole. Rows of events without a partition land in event_seats_default.
+
+-- 1. A partitioned table cannot be the target of a foreign key on id alone (its keys must include event_id).
+--    order_items.event_seat_id stays UNIQUE; the application links items to seats.
+ALTER TABLE order_items DROP CONSTRAINT fk_order_items_event_seat;
+
+-- 2. Create the partitioned table, reusing the existing id sequence
+CREATE TABLE event_seats_partitioned (
+    id BIGINT NOT NULL DEFAULT nextval('event_seats_id_seq'),
+    event_id BIGINT NOT NULL,
+    seat_id BIGINT NOT NULL,
+    ticket_type_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL, -- (AVAILABLE, RESERVED, BOOKED)
+    reservation_id VARCHAR(255),
+    version BIGINT NOT NULL DEFAULT 0
+) PARTITION BY RANGE (event_id);
+
+CREATE TABLE event_seats_default PARTITION OF event_seats_partitioned DEFAULT;
+
+-- 3. Swap the tables (the sequence must be released before the old table is dropped)
+ALTER SEQUENCE event_seats_id_seq OWNED BY NONE;
+INSERT INTO event_seats_partitioned (id, event_id, seat_id, ticket_type_id, status, reservation_id, version)
+SELECT id, event_id, seat_id, ticket_type_id, status, reservation_id, version FROM event_seats;
+DROP TABLE event_seats;
+ALTER TABLE event_seats_partitioned RENAME TO event_seats;
+ALTER SEQUENCE event_seats_id_seq OWNED BY event_seats.id;
+
+-- 4. Keys, constraints and indexes (created on every partition automatically)
+ALTER TABLE event_seats ADD CONSTRAINT pk_event_seats PRIMARY KEY (id, event_id);
+-- A seat can only be listed once per event
+ALTER TABLE event_seats ADD CONSTRAINT uq_event_seat UNIQUE (event_id, seat_id);
+
+ALTER TABLE event_seats ADD CONSTRAINT fk_event_seats_event
+    FOREIGN KEY (event_id) REFERENCES events(id) ON DELETE CASCADE;
+ALTER TABLE event_seats ADD CONSTRAINT fk_event_seats_seat
+    FOREIGN KEY (seat_id) REFERENCES seats(id) ON DELETE CASCADE;
+ALTER TABLE event_seats ADD CONSTRAINT fk_event_seats_ticket_type
+    FOREIGN KEY (ticket_type_id) REFERENCES ticket_types(id) ON DELETE NO ACTION;
+
+CREATE INDEX idx_event_seats_seat_id ON event_seats(seat_id);
+-- Only seats that are currently held have a reservation id
+CREATE INDEX idx_event_seats_reservation_id ON event_seats(reservation_id) WHERE reservation_id IS NOT NULL;
+-- Availability lookups and claims of one event only scan the seats in that state
+CREATE INDEX idx_event_seats_available ON event_seats(event_id, id) WHERE status = 'AVAILABLE';
+CREATE INDEX idx_event_seats_reserved ON event_seats(event_id, id) WHERE status = 'RESERVED';
+
+-- 5. Creates (once) the partition for the block of event ids containing p_event_id, moving any of its rows
+--    out of the default partition first. Safe to call concurrently and repeatedly.
+CREATE OR REPLACE FUNCTION ensure_event_seats_partition(p_event_id BIGINT) RETURNS TEXT AS $$
+DECLARE
+    span CONSTANT BIGINT := 1000;
+    range_start BIGINT := (p_event_id / span) * span;
+    range_end BIGINT := range_start + span;
+    partition_name TEXT := format('event_seats_p%s', range_start);
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtextextended(partition_name, 0));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE event_seats INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM event_seats_default WHERE event_id >= %s AND event_id < %s RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', range_start, range_end, partition_name);
+    EXECUTE format('ALTER TABLE event_seats ATTACH PARTITION %I FOR VALUES FROM (%s) TO (%s)',
+                   partition_name, range_start, range_end);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 6. Partitions for every existing event (their rows move out of the default partition)
+SELECT ensure_event_seats_partition(id) FROM events;
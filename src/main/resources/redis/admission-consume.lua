@@ -0,0 +1,11 @@
+-- Uses up an admission token, so one admission lets its user through only once.
+-- KEYS[1] = user's admission token for the event
+-- ARGV[1] = token presented with the request
+-- Returns the token's remaining ttl (ms) when it matched and was consumed, or -1 when it is missing or different.
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return -1
+end
+
+local ttl = redis.call('PTTL', KEYS[1])
+redis.call('DEL', KEYS[1])
+return math.max(ttl, 1)
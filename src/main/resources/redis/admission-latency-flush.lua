@@ -0,0 +1,6 @@
+-- Adds an instance's reservation latency samples to the shared sampling window of the waiting room.
+-- KEYS[1] = shared latency window (hash: nanos, count)
+-- ARGV[1] = summed latency (nanoseconds), ARGV[2] = number of samples
+redis.call('HINCRBY', KEYS[1], 'nanos', ARGV[1])
+redis.call('HINCRBY', KEYS[1], 'count', ARGV[2])
+return 1
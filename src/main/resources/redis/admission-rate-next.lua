@@ -0,0 +1,23 @@
+-- Closes the shared latency window and moves the shared admission rate one AIMD step.
+-- KEYS[1] = shared latency window (hash: nanos, count), KEYS[2] = shared admission rate
+-- ARGV[1] = initial rate, ARGV[2] = min rate, ARGV[3] = max rate, ARGV[4] = additive increase,
+-- ARGV[5] = decrease factor, ARGV[6] = target latency (nanoseconds), ARGV[7] = rate ttl (seconds)
+-- Returns {new rate, mean latency in nanoseconds or -1 when the window was empty}, as strings.
+local window = redis.call('HMGET', KEYS[1], 'nanos', 'count')
+redis.call('DEL', KEYS[1])
+
+local rate = tonumber(redis.call('GET', KEYS[2]) or ARGV[1])
+local count = tonumber(window[2] or '0')
+local mean = -1
+if count > 0 then
+    mean = math.floor(tonumber(window[1]) / count)
+    if mean > tonumber(ARGV[6]) then
+        rate = math.max(tonumber(ARGV[2]), rate * tonumber(ARGV[5]))
+    else
+        rate = math.min(tonumber(ARGV[3]), rate + tonumber(ARGV[4]))
+    end
+end
+
+-- An idle waiting room starts again from the initial rate
+redis.call('SET', KEYS[2], tostring(rate), 'EX', ARGV[7])
+return {tostring(rate), tostring(mean)}
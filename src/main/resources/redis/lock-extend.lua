@@ -0,0 +1,8 @@
+-- Extends a lock's TTL only if it is still held with the caller's token.
+-- KEYS[1] = lock
+-- ARGV[1] = token the lock was taken with, ARGV[2] = new ttl (milliseconds)
+-- Returns 1 when the lock was extended, 0 when it expired or another holder has it now.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,8 @@
+-- Releases a lock only if it is still held with the caller's token.
+-- KEYS[1] = lock
+-- ARGV[1] = token the lock was taken with
+-- Returns 1 when the lock was released, 0 when it expired or another holder has it now.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,38 @@
+-- Takes one token from every bucket of a request, or from none of them.
+-- KEYS[n] = token bucket hash (fields: tokens, ts)
+-- ARGV[2n-1] = bucket capacity, ARGV[2n] = refill rate (tokens per second)
+-- Returns 0 when the request is allowed, otherwise the milliseconds until it would be
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tokens = {}
+local wait = 0
+for i, key in ipairs(KEYS) do
+    local capacity = tonumber(ARGV[2 * i - 1])
+    local rate = tonumber(ARGV[2 * i])
+    local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+    local available = tonumber(bucket[1])
+    if available == nil then
+        available = capacity
+    else
+        local elapsed = math.max(0, now - tonumber(bucket[2]))
+        available = math.min(capacity, available + elapsed * rate / 1000)
+    end
+    tokens[i] = available
+    if available < 1 then
+        wait = math.max(wait, math.ceil((1 - available) * 1000 / rate))
+    end
+end
+
+if wait > 0 then
+    return wait
+end
+
+for i, key in ipairs(KEYS) do
+    local capacity = tonumber(ARGV[2 * i - 1])
+    local rate = tonumber(ARGV[2 * i])
+    redis.call('HSET', key, 'tokens', tostring(tokens[i] - 1), 'ts', now)
+    -- An idle bucket is full again after capacity / rate seconds, so it can simply disappear
+    redis.call('PEXPIRE', key, math.ceil(capacity * 1000 / rate))
+end
+return 0
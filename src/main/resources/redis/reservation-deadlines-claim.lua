@@ -0,0 +1,10 @@
+-- Atomically takes the reservations whose deadline has passed off the deadline queue,
+-- so that every due reservation is handed to exactly one sweeper node.
+-- KEYS[1] = deadline sorted set (score = expiry epoch millis)
+-- ARGV[1] = now (epoch millis), ARGV[2] = max batch size
+-- Returns a flat list: reservationId, deadline, reservationId, deadline, ...
+local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'WITHSCORES', 'LIMIT', 0, tonumber(ARGV[2]))
+for i = 1, #due, 2 do
+    redis.call('ZREM', KEYS[1], due[i])
+end
+return due
@@ -0,0 +1,22 @@
+-- Removes a reservation hold and, optionally, returns its general-admission tickets to stock.
+-- KEYS[1] = reservation hold, KEYS[2] = stock counter,
+-- KEYS[3] = live holds of the ticket type (reservation id -> quantity), KEYS[4] = their expiry times (zset, ms)
+-- ARGV[1] = '1' to return the tickets to stock (the live hold goes with them),
+--           '0' when they are being sold (the caller drops the live hold once the sale is committed)
+-- ARGV[2] = reservation id
+-- Returns the held quantity, or 0 when the hold no longer exists (already released or consumed).
+local quantity = redis.call('HGET', KEYS[1], 'quantity')
+if not quantity then
+    return 0
+end
+
+redis.call('DEL', KEYS[1])
+if ARGV[1] == '1' then
+    redis.call('HDEL', KEYS[3], ARGV[2])
+    redis.call('ZREM', KEYS[4], ARGV[2])
+    -- A missing counter is rebuilt from Postgres and the live holds, which no longer include these tickets
+    if redis.call('EXISTS', KEYS[2]) == 1 then
+        redis.call('INCRBY', KEYS[2], quantity)
+    end
+end
+return tonumber(quantity)
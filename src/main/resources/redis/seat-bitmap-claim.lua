@@ -0,0 +1,23 @@
+-- Atomically claims a set of seats in an event's availability bitmap.
+-- KEYS[1] = seat bitmap (bit = 1 means AVAILABLE), KEYS[2] = seat index (event seat id -> bit offset)
+-- ARGV    = event seat ids to claim
+-- Returns 1 when every seat was claimed, 0 when any seat is already taken,
+-- -1 when the bitmap is not built yet and -2 when a seat is not in the event's index.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+
+local offsets = redis.call('HMGET', KEYS[2], unpack(ARGV))
+for _, offset in ipairs(offsets) do
+    if not offset then
+        return -2
+    end
+    if redis.call('GETBIT', KEYS[1], offset) == 0 then
+        return 0
+    end
+end
+
+for _, offset in ipairs(offsets) do
+    redis.call('SETBIT', KEYS[1], offset, 0)
+end
+return 1
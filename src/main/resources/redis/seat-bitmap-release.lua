@@ -0,0 +1,18 @@
+-- Marks a set of seats as AVAILABLE again in an event's availability bitmap.
+-- KEYS[1] = seat bitmap, KEYS[2] = seat index, KEYS[3] = release counter (lets a rebuild notice releases it raced with)
+-- ARGV    = event seat ids to release
+-- Returns the number of bits that were set back to 1.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('INCR', KEYS[3])
+
+local released = 0
+local offsets = redis.call('HMGET', KEYS[2], unpack(ARGV))
+for _, offset in ipairs(offsets) do
+    if offset then
+        redis.call('SETBIT', KEYS[1], offset, 1)
+        released = released + 1
+    end
+end
+return released
@@ -0,0 +1,16 @@
+-- Counts tickets against a user's per-event cap and records them as held by the reservation.
+-- KEYS[1] = user's ticket counter for the event, KEYS[2] = event's cap override, KEYS[3] = reservation's cap hold
+-- ARGV[1] = quantity, ARGV[2] = default cap (0 = unlimited), ARGV[3] = hold ttl (seconds), ARGV[4] = counter ttl (seconds)
+-- Returns the user's new ticket count, or minus the cap when the quantity does not fit under it.
+local quantity = tonumber(ARGV[1])
+local cap = tonumber(redis.call('GET', KEYS[2]) or ARGV[2])
+local count = tonumber(redis.call('GET', KEYS[1]) or '0')
+if cap > 0 and count + quantity > cap then
+    return -cap
+end
+
+count = redis.call('INCRBY', KEYS[1], quantity)
+redis.call('EXPIRE', KEYS[1], ARGV[4])
+redis.call('HSET', KEYS[3], 'counter', KEYS[1], 'quantity', ARGV[1])
+redis.call('EXPIRE', KEYS[3], ARGV[3])
+return count
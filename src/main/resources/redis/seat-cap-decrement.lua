@@ -0,0 +1,13 @@
+-- Takes tickets off a user's per-event counter (e.g. when an order is cancelled).
+-- KEYS[1] = user's ticket counter for the event
+-- ARGV[1] = quantity
+-- Returns the user's new ticket count.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+local count = redis.call('DECRBY', KEYS[1], ARGV[1])
+if count <= 0 then
+    redis.call('DEL', KEYS[1])
+    return 0
+end
+return count
@@ -0,0 +1,19 @@
+-- Removes a reservation's cap hold and, optionally, takes its tickets off the user's counter.
+-- KEYS[1] = reservation's cap hold, KEYS[2] = user's ticket counter for the event (the hold's 'counter' field)
+-- ARGV[1] = '1' to decrement the counter (reservation released), '0' to keep it (reservation paid)
+-- Returns the held quantity, or 0 when the hold no longer exists (already released or settled).
+local hold = redis.call('HMGET', KEYS[1], 'counter', 'quantity')
+if not hold[1] then
+    return 0
+end
+if hold[1] ~= KEYS[2] then
+    return redis.error_reply('Cap hold ' .. KEYS[1] .. ' belongs to counter ' .. hold[1])
+end
+
+redis.call('DEL', KEYS[1])
+if ARGV[1] == '1' then
+    if redis.call('DECRBY', KEYS[2], hold[2]) <= 0 then
+        redis.call('DEL', KEYS[2])
+    end
+end
+return tonumber(hold[2])
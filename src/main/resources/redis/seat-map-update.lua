@@ -0,0 +1,43 @@
+-- Applies a seat status transition to an event's packed seat map, appends it to the change log,
+-- keeps the per-ticket-type availability counters in step and publishes it ("version:status:id,id,...")
+-- for the live seat stream. Seats already in the new status are skipped, so replaying an update is harmless.
+-- KEYS[1] = seat map (2 bits per seat), KEYS[2] = version counter, KEYS[3] = change log (sorted set, score = version),
+-- KEYS[4] = seat index (eventSeatId -> offset), KEYS[5] = base version (oldest version the change log can serve),
+-- KEYS[6] = seat ticket types (eventSeatId -> ticketTypeId), KEYS[7] = availability counters ("{ticketTypeId}:{status}")
+-- ARGV[1] = new status code, ARGV[2] = max change log size, ARGV[3] = pub/sub channel, ARGV[4..n] = event seat ids
+-- Returns the new version, or -1 when the map has not been built yet.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+
+local statusNames = { [0] = 'available', [1] = 'reserved', [2] = 'booked' }
+local newStatus = tonumber(ARGV[1])
+local version = redis.call('INCR', KEYS[2])
+local changed = {}
+for i = 4, #ARGV do
+    local offset = redis.call('HGET', KEYS[4], ARGV[i])
+    if offset then
+        local oldStatus = redis.call('BITFIELD', KEYS[1], 'SET', 'u2', '#' .. offset, newStatus)[1]
+        if oldStatus ~= newStatus then
+            redis.call('ZADD', KEYS[3], version, version .. ':' .. ARGV[i] .. ':' .. ARGV[1])
+            local ticketTypeId = redis.call('HGET', KEYS[6], ARGV[i])
+            if ticketTypeId then
+                redis.call('HINCRBY', KEYS[7], ticketTypeId .. ':' .. statusNames[oldStatus], -1)
+                redis.call('HINCRBY', KEYS[7], ticketTypeId .. ':' .. statusNames[newStatus], 1)
+            end
+            changed[#changed + 1] = ARGV[i]
+        end
+    end
+end
+if #changed > 0 then
+    redis.call('PUBLISH', ARGV[3], version .. ':' .. ARGV[1] .. ':' .. table.concat(changed, ','))
+end
+
+-- Trim the change log; clients asking for anything older than the base get a full map instead
+local excess = redis.call('ZCARD', KEYS[3]) - tonumber(ARGV[2])
+if excess > 0 then
+    local last = redis.call('ZRANGE', KEYS[3], excess - 1, excess - 1, 'WITHSCORES')
+    redis.call('ZREMRANGEBYRANK', KEYS[3], 0, excess - 1)
+    redis.call('SET', KEYS[5], last[2])
+end
+return version
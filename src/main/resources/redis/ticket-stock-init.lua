@@ -0,0 +1,28 @@
+-- Initialises a general-admission stock counter unless another instance already did.
+-- KEYS[1] = stock counter,
+-- KEYS[2] = live holds of the ticket type (reservation id -> quantity), KEYS[3] = their expiry times (zset, ms)
+-- ARGV[1] = total quantity minus the tickets sold in Postgres
+-- Returns the initial stock, or -1 when the counter already existed.
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return -1
+end
+
+-- Holds that expired without being released (or whose sale never dropped them) no longer count
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local expired = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', now)
+for i = 1, #expired, 1000 do
+    local batch = { unpack(expired, i, math.min(i + 999, #expired)) }
+    redis.call('HDEL', KEYS[2], unpack(batch))
+    redis.call('ZREM', KEYS[3], unpack(batch))
+end
+
+-- Held tickets are neither sold nor available; summing them here keeps releases from slipping in between
+local held = 0
+for _, quantity in ipairs(redis.call('HVALS', KEYS[2])) do
+    held = held + tonumber(quantity)
+end
+
+local stock = math.max(0, tonumber(ARGV[1]) - held)
+redis.call('SET', KEYS[1], stock)
+return stock
@@ -0,0 +1,31 @@
+-- Atomically takes tickets from a general-admission stock counter and records the hold.
+-- KEYS[1] = stock counter, KEYS[2] = reservation hold,
+-- KEYS[3] = live holds of the ticket type (reservation id -> quantity), KEYS[4] = their expiry times (zset, ms)
+-- ARGV[1] = quantity, ARGV[2] = ticket type id, ARGV[3] = hold ttl (seconds), ARGV[4] = reservation id
+-- Returns the remaining stock, -1 when the counter is not initialised and -2 when there is not enough stock.
+local stock = redis.call('GET', KEYS[1])
+if not stock then
+    return -1
+end
+
+local quantity = tonumber(ARGV[1])
+if tonumber(stock) < quantity then
+    return -2
+end
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+-- Forget a few holds that expired without being released, so the live holds never grow without bound
+local expired = redis.call('ZRANGEBYSCORE', KEYS[4], '-inf', now, 'LIMIT', 0, 10)
+if #expired > 0 then
+    redis.call('HDEL', KEYS[3], unpack(expired))
+    redis.call('ZREM', KEYS[4], unpack(expired))
+end
+
+redis.call('DECRBY', KEYS[1], quantity)
+redis.call('HSET', KEYS[2], 'ticketTypeId', ARGV[2], 'quantity', ARGV[1])
+redis.call('EXPIRE', KEYS[2], ARGV[3])
+redis.call('HSET', KEYS[3], ARGV[4], ARGV[1])
+redis.call('ZADD', KEYS[4], now + tonumber(ARGV[3]) * 1000, ARGV[4])
+return tonumber(stock) - quantity
@@ -0,0 +1,149 @@
+package com.venueconnect;
+
+import com.venueconnect.event.*;
+import com.venueconnect.inventory.BestAvailableSeatFinder;
+import com.venueconnect.inventory.SeatBitmapService;
+import com.venueconnect.order.OrderRepository;
+import com.venueconnect.venue.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BestAvailableSeatFinderIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired private BestAvailableSeatFinder bestAvailableSeatFinder;
+    @Autowired private SeatBitmapService seatBitmapService;
+
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private VenueRepository venueRepository;
+    @Autowired private HallRepository hallRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private EventRepository eventRepository;
+    @Autowired private TicketTypeRepository ticketTypeRepository;
+    @Autowired private EventSeatRepository eventSeatRepository;
+    @Autowired private StringRedisTemplate stringRedisTemplate;
+
+    private Hall hall;
+    private Event event;
+    private TicketType ticketType;
+
+    @BeforeEach
+    void setUpTestData() {
+        orderRepository.deleteAll();
+        eventSeatRepository.deleteAll();
+        ticketTypeRepository.deleteAll();
+        eventRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        venueRepository.deleteAll();
+
+        Venue venue = venueRepository.save(Venue.builder().name("Finder Venue").build());
+        hall = hallRepository.save(Hall.builder().name("Finder Hall").venue(venue).build());
+        event = eventRepository.save(Event.builder()
+                .name("Finder Event")
+                .hall(hall)
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(2))
+                .build());
+        ticketType = ticketTypeRepository.save(TicketType.builder()
+                .event(event).name("Standard").price(BigDecimal.TEN).totalQuantity(100).build());
+    }
+
+    @Test
+    void findBestBlock_shouldPickTheMostCentralBlockOfTheFrontRow() {
+        // Row B is created first, so seat ids alone would put it in front of row A
+        addRow("B", 8);
+        List<EventSeat> rowA = addRow("A", 8);
+        seatBitmapService.rebuild(event.getId());
+
+        List<Long> block = bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 2);
+
+        assertThat(block).containsExactly(rowA.get(3).getId(), rowA.get(4).getId());
+    }
+
+    @Test
+    void findBestBlock_shouldMoveBackARow_whenTheFrontRowHasNoBlockThatLarge() {
+        List<EventSeat> rowA = addRow("A", 6);
+        List<EventSeat> rowB = addRow("B", 6);
+        setStatus(rowA.get(1), SeatStatus.RESERVED);
+        setStatus(rowA.get(4), SeatStatus.BOOKED);
+        seatBitmapService.rebuild(event.getId());
+
+        List<Long> block = bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 3);
+
+        assertThat(block).containsExactly(rowB.get(1).getId(), rowB.get(2).getId(), rowB.get(3).getId());
+    }
+
+    @Test
+    void findBestBlock_shouldNeverJoinSeatsWhoseNumbersAreNotConsecutive() {
+        addSeats("A", "1", "2", "4", "5");
+        seatBitmapService.rebuild(event.getId());
+
+        assertThat(bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 3)).isEmpty();
+        assertThat(bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 2)).hasSize(2);
+    }
+
+    @Test
+    void findBestBlock_shouldReadTheBitmap_andFallBackOnPostgresWithoutIt() {
+        List<EventSeat> rowA = addRow("A", 5);
+        seatBitmapService.rebuild(event.getId());
+        // Taken in the bitmap only (a claim not committed yet): the centre seats must not be offered
+        String bitmapKey = "SeatBitmap:" + event.getId();
+        stringRedisTemplate.opsForValue().setBit(bitmapKey, 1, false);
+        stringRedisTemplate.opsForValue().setBit(bitmapKey, 2, false);
+
+        assertThat(bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 2))
+                .containsExactly(rowA.get(3).getId(), rowA.get(4).getId());
+
+        // Without a bitmap the finder asks Postgres, where every seat is still available
+        stringRedisTemplate.delete(bitmapKey);
+        assertThat(bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 2))
+                .containsExactly(rowA.get(1).getId(), rowA.get(2).getId());
+    }
+
+    @Test
+    void findBestBlock_shouldReloadTheLayout_whenSeatsWereAddedSinceItWasCached() {
+        // Full rows of 8 seats, so the new seats change the bitmap's size in bytes
+        addRow("B", 8);
+        seatBitmapService.rebuild(event.getId());
+        assertThat(bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 2)).hasSize(2);
+
+        List<EventSeat> rowA = addRow("A", 8);
+        seatBitmapService.rebuild(event.getId());
+
+        assertThat(bestAvailableSeatFinder.findBestBlock(event.getId(), ticketType.getId(), 2))
+                .containsExactly(rowA.get(3).getId(), rowA.get(4).getId());
+    }
+
+    // Adds a row of seats numbered 1..count, available for the test ticket type
+    private List<EventSeat> addRow(String row, int count) {
+        String[] numbers = new String[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = String.valueOf(i + 1);
+        }
+        return addSeats(row, numbers);
+    }
+
+    private List<EventSeat> addSeats(String row, String... numbers) {
+        List<EventSeat> added = new ArrayList<>();
+        for (String number : numbers) {
+            Seat seat = seatRepository.save(Seat.builder().hall(hall).seatRow(row).seatNumber(number).build());
+            added.add(eventSeatRepository.save(EventSeat.builder()
+                    .event(event).seat(seat).ticketType(ticketType).status(SeatStatus.AVAILABLE).build()));
+        }
+        return added;
+    }
+
+    private void setStatus(EventSeat eventSeat, SeatStatus status) {
+        eventSeat.setStatus(status);
+        eventSeatRepository.save(eventSeat);
+    }
+}
@@ -0,0 +1,152 @@
+package com.venueconnect;
+
+import com.venueconnect.event.*;
+import com.venueconnect.inventory.GeneralAdmissionInventory;
+import com.venueconnect.kafka.KafkaProducerService;
+import com.venueconnect.order.OrderRepository;
+import com.venueconnect.order.OrderResponse;
+import com.venueconnect.order.OrderService;
+import com.venueconnect.order.OrderStatus;
+import com.venueconnect.order.PaymentRequest;
+import com.venueconnect.reservation.ReservationDeadlineQueue;
+import com.venueconnect.reservation.ReservationExpiryScheduler;
+import com.venueconnect.reservation.ReservationRequest;
+import com.venueconnect.reservation.ReservationResponse;
+import com.venueconnect.reservation.ReservationService;
+import com.venueconnect.venue.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class GeneralAdmissionIntegrationTest extends BaseIntegrationTest {
+
+    private static final int TOTAL_TICKETS = 10;
+
+    @Autowired private ReservationService reservationService;
+    @Autowired private OrderService orderService;
+    @Autowired private GeneralAdmissionInventory generalAdmissionInventory;
+    @Autowired private ReservationDeadlineQueue reservationDeadlineQueue;
+    @Autowired private ReservationExpiryScheduler reservationExpiryScheduler;
+
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private VenueRepository venueRepository;
+    @Autowired private HallRepository hallRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private EventRepository eventRepository;
+    @Autowired private TicketTypeRepository ticketTypeRepository;
+    @Autowired private EventSeatRepository eventSeatRepository;
+    @Autowired private StringRedisTemplate stringRedisTemplate;
+
+    @MockBean private KafkaProducerService kafkaProducerService;
+
+    private Event event;
+    private TicketType ticketType;
+
+    @BeforeEach
+    @Sql("/sql/insert-test-user.sql")
+    void setUpTestData() {
+        orderRepository.deleteAll();
+        eventSeatRepository.deleteAll();
+        ticketTypeRepository.deleteAll();
+        eventRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        venueRepository.deleteAll();
+        stringRedisTemplate.delete(stringRedisTemplate.keys("TicketStock:*"));
+        stringRedisTemplate.delete(stringRedisTemplate.keys("ReservationHold:*"));
+
+        when(kafkaProducerService.sendAuditEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducerService.sendAnalyticsEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        Venue venue = venueRepository.save(Venue.builder().name("GA Venue").build());
+        Hall hall = hallRepository.save(Hall.builder().name("GA Hall").venue(venue).build());
+        event = eventRepository.save(Event.builder()
+                .name("GA Event")
+                .hall(hall)
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(2))
+                .build());
+        ticketType = ticketTypeRepository.save(TicketType.builder()
+                .event(event).name("Standing").price(BigDecimal.TEN)
+                .totalQuantity(TOTAL_TICKETS).generalAdmission(true).build());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void payment_shouldSellTheHeldTickets_andKeepThemOffAReinitialisedStock() {
+        ReservationResponse reservation = reserve(3);
+        assertEquals(TOTAL_TICKETS - 3, generalAdmissionInventory.availableQuantity(ticketType.getId()));
+
+        OrderResponse order = orderService.createOrder(new PaymentRequest(reservation.getReservationId(), "MOCK_PAYMENT"));
+
+        assertEquals(OrderStatus.PAYMENT_COMPLETE.name(), order.getStatus());
+        assertThat(order.getItems()).hasSize(3);
+        assertEquals(TOTAL_TICKETS - 3, generalAdmissionInventory.availableQuantity(ticketType.getId()));
+        assertThat(liveHolds()).isEmpty();
+
+        // Rebuilt from Postgres, the stock still leaves out the sold tickets
+        stringRedisTemplate.delete(stockKey());
+        reserve(1);
+        assertEquals(TOTAL_TICKETS - 3 - 1, generalAdmissionInventory.availableQuantity(ticketType.getId()));
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void expiry_shouldReturnTheHeldTicketsToStock() {
+        ReservationResponse reservation = reserve(4);
+        reservationDeadlineQueue.schedule(reservation.getReservationId(), Instant.now().minusSeconds(1));
+
+        reservationExpiryScheduler.releaseExpiredReservations();
+
+        assertEquals(TOTAL_TICKETS, generalAdmissionInventory.availableQuantity(ticketType.getId()));
+        assertEquals(false, stringRedisTemplate.hasKey("ReservationHold:" + reservation.getReservationId()));
+        assertThat(liveHolds()).isEmpty();
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void initialisation_shouldSubtractLiveHolds_andForgetHoldsThatExpiredWithoutARelease() {
+        ReservationResponse live = reserve(4);
+        ReservationResponse lost = reserve(2);
+        // The second hold expired and its release never ran
+        stringRedisTemplate.delete("ReservationHold:" + lost.getReservationId());
+        stringRedisTemplate.opsForZSet().add(stockKey() + ":holds:expiry", lost.getReservationId(), 0);
+
+        stringRedisTemplate.delete(stockKey());
+        reserve(1);
+
+        assertEquals(TOTAL_TICKETS - 4 - 1, generalAdmissionInventory.availableQuantity(ticketType.getId()));
+        assertThat(liveHolds()).containsKey(live.getReservationId()).doesNotContainKey(lost.getReservationId());
+    }
+
+    private ReservationResponse reserve(int quantity) {
+        ReservationRequest request = new ReservationRequest();
+        request.setEventId(event.getId());
+        request.setTicketTypeId(ticketType.getId());
+        request.setQuantity(quantity);
+        return reservationService.createReservation(request);
+    }
+
+    private String stockKey() {
+        return "TicketStock:" + ticketType.getId();
+    }
+
+    private Map<Object, Object> liveHolds() {
+        return stringRedisTemplate.opsForHash().entries(stockKey() + ":holds");
+    }
+}
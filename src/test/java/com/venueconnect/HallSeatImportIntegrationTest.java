@@ -0,0 +1,164 @@
+package com.venueconnect;
+
+import com.venueconnect.event.EventRepository;
+import com.venueconnect.event.EventSeatRepository;
+import com.venueconnect.event.TicketTypeRepository;
+import com.venueconnect.order.OrderRepository;
+import com.venueconnect.venue.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HallSeatImportIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired private HallSeatImportService hallSeatImportService;
+
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private VenueRepository venueRepository;
+    @Autowired private HallRepository hallRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private EventRepository eventRepository;
+    @Autowired private TicketTypeRepository ticketTypeRepository;
+    @Autowired private EventSeatRepository eventSeatRepository;
+
+    private Hall hall;
+    private int batchSize;
+    private int maxReportedRejects;
+
+    @BeforeEach
+    void setUpTestData() {
+        orderRepository.deleteAll();
+        eventSeatRepository.deleteAll();
+        ticketTypeRepository.deleteAll();
+        eventRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        venueRepository.deleteAll();
+
+        Venue venue = venueRepository.save(Venue.builder().name("Import Venue").build());
+        hall = hallRepository.save(Hall.builder().name("Import Hall").venue(venue).build());
+        batchSize = (int) ReflectionTestUtils.getField(hallSeatImportService, "batchSize");
+        maxReportedRejects = (int) ReflectionTestUtils.getField(hallSeatImportService, "maxReportedRejects");
+    }
+
+    @AfterEach
+    void restoreSettings() {
+        ReflectionTestUtils.setField(hallSeatImportService, "batchSize", batchSize);
+        ReflectionTestUtils.setField(hallSeatImportService, "maxReportedRejects", maxReportedRejects);
+    }
+
+    @Test
+    void importSeats_shouldReadCsv_skippingTheHeaderAndBlankLines() {
+        SeatImportResult result = importSeats(HallSeatImportService.Format.CSV, """
+                row,number,category
+                A,1,PREMIUM
+
+                A,2
+                "Balcony, left","3","STANDARD \"\"B\"\""
+                """);
+
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(3, result.getCapacity());
+        assertThat(seatRepository.findAll())
+                .extracting(Seat::getSeatRow, Seat::getSeatNumber, Seat::getSeatCategory)
+                .containsExactlyInAnyOrder(
+                        tuple("A", "1", "PREMIUM"),
+                        tuple("A", "2", null),
+                        tuple("Balcony, left", "3", "STANDARD \"B\""));
+    }
+
+    @Test
+    void importSeats_shouldImportTheFirstCsvLine_whenItIsNotAHeader() {
+        SeatImportResult result = importSeats(HallSeatImportService.Format.CSV, "A,1\r\nA,2\r\n");
+
+        assertEquals(2, result.getImported());
+        assertThat(seatRepository.findAll()).extracting(Seat::getSeatNumber).containsExactlyInAnyOrder("1", "2");
+    }
+
+    @Test
+    void importSeats_shouldReadNdjson_andRejectMalformedLines() {
+        SeatImportResult result = importSeats(HallSeatImportService.Format.NDJSON, """
+                {"row":"A","number":"1","category":"PREMIUM"}
+                {"seatRow":"A","seatNumber":"2"}
+                {"row":"A","number":
+                {"row":"A"}
+                """);
+
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertThat(result.getRejects()).extracting(SeatImportResult.Reject::getLine).containsExactly(3L, 4L);
+        assertThat(result.getRejects().get(0).getReason()).startsWith("Malformed JSON");
+        assertEquals("Row and number are required", result.getRejects().get(1).getReason());
+    }
+
+    @Test
+    void importSeats_shouldRejectDuplicates_withinABatchAndAgainstTheHallsSeats() {
+        seatRepository.save(Seat.builder().hall(hall).seatRow("A").seatNumber("1").build());
+        ReflectionTestUtils.setField(hallSeatImportService, "batchSize", 3);
+
+        // Line 2 is already in the hall, line 3 repeats a seat of its own batch and line 5 one of an earlier batch
+        SeatImportResult result = importSeats(HallSeatImportService.Format.CSV, """
+                A,2
+                A,1
+                A,2
+                A,3
+                A,3
+                A,4
+                """);
+
+        assertEquals(3, result.getImported());
+        assertEquals(3, result.getRejected());
+        assertThat(result.getRejects())
+                .extracting(SeatImportResult.Reject::getLine, SeatImportResult.Reject::getSeatNumber, SeatImportResult.Reject::getReason)
+                .containsExactlyInAnyOrder(
+                        tuple(2L, "1", "Seat already exists in hall (uq_hall_seat)"),
+                        tuple(3L, "2", "Duplicate seat in layout"),
+                        tuple(5L, "3", "Seat already exists in hall (uq_hall_seat)"));
+        assertEquals(4, result.getCapacity());
+        assertEquals(4, hallRepository.findById(hall.getId()).orElseThrow().getCapacity());
+    }
+
+    @Test
+    void importSeats_shouldCountEveryReject_butReportOnlyTheFirst() {
+        ReflectionTestUtils.setField(hallSeatImportService, "maxReportedRejects", 2);
+
+        SeatImportResult result = importSeats(HallSeatImportService.Format.CSV, """
+                A
+                B
+                C
+                D,1
+                """);
+
+        assertEquals(1, result.getImported());
+        assertEquals(3, result.getRejected());
+        assertThat(result.getRejects()).extracting(SeatImportResult.Reject::getLine).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void importSeats_shouldRejectAnOverlongLine_andCarryOnWithTheNext() {
+        String overlong = "A," + "9".repeat(100_000);
+
+        SeatImportResult result = importSeats(HallSeatImportService.Format.CSV, "A,1\n" + overlong + "\nA,2\n");
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertThat(result.getRejects().get(0).getLine()).isEqualTo(2L);
+        assertThat(result.getRejects().get(0).getReason()).startsWith("Line longer than");
+        assertThat(seatRepository.findAll()).extracting(Seat::getSeatNumber).containsExactlyInAnyOrder("1", "2");
+    }
+
+    private SeatImportResult importSeats(HallSeatImportService.Format format, String body) {
+        return hallSeatImportService.importSeats(hall.getId(), format,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
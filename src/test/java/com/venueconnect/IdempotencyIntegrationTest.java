@@ -0,0 +1,265 @@
+package com.venueconnect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venueconnect.event.*;
+import com.venueconnect.idempotency.IdempotencyService;
+import com.venueconnect.kafka.KafkaProducerService;
+import com.venueconnect.order.OrderRepository;
+import com.venueconnect.order.OrderResponse;
+import com.venueconnect.order.PaymentRequest;
+import com.venueconnect.reservation.ReservationRequest;
+import com.venueconnect.reservation.ReservationResponse;
+import com.venueconnect.user.User;
+import com.venueconnect.user.UserRepository;
+import com.venueconnect.venue.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class IdempotencyIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private IdempotencyService idempotencyService;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private VenueRepository venueRepository;
+    @Autowired private HallRepository hallRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private EventRepository eventRepository;
+    @Autowired private TicketTypeRepository ticketTypeRepository;
+    @Autowired private EventSeatRepository eventSeatRepository;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private StringRedisTemplate stringRedisTemplate;
+
+    @MockBean private KafkaProducerService kafkaProducerService;
+
+    private User testUser;
+    private Event testEvent;
+    private EventSeat seat1;
+    private EventSeat seat2;
+
+    @BeforeEach
+    @Sql("/sql/insert-test-user.sql")
+    void setUpTestData() {
+        orderRepository.deleteAll();
+        eventSeatRepository.deleteAll();
+        ticketTypeRepository.deleteAll();
+        eventRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        venueRepository.deleteAll();
+
+        when(kafkaProducerService.sendAuditEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducerService.sendAnalyticsEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        testUser = userRepository.findByEmail("testuser@example.com").orElseThrow(() -> new IllegalStateException("Test user not found"));
+        Venue venue = venueRepository.save(Venue.builder().name("Test Venue").build());
+        Hall hall = hallRepository.save(Hall.builder().name("Test Hall").venue(venue).build());
+        testEvent = eventRepository.save(Event.builder()
+                .name("Test Event")
+                .hall(hall)
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(2))
+                .build());
+        TicketType ticketType = ticketTypeRepository.save(TicketType.builder()
+                .event(testEvent).name("Standard").price(BigDecimal.TEN).totalQuantity(100).build());
+        seat1 = eventSeatRepository.save(EventSeat.builder()
+                .event(testEvent).ticketType(ticketType).status(SeatStatus.AVAILABLE)
+                .seat(seatRepository.save(Seat.builder().hall(hall).seatRow("A").seatNumber("1").build())).build());
+        seat2 = eventSeatRepository.save(EventSeat.builder()
+                .event(testEvent).ticketType(ticketType).status(SeatStatus.AVAILABLE)
+                .seat(seatRepository.save(Seat.builder().hall(hall).seatRow("A").seatNumber("2").build())).build());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void reserve_shouldReplayTheFirstResponse_whenTheKeyIsReused() throws Exception {
+        String key = UUID.randomUUID().toString();
+        ReservationRequest request = new ReservationRequest(testEvent.getId(), List.of(seat1.getId()));
+
+        ReservationResponse first = read(reserve(key, request).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER)).andReturn(), ReservationResponse.class);
+        ReservationResponse retry = read(reserve(key, request).andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true")).andReturn(), ReservationResponse.class);
+
+        assertEquals(first.getReservationId(), retry.getReservationId());
+        EventSeat seatAfter = eventSeatRepository.findById(seat1.getId()).orElseThrow();
+        assertEquals(SeatStatus.RESERVED, seatAfter.getStatus());
+        assertEquals(first.getReservationId(), seatAfter.getReservationId());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void reserve_shouldAnswer422_whenTheKeyIsReusedForADifferentRequest() throws Exception {
+        String key = UUID.randomUUID().toString();
+        reserve(key, new ReservationRequest(testEvent.getId(), List.of(seat1.getId()))).andExpect(status().isOk());
+
+        reserve(key, new ReservationRequest(testEvent.getId(), List.of(seat2.getId())))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(SeatStatus.AVAILABLE, eventSeatRepository.findById(seat2.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void pay_shouldCreateOneOrder_whenTheKeyIsReused() throws Exception {
+        ReservationResponse reservation = read(reserve(null,
+                new ReservationRequest(testEvent.getId(), List.of(seat1.getId(), seat2.getId())))
+                .andExpect(status().isOk()).andReturn(), ReservationResponse.class);
+        String key = UUID.randomUUID().toString();
+        PaymentRequest request = new PaymentRequest(reservation.getReservationId(), "MOCK_PAYMENT");
+
+        OrderResponse first = read(pay(key, request).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER)).andReturn(), OrderResponse.class);
+        OrderResponse retry = read(pay(key, request).andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true")).andReturn(), OrderResponse.class);
+
+        assertEquals(first.getOrderId(), retry.getOrderId());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void execute_shouldMakeADuplicateWaitForTheRequestInFlight() throws Exception {
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        DelegatingSecurityContextExecutor executor = new DelegatingSecurityContextExecutor(threads);
+        try {
+            CompletableFuture<IdempotencyService.Result<String>> original = CompletableFuture.supplyAsync(() ->
+                    idempotencyService.execute(key, "test", "body", String.class, () -> {
+                        runs.incrementAndGet();
+                        started.countDown();
+                        await(finish);
+                        return "done";
+                    }), executor);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<IdempotencyService.Result<String>> duplicate = CompletableFuture.supplyAsync(() ->
+                    idempotencyService.execute(key, "test", "body", String.class, () -> {
+                        runs.incrementAndGet();
+                        return "ran again";
+                    }), executor);
+            Thread.sleep(300);
+            assertFalse(duplicate.isDone(), "The duplicate must wait for the original's response");
+
+            finish.countDown();
+            assertFalse(original.get(5, TimeUnit.SECONDS).replayed());
+            IdempotencyService.Result<String> replayed = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals("done", replayed.body());
+            assertTrue(replayed.replayed());
+            assertEquals(1, runs.get());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void execute_shouldLetTheClientRetry_whenTheRequestFailed() {
+        String key = UUID.randomUUID().toString();
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(key, "test", "body", String.class, () -> {
+            throw new IllegalStateException("Seats are gone");
+        }));
+
+        IdempotencyService.Result<String> retry = idempotencyService.execute(key, "test", "body", String.class, () -> "done");
+        assertEquals("done", retry.body());
+        assertFalse(retry.replayed(), "The failed attempt must not leave a claim or a response behind");
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void execute_shouldKeepTheClaim_whileTheRequestRunsLongerThanItsTtl() {
+        String key = UUID.randomUUID().toString();
+        String redisKey = "Idempotency:" + testUser.getId() + ":test:" + key;
+        long inFlightTtlSeconds = (long) ReflectionTestUtils.getField(idempotencyService, "inFlightTtlSeconds");
+        ReflectionTestUtils.setField(idempotencyService, "inFlightTtlSeconds", 1L);
+        try {
+            idempotencyService.execute(key, "test", "body", String.class, () -> {
+                sleep(2500);
+                assertEquals(Boolean.TRUE, stringRedisTemplate.hasKey(redisKey), "The claim expired while its request ran");
+                return "done";
+            });
+        } finally {
+            ReflectionTestUtils.setField(idempotencyService, "inFlightTtlSeconds", inFlightTtlSeconds);
+        }
+
+        // The stored response, not the claim, answers the retry
+        IdempotencyService.Result<String> retry = idempotencyService.execute(key, "test", "body", String.class, () -> "ran again");
+        assertEquals("done", retry.body());
+        assertTrue(retry.replayed());
+    }
+
+    private ResultActions reserve(String idempotencyKey, ReservationRequest request) throws Exception {
+        var builder = post("/api/v1/reservations/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request));
+        if (idempotencyKey != null) {
+            builder.header(IdempotencyService.HEADER, idempotencyKey);
+        }
+        return mockMvc.perform(builder);
+    }
+
+    private ResultActions pay(String idempotencyKey, PaymentRequest request) throws Exception {
+        return mockMvc.perform(post("/api/v1/orders/pay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyService.HEADER, idempotencyKey)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private <T> T read(MvcResult result, Class<T> type) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsString(), type);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
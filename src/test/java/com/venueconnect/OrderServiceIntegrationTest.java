@@ -1,23 +1,32 @@
 package com.venueconnect;
 
 
+import com.venueconnect.admin.AdminService;
+import com.venueconnect.config.BookingShardRouter;
 import com.venueconnect.config.RabbitMQConfig;
 import com.venueconnect.event.*;
 import com.venueconnect.kafka.KafkaProducerService;
 import com.venueconnect.kafka.OrderEventPayload;
 import com.venueconnect.order.*;
 import com.venueconnect.reservation.Reservation;
+import com.venueconnect.reservation.ReservationDeadlineQueue;
+import com.venueconnect.reservation.ReservationExpiryScheduler;
 
 import com.venueconnect.user.User;
 import com.venueconnect.user.UserRepository;
 import com.venueconnect.venue.*;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.amqp.rabbit.core.RabbitTemplate; // Correct import
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.transaction.annotation.Transactional; // Import Transactional
@@ -25,20 +34,31 @@ import org.springframework.transaction.annotation.Transactional; // Import Trans
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat; // Use specific import
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 
 class OrderServiceIntegrationTest extends BaseIntegrationTest {
 
     @Autowired private OrderService orderService;
+    @Autowired private OrderHistoryService orderHistoryService;
+    @Autowired private AdminService adminService;
+    @Autowired private PaymentReconciliationScheduler paymentReconciliationScheduler;
 
     // Repositories
     @Autowired private UserRepository userRepository;
@@ -51,12 +71,20 @@ class OrderServiceIntegrationTest extends BaseIntegrationTest {
     @Autowired private OrderRepository orderRepository;
 
     @Autowired private RedisTemplate<String, Object> redisTemplate;
+    @Autowired private StringRedisTemplate stringRedisTemplate;
+    @Autowired private ReservationDeadlineQueue reservationDeadlineQueue;
+    @Autowired private ReservationExpiryScheduler reservationExpiryScheduler;
     @Autowired private RabbitTemplate rabbitTemplate;
+    @Autowired private RabbitListenerEndpointRegistry rabbitListenerEndpointRegistry;
+    @Autowired private BookingShardRouter bookingShardRouter;
+    @Autowired private EntityManagerFactory entityManagerFactory;
 
     @MockBean private KafkaProducerService kafkaProducerService;
 
     private User testUser;
     private Event testEvent;
+    private Hall testHall;
+    private TicketType testTicketType;
     private EventSeat reservedSeat1;
     private EventSeat reservedSeat2;
     private String testReservationId;
@@ -75,12 +103,17 @@ class OrderServiceIntegrationTest extends BaseIntegrationTest {
         venueRepository.deleteAll();
         redisTemplate.delete(redisTemplate.keys("Reservation:*"));
 
+        // The relay deletes an outbox row only once Kafka acknowledged it
+        when(kafkaProducerService.sendAuditEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducerService.sendAnalyticsEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
         // Fetch the user created by @Sql
         testUser = userRepository.findByEmail("testuser@example.com").orElseThrow(() -> new IllegalStateException("Test user not found"));
 
         // Create Venue, Hall, Seats
         Venue venue = venueRepository.save(Venue.builder().name("Test Venue").build());
         Hall hall = hallRepository.save(Hall.builder().name("Test Hall").venue(venue).build());
+        testHall = hall;
         Seat seat1 = seatRepository.save(Seat.builder().hall(hall).seatRow("A").seatNumber("1").build());
         Seat seat2 = seatRepository.save(Seat.builder().hall(hall).seatRow("A").seatNumber("2").build());
 
@@ -97,6 +130,7 @@ class OrderServiceIntegrationTest extends BaseIntegrationTest {
                 .price(BigDecimal.TEN)
                 .totalQuantity(100)
                 .build());
+        testTicketType = ticketType;
 
         // Simulate Reservation
         testReservationId = UUID.randomUUID().toString();
@@ -111,6 +145,7 @@ class OrderServiceIntegrationTest extends BaseIntegrationTest {
                 .status("PENDING").createdAt(Instant.now()).build();
         String redisKey = REDIS_KEY_PREFIX + testReservationId;
         redisTemplate.opsForValue().set(redisKey, reservation, 15, TimeUnit.MINUTES);
+        reservationDeadlineQueue.schedule(testReservationId, Instant.now().plus(15, ChronoUnit.MINUTES));
     }
 
     @Test
@@ -162,28 +197,281 @@ class OrderServiceIntegrationTest extends BaseIntegrationTest {
         Boolean keyExists = redisTemplate.hasKey(redisKey);
         assertEquals(false, keyExists, "Reservation key should be deleted from Redis");
 
-        // 5. Verify RabbitMQ message was consumed (queue is empty)
-        Long messageCount = rabbitTemplate.execute(channel -> channel.messageCount(RabbitMQConfig.BOOKING_QUEUE_NAME));
+        // 5. Verify RabbitMQ message was consumed (the event's queue shard is empty)
+        String bookingQueue = RabbitMQConfig.bookingQueueName(bookingShardRouter.shardFor(testEvent.getId()));
+        Long messageCount = rabbitTemplate.execute(channel -> channel.messageCount(bookingQueue));
         assertNotNull(messageCount, "Could not get message count");
         assertEquals(0L, messageCount.longValue(), "Booking queue should be empty after worker processing");
 
         // 6. Verify Kafka messages sent (using Mockito)
         // Verify OrderService sent PAYMENT_COMPLETE events
         verify(kafkaProducerService, timeout(1000).times(1)).sendAuditEvent(
+                eq(savedOrder.getId().toString()),
                 argThat(payload -> payload instanceof OrderEventPayload &&
                         ((OrderEventPayload) payload).getOrderId().equals(savedOrder.getId()) &&
                         ((OrderEventPayload) payload).getOrderStatus() == OrderStatus.PAYMENT_COMPLETE)
         );
         verify(kafkaProducerService, timeout(1000).times(1)).sendAnalyticsEvent(
+                eq(savedOrder.getId().toString()),
                 argThat(payload -> payload instanceof OrderEventPayload &&
                         ((OrderEventPayload) payload).getOrderId().equals(savedOrder.getId()) &&
                         ((OrderEventPayload) payload).getOrderStatus() == OrderStatus.PAYMENT_COMPLETE)
         );
         // Verify BookingWorker sent CONFIRMED analytics event
         verify(kafkaProducerService, timeout(3000).times(1)).sendAnalyticsEvent( // Slightly longer timeout
+                eq(savedOrder.getId().toString()),
                 argThat(payload -> payload instanceof OrderEventPayload &&
                         ((OrderEventPayload) payload).getOrderId().equals(savedOrder.getId()) &&
                         ((OrderEventPayload) payload).getOrderStatus() == OrderStatus.CONFIRMED)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void createOrder_shouldRunTheSameQueries_whateverTheSeatCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        // Keep the booking worker from adding its own queries to the (global) statistics
+        rabbitListenerEndpointRegistry.stop();
+        try {
+            // 2-seat order
+            statistics.clear();
+            orderService.createOrder(new PaymentRequest(testReservationId, "MOCK_PAYMENT"));
+            long twoSeatQueries = statistics.getQueryExecutionCount();
+            assertEquals(0, statistics.getEntityFetchCount(), "No seat, ticket type or price should be lazily loaded");
+
+            // 10-seat order
+            String largeReservationId = reserveSeats(10);
+            statistics.clear();
+            OrderResponse response = orderService.createOrder(new PaymentRequest(largeReservationId, "MOCK_PAYMENT"));
+            assertThat(response.getItems()).hasSize(10);
+            assertEquals(twoSeatQueries, statistics.getQueryExecutionCount());
+            assertEquals(0, statistics.getEntityFetchCount(), "No seat, ticket type or price should be lazily loaded");
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            rabbitListenerEndpointRegistry.start();
+        }
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void createOrder_shouldNeverSellSeatsTheSweeperReleased_whenBothRaceForAnExpiredReservation() throws Exception {
+        // The reservation is past its deadline: the sweeper and the payment both try to take it
+        reservationDeadlineQueue.schedule(testReservationId, Instant.now().minusSeconds(1));
+        rabbitListenerEndpointRegistry.stop();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            CompletableFuture<Void> sweep = CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                reservationExpiryScheduler.releaseExpiredReservations();
+            });
+
+            OrderResponse response = null;
+            start.countDown();
+            try {
+                response = orderService.createOrder(new PaymentRequest(testReservationId, "MOCK_PAYMENT"));
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage()).contains("expired");
+            }
+            sweep.get(10, TimeUnit.SECONDS);
+
+            // Exactly one of them owns the reservation
+            SeatStatus seatStatus = eventSeatRepository.findById(reservedSeat1.getId()).orElseThrow().getStatus();
+            if (response != null) {
+                assertNotEquals(SeatStatus.AVAILABLE, seatStatus, "The sweeper must not release seats of an order");
+                assertEquals(1, orderRepository.count());
+            } else {
+                assertEquals(SeatStatus.AVAILABLE, seatStatus);
+                assertEquals(0, orderRepository.count(), "No order may be created for released seats");
+            }
+            assertNull(stringRedisTemplate.opsForZSet().score("ReservationDeadlines", testReservationId));
+        } finally {
+            rabbitListenerEndpointRegistry.start();
+        }
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void createOrder_shouldPutTheDeadlineBack_whenTheOrderRollsBack() {
+        // One of the reserved seats was lost, so creating the order fails after its deadline was taken
+        reservedSeat2.setStatus(SeatStatus.AVAILABLE);
+        eventSeatRepository.save(reservedSeat2);
+
+        assertThrows(IllegalStateException.class,
+                () -> orderService.createOrder(new PaymentRequest(testReservationId, "MOCK_PAYMENT")));
+
+        assertEquals(0, orderRepository.count());
+        assertNotNull(stringRedisTemplate.opsForZSet().score("ReservationDeadlines", testReservationId),
+                "The sweeper must still release the reservation");
+        assertEquals(true, redisTemplate.hasKey(REDIS_KEY_PREFIX + testReservationId));
+    }
+
+    @Test
+    void reconcileStalePayments_shouldFailAndReleaseAnOrderTheGatewayNeverCharged() {
+        // The node died between storing the order and charging it: the order holds the seats, nothing was charged
+        Order order = Order.builder()
+                .user(testUser)
+                .status(OrderStatus.PAYMENT_PENDING)
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .reservationId(testReservationId)
+                .totalAmount(new BigDecimal("20.00"))
+                .build();
+        order.setOrderItems(new ArrayList<>(List.of(
+                OrderItem.builder().order(order).eventSeat(reservedSeat1).ticketType(testTicketType).price(BigDecimal.TEN).build(),
+                OrderItem.builder().order(order).eventSeat(reservedSeat2).ticketType(testTicketType).price(BigDecimal.TEN).build())));
+        Order pendingOrder = orderRepository.save(order);
+
+        paymentReconciliationScheduler.reconcileStalePayments();
+
+        assertEquals(OrderStatus.FAILED, orderRepository.findById(pendingOrder.getId()).orElseThrow().getStatus());
+        assertEquals(SeatStatus.AVAILABLE, eventSeatRepository.findById(reservedSeat1.getId()).orElseThrow().getStatus());
+        assertEquals(SeatStatus.AVAILABLE, eventSeatRepository.findById(reservedSeat2.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void getMyOrders_shouldPageNewestFirstWithTheSameQueriesPerPage() {
+        // Two orders share a timestamp, so the page boundary has to fall back on the id
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Order oldest = saveOrder(now.minusMinutes(2), reservedSeat1);
+        Order tiedFirst = saveOrder(now.minusMinutes(1), null);
+        Order tiedSecond = saveOrder(now.minusMinutes(1), null);
+        Order newest = saveOrder(now, reservedSeat2);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        rabbitListenerEndpointRegistry.stop();
+        try {
+            statistics.clear();
+            OrderPageResponse firstPage = orderHistoryService.getMyOrders(null, 2);
+            long firstPageQueries = statistics.getQueryExecutionCount();
+            assertThat(firstPage.getOrders()).extracting(OrderResponse::getOrderId)
+                    .containsExactly(newest.getId(), tiedSecond.getId());
+            assertNotNull(firstPage.getNextCursor());
+            OrderItemResponse seatedItem = firstPage.getOrders().get(0).getItems().get(0);
+            assertEquals(reservedSeat2.getId(), seatedItem.getEventSeatId());
+            assertEquals("A", seatedItem.getSeatRow());
+            assertEquals("Test Event", seatedItem.getEventName());
+
+            statistics.clear();
+            OrderPageResponse secondPage = orderHistoryService.getMyOrders(firstPage.getNextCursor(), 2);
+            assertThat(secondPage.getOrders()).extracting(OrderResponse::getOrderId)
+                    .containsExactly(tiedFirst.getId(), oldest.getId());
+            assertEquals(firstPageQueries, statistics.getQueryExecutionCount());
+            assertEquals(0, statistics.getEntityFetchCount(), "Items, seats and events come from projections");
+            assertNull(secondPage.getNextCursor(), "The second page holds the last orders");
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            rabbitListenerEndpointRegistry.start();
+        }
+    }
+
+    @Test
+    void getAllOrders_shouldKeepTheSeatOfAnItemWhoseEventSeatWasArchived() {
+        Order order = saveOrder(LocalDateTime.now(), reservedSeat1);
+        // Detaching the event's partition leaves the item pointing at a seat row that no longer exists
+        eventSeatRepository.deleteById(reservedSeat1.getId());
+
+        List<OrderResponse> orders = adminService.getAllOrders();
+
+        OrderItemResponse item = orders.stream()
+                .filter(response -> response.getOrderId().equals(order.getId()))
+                .findFirst().orElseThrow()
+                .getItems().get(0);
+        assertEquals(reservedSeat1.getId(), item.getEventSeatId());
+        assertEquals("A", item.getSeatRow());
+        assertEquals("1", item.getSeatNumber());
+    }
+
+    @Test
+    void bookingWorker_shouldDeadLetterOnlyTheBadMessage_whenItsBatchFails() {
+        String bookingQueue = RabbitMQConfig.bookingQueueName(bookingShardRouter.shardFor(testEvent.getId()));
+        rabbitTemplate.execute(channel -> channel.queuePurge(RabbitMQConfig.BOOKING_DLQ_NAME));
+        Order firstOrder = savePaidOrder(testReservationId, List.of(reservedSeat1, reservedSeat2));
+        String secondReservationId = reserveSeats(1);
+        Order secondOrder = savePaidOrder(secondReservationId,
+                eventSeatRepository.findByReservationIdWithDetails(secondReservationId));
+        long missingOrderId = secondOrder.getId() + 1000;
+
+        // Queue the three confirmations while the worker is stopped so they arrive as one batch
+        rabbitListenerEndpointRegistry.stop();
+        try {
+            for (BookingConfirmationMessage message : List.of(
+                    new BookingConfirmationMessage(firstOrder.getId(), testReservationId, testEvent.getId()),
+                    new BookingConfirmationMessage(missingOrderId, "missing", testEvent.getId()),
+                    new BookingConfirmationMessage(secondOrder.getId(), secondReservationId, testEvent.getId()))) {
+                rabbitTemplate.convertAndSend(RabbitMQConfig.BOOKING_EXCHANGE_NAME,
+                        bookingShardRouter.routingKeyFor(testEvent.getId()), message);
+            }
+        } finally {
+            rabbitListenerEndpointRegistry.start();
+        }
+
+        Object deadLettered = rabbitTemplate.receiveAndConvert(RabbitMQConfig.BOOKING_DLQ_NAME, 10_000);
+        assertThat(deadLettered).isInstanceOf(BookingConfirmationMessage.class);
+        assertEquals(missingOrderId, ((BookingConfirmationMessage) deadLettered).getOrderId());
+        assertEquals(OrderStatus.CONFIRMED, orderRepository.findById(firstOrder.getId()).orElseThrow().getStatus());
+        assertEquals(OrderStatus.CONFIRMED, orderRepository.findById(secondOrder.getId()).orElseThrow().getStatus());
+        assertEquals(0L, rabbitTemplate.execute(channel -> channel.messageCount(bookingQueue)).longValue());
+        assertNull(rabbitTemplate.receive(RabbitMQConfig.BOOKING_DLQ_NAME), "Only the bad message is dead-lettered");
+    }
+
+    // Stores a confirmed order of one ticket (seated when eventSeat is given) for the test user
+    private Order saveOrder(LocalDateTime createdAt, EventSeat eventSeat) {
+        Order order = Order.builder()
+                .user(testUser)
+                .status(OrderStatus.CONFIRMED)
+                .createdAt(createdAt)
+                .totalAmount(BigDecimal.TEN)
+                .build();
+        order.setOrderItems(new ArrayList<>(List.of(OrderItem.builder()
+                .order(order).eventSeat(eventSeat).ticketType(testTicketType).price(BigDecimal.TEN)
+                .seatRow(eventSeat != null ? eventSeat.getSeat().getSeatRow() : null)
+                .seatNumber(eventSeat != null ? eventSeat.getSeat().getSeatNumber() : null)
+                .build())));
+        return orderRepository.save(order);
+    }
+
+    // Stores a paid order for the seats of a reservation, as createOrder leaves it for the booking worker
+    private Order savePaidOrder(String reservationId, List<EventSeat> eventSeats) {
+        Order order = Order.builder()
+                .user(testUser)
+                .status(OrderStatus.PAYMENT_COMPLETE)
+                .reservationId(reservationId)
+                .createdAt(LocalDateTime.now())
+                .totalAmount(BigDecimal.TEN.multiply(BigDecimal.valueOf(eventSeats.size())))
+                .build();
+        List<OrderItem> items = new ArrayList<>();
+        for (EventSeat eventSeat : eventSeats) {
+            items.add(OrderItem.builder()
+                    .order(order).eventSeat(eventSeat).ticketType(testTicketType).price(BigDecimal.TEN)
+                    .seatRow(eventSeat.getSeat().getSeatRow()).seatNumber(eventSeat.getSeat().getSeatNumber())
+                    .build());
+        }
+        order.setOrderItems(items);
+        return orderRepository.save(order);
+    }
+
+    // Creates a reservation of `count` new seats, as ReservationService would leave it
+    private String reserveSeats(int count) {
+        String reservationId = UUID.randomUUID().toString();
+        List<EventSeat> eventSeats = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Seat seat = seatRepository.save(Seat.builder().hall(testHall).seatRow("B").seatNumber(String.valueOf(i + 1)).build());
+            eventSeats.add(EventSeat.builder()
+                    .event(testEvent).seat(seat).ticketType(testTicketType)
+                    .status(SeatStatus.RESERVED).reservationId(reservationId).build());
+        }
+        eventSeatRepository.saveAll(eventSeats);
+        Reservation reservation = Reservation.builder()
+                .id(reservationId).userId(testUser.getId()).eventId(testEvent.getId())
+                .status("PENDING").createdAt(Instant.now()).build();
+        redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + reservationId, reservation, 15, TimeUnit.MINUTES);
+        reservationDeadlineQueue.schedule(reservationId, Instant.now().plus(15, ChronoUnit.MINUTES));
+        return reservationId;
+    }
+}
@@ -0,0 +1,120 @@
+package com.venueconnect;
+
+import com.venueconnect.security.JwtService;
+import com.venueconnect.security.RateLimitProperties;
+import com.venueconnect.user.Role;
+import com.venueconnect.user.User;
+import com.venueconnect.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@AutoConfigureMockMvc
+class RateLimitIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private RateLimitProperties rateLimitProperties;
+    @Autowired private JwtService jwtService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private StringRedisTemplate stringRedisTemplate;
+
+    private List<RateLimitProperties.Route> configuredRoutes;
+    private String aliceToken;
+    private String bobToken;
+
+    @BeforeEach
+    void setUpTestData() {
+        stringRedisTemplate.delete(stringRedisTemplate.keys("RateLimit:*"));
+
+        // Small buckets that barely refill, so the tests never race the refill
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName("test");
+        route.setMethod("POST");
+        route.setPattern("/api/v1/orders/**");
+        route.setUserCapacity(1);
+        route.setUserRefillPerSecond(0.01);
+        route.setIpCapacity(3);
+        route.setIpRefillPerSecond(0.01);
+        configuredRoutes = rateLimitProperties.getRoutes();
+        rateLimitProperties.setRoutes(List.of(route));
+
+        aliceToken = jwtService.generateToken(saveUser("alice@example.com"));
+        bobToken = jwtService.generateToken(saveUser("bob@example.com"));
+    }
+
+    @AfterEach
+    void restoreRoutes() {
+        rateLimitProperties.setRoutes(configuredRoutes);
+        stringRedisTemplate.delete(stringRedisTemplate.keys("RateLimit:*"));
+    }
+
+    @Test
+    void shouldAnswer429WithRetryAfter_onceTheIpBucketIsEmpty() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(HttpStatus.TOO_MANY_REQUESTS.value(), pay("10.0.0.1", null).getResponse().getStatus());
+        }
+
+        MvcResult rejected = pay("10.0.0.1", null);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getResponse().getStatus());
+        // One token at 0.01 per second is 100 seconds away
+        long retryAfter = Long.parseLong(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+        assertThat(retryAfter).isBetween(1L, 100L);
+        assertThat(rejected.getResponse().getContentAsString()).contains("429");
+
+        // Another client IP has a bucket of its own
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS.value(), pay("10.0.0.2", null).getResponse().getStatus());
+    }
+
+    @Test
+    void shouldLimitEachUserSeparately_fromTheSameIp() throws Exception {
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS.value(), pay("10.0.0.3", aliceToken).getResponse().getStatus());
+
+        MvcResult rejected = pay("10.0.0.3", aliceToken);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getResponse().getStatus());
+        assertThat(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+
+        // Alice's empty bucket holds back neither another user nor anonymous callers behind the same IP
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS.value(), pay("10.0.0.3", bobToken).getResponse().getStatus());
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS.value(), pay("10.0.0.3", null).getResponse().getStatus());
+    }
+
+    // A malformed payment: the rate limit decides first, then the request fails cleanly with 400 (or 401/403 anonymously)
+    private MvcResult pay(String clientIp, String token) throws Exception {
+        MockHttpServletRequestBuilder builder = post("/api/v1/orders/pay")
+                .with(request -> {
+                    request.setRemoteAddr(clientIp);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("not json");
+        if (token != null) {
+            builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return mockMvc.perform(builder).andReturn();
+    }
+
+    private User saveUser(String email) {
+        return userRepository.findByEmail(email).orElseGet(() -> userRepository.save(User.builder()
+                .email(email)
+                .password("password")
+                .role(Role.ROLE_USER)
+                .build()));
+    }
+}
@@ -1,6 +1,8 @@
 package com.venueconnect;
 
 import com.venueconnect.event.*;
+import com.venueconnect.inventory.EventSeatGenerator;
+import com.venueconnect.inventory.SeatGenerationStatus;
 import com.venueconnect.reservation.Reservation;
 import com.venueconnect.reservation.ReservationRequest;
 import com.venueconnect.reservation.ReservationResponse;
@@ -38,6 +40,7 @@ class ReservationServiceIntegrationTest extends BaseIntegrationTest {
     @Autowired private EventRepository eventRepository;
     @Autowired private TicketTypeRepository ticketTypeRepository;
     @Autowired private EventSeatRepository eventSeatRepository;
+    @Autowired private EventSeatGenerator eventSeatGenerator;
 
     @Autowired // Inject RedisTemplate for verification
     private RedisTemplate<String, Object> redisTemplate;
@@ -164,8 +167,60 @@ class ReservationServiceIntegrationTest extends BaseIntegrationTest {
         assertTrue(ttlSeconds > expectedTtlSeconds - 5, "TTL should be close to expected (within 5 seconds)"); // Check lower bound
     }
 
+    @Test
+    @Sql("/sql/insert-test-user.sql")
+    @WithUserDetails("testuser@example.com")
+    void createReservation_shouldReserveNothing_whenAnyRequestedSeatIsTaken() {
+        // --- Arrange --- (seat 1 is already held by someone else)
+        reservationService.createReservation(new ReservationRequest(testEvent.getId(), List.of(availableSeat1.getId())));
+        ReservationRequest request = new ReservationRequest(
+                testEvent.getId(),
+                List.of(availableSeat1.getId(), availableSeat2.getId())
+        );
+
+        // --- Act & Assert ---
+        assertThrows(IllegalStateException.class, () -> reservationService.createReservation(request));
+
+        // Seat 2 must not be left half-reserved by the failed request
+        EventSeat seat2After = eventSeatRepository.findById(availableSeat2.getId()).orElseThrow();
+        assertEquals(SeatStatus.AVAILABLE, seat2After.getStatus());
+        assertNull(seat2After.getReservationId());
+    }
+
+    @Test
+    void generateSeats_shouldUseTheDefaultTicketType_whenNoTicketTypeHasASeatCategory() throws InterruptedException {
+        // --- Arrange --- (a second event in the same hall, with one uncategorised seated ticket type)
+        Event secondEvent = eventRepository.save(Event.builder()
+                .name("Second Event")
+                .hall(testEvent.getHall())
+                .startTime(LocalDateTime.now().plusDays(2))
+                .endTime(LocalDateTime.now().plusDays(2).plusHours(2))
+                .build());
+        TicketType standard = ticketTypeRepository.save(TicketType.builder()
+                .event(secondEvent)
+                .name("Standard")
+                .price(BigDecimal.TEN)
+                .totalQuantity(2)
+                .build());
+
+        // --- Act ---
+        assertTrue(eventSeatGenerator.start(secondEvent.getId()));
+        SeatGenerationStatus status = eventSeatGenerator.status(secondEvent.getId());
+        for (int i = 0; i < 50 && status.getState() != SeatGenerationStatus.State.COMPLETED
+                && status.getState() != SeatGenerationStatus.State.FAILED; i++) {
+            Thread.sleep(100);
+            status = eventSeatGenerator.status(secondEvent.getId());
+        }
+
+        // --- Assert ---
+        assertEquals(SeatGenerationStatus.State.COMPLETED, status.getState(), status.getError());
+        assertEquals(2, status.getGeneratedSeats());
+        List<EventSeat> generated = eventSeatRepository.findByEventIdAndStatus(secondEvent.getId(), SeatStatus.AVAILABLE);
+        assertThat(generated).hasSize(2)
+                .allSatisfy(seat -> assertEquals(standard.getId(), seat.getTicketType().getId()));
+    }
+
     // --- TODO: Add more tests ---
-    // - Test reserving already reserved seat (should fail)
     // - Test reserving seat for wrong event (should fail)
     // - Test reserving non-existent seat (should fail)
 }
\ No newline at end of file
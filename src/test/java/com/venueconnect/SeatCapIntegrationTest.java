@@ -0,0 +1,207 @@
+package com.venueconnect;
+
+import com.venueconnect.event.*;
+import com.venueconnect.kafka.KafkaProducerService;
+import com.venueconnect.order.OrderRepository;
+import com.venueconnect.order.OrderResponse;
+import com.venueconnect.order.OrderService;
+import com.venueconnect.order.PaymentRequest;
+import com.venueconnect.reservation.ReservationDeadlineQueue;
+import com.venueconnect.reservation.ReservationExpiryScheduler;
+import com.venueconnect.reservation.ReservationRequest;
+import com.venueconnect.reservation.ReservationResponse;
+import com.venueconnect.reservation.ReservationService;
+import com.venueconnect.reservation.SeatCapService;
+import com.venueconnect.user.User;
+import com.venueconnect.user.UserRepository;
+import com.venueconnect.venue.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class SeatCapIntegrationTest extends BaseIntegrationTest {
+
+    private static final int CAP = 4;
+
+    @Autowired private SeatCapService seatCapService;
+    @Autowired private ReservationService reservationService;
+    @Autowired private OrderService orderService;
+    @Autowired private ReservationDeadlineQueue reservationDeadlineQueue;
+    @Autowired private ReservationExpiryScheduler reservationExpiryScheduler;
+    @Autowired private RabbitListenerEndpointRegistry rabbitListenerEndpointRegistry;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private VenueRepository venueRepository;
+    @Autowired private HallRepository hallRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private EventRepository eventRepository;
+    @Autowired private TicketTypeRepository ticketTypeRepository;
+    @Autowired private EventSeatRepository eventSeatRepository;
+    @Autowired private StringRedisTemplate stringRedisTemplate;
+
+    @MockBean private KafkaProducerService kafkaProducerService;
+
+    private User testUser;
+    private Event event;
+    private TicketType ticketType;
+
+    @BeforeEach
+    @Sql("/sql/insert-test-user.sql")
+    void setUpTestData() {
+        orderRepository.deleteAll();
+        eventSeatRepository.deleteAll();
+        ticketTypeRepository.deleteAll();
+        eventRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        venueRepository.deleteAll();
+        stringRedisTemplate.delete(stringRedisTemplate.keys("SeatCap*"));
+        stringRedisTemplate.delete(stringRedisTemplate.keys("TicketStock:*"));
+
+        when(kafkaProducerService.sendAuditEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducerService.sendAnalyticsEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        testUser = userRepository.findByEmail("testuser@example.com").orElseThrow(() -> new IllegalStateException("Test user not found"));
+
+        // General-admission tickets keep the reservations free of seat rows
+        Venue venue = venueRepository.save(Venue.builder().name("Cap Venue").build());
+        Hall hall = hallRepository.save(Hall.builder().name("Cap Hall").venue(venue).build());
+        event = eventRepository.save(Event.builder()
+                .name("Cap Event")
+                .hall(hall)
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(2))
+                .build());
+        ticketType = ticketTypeRepository.save(TicketType.builder()
+                .event(event).name("Standing").price(BigDecimal.TEN)
+                .totalQuantity(20).generalAdmission(true).build());
+        seatCapService.setLimit(event.getId(), CAP);
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void createReservation_shouldBeRejected_whenItWouldPassTheCap() {
+        reserve(3);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> reserve(2));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals(3, ticketCount());
+        assertEquals(20 - 3, Integer.parseInt(stringRedisTemplate.opsForValue().get("TicketStock:" + ticketType.getId())));
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void expiry_shouldTakeTheHeldTicketsOffTheCount() {
+        ReservationResponse reservation = reserve(3);
+        reservationDeadlineQueue.schedule(reservation.getReservationId(), Instant.now().minusSeconds(1));
+
+        reservationExpiryScheduler.releaseExpiredReservations();
+
+        assertEquals(0, ticketCount());
+        reserve(CAP);
+        assertEquals(CAP, ticketCount());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void payment_shouldKeepTheTicketsCounted_evenAfterTheReservationsDeadline() {
+        ReservationResponse reservation = reserve(3);
+
+        orderService.createOrder(new PaymentRequest(reservation.getReservationId(), "MOCK_PAYMENT"));
+        // A sweep of the paid reservation (e.g. a late deadline) must not take the bought tickets off
+        seatCapService.release(reservation.getReservationId());
+
+        assertEquals(3, ticketCount());
+        assertEquals(false, stringRedisTemplate.hasKey("SeatCapHold:" + reservation.getReservationId()));
+        assertThrows(ResponseStatusException.class, () -> reserve(2));
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void cancelOrder_shouldTakeTheCancelledTicketsOffTheCount() {
+        // Keep the booking worker from confirming the order while it is being cancelled
+        rabbitListenerEndpointRegistry.stop();
+        try {
+            ReservationResponse reservation = reserve(3);
+            OrderResponse order = orderService.createOrder(new PaymentRequest(reservation.getReservationId(), "MOCK_PAYMENT"));
+
+            orderService.cancelOrder(order.getOrderId());
+
+            assertEquals(0, ticketCount());
+            reserve(CAP);
+        } finally {
+            rabbitListenerEndpointRegistry.start();
+        }
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void release_shouldDecrementOnlyOnce_whenTheCallerAndTheSweeperRace() throws Exception {
+        ReservationResponse released = reserve(3);
+        reserve(1);
+
+        // ReservationService.releaseClaim and the expiry sweeper both release the same reservation
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Long>> releases = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            releases.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return seatCapService.release(released.getReservationId());
+            }));
+        }
+        start.countDown();
+
+        long releasedTickets = 0;
+        for (CompletableFuture<Long> release : releases) {
+            releasedTickets += release.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(3, releasedTickets, "Exactly one release may take the tickets off");
+        assertEquals(1, ticketCount());
+
+        // Later releases of the same reservation leave the count alone
+        seatCapService.release(released.getReservationId());
+        reservationDeadlineQueue.schedule(released.getReservationId(), Instant.now().minusSeconds(1));
+        reservationExpiryScheduler.releaseExpiredReservations();
+        assertEquals(1, ticketCount());
+    }
+
+    private ReservationResponse reserve(int quantity) {
+        ReservationRequest request = new ReservationRequest();
+        request.setEventId(event.getId());
+        request.setTicketTypeId(ticketType.getId());
+        request.setQuantity(quantity);
+        return reservationService.createReservation(request);
+    }
+
+    private int ticketCount() {
+        String count = stringRedisTemplate.opsForValue().get("SeatCap:" + event.getId() + ":" + testUser.getId());
+        return count == null ? 0 : Integer.parseInt(count);
+    }
+}
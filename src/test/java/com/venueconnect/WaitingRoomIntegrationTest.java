@@ -0,0 +1,135 @@
+package com.venueconnect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venueconnect.event.*;
+import com.venueconnect.order.OrderRepository;
+import com.venueconnect.reservation.ReservationRequest;
+import com.venueconnect.venue.*;
+import com.venueconnect.waitingroom.WaitingRoomService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class WaitingRoomIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private WaitingRoomService waitingRoomService;
+
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private VenueRepository venueRepository;
+    @Autowired private HallRepository hallRepository;
+    @Autowired private SeatRepository seatRepository;
+    @Autowired private EventRepository eventRepository;
+    @Autowired private TicketTypeRepository ticketTypeRepository;
+    @Autowired private EventSeatRepository eventSeatRepository;
+    @Autowired private StringRedisTemplate stringRedisTemplate;
+
+    private Event testEvent;
+    private EventSeat seat1;
+    private EventSeat seat2;
+
+    @BeforeEach
+    @Sql("/sql/insert-test-user.sql")
+    void setUpTestData() {
+        orderRepository.deleteAll();
+        eventSeatRepository.deleteAll();
+        ticketTypeRepository.deleteAll();
+        eventRepository.deleteAll();
+        seatRepository.deleteAll();
+        hallRepository.deleteAll();
+        venueRepository.deleteAll();
+        stringRedisTemplate.delete(stringRedisTemplate.keys("Admission:*"));
+
+        Venue venue = venueRepository.save(Venue.builder().name("Test Venue").build());
+        Hall hall = hallRepository.save(Hall.builder().name("Test Hall").venue(venue).build());
+        testEvent = eventRepository.save(Event.builder()
+                .name("Test Event")
+                .hall(hall)
+                .startTime(LocalDateTime.now().plusDays(1))
+                .endTime(LocalDateTime.now().plusDays(1).plusHours(2))
+                .build());
+        TicketType ticketType = ticketTypeRepository.save(TicketType.builder()
+                .event(testEvent).name("Standard").price(BigDecimal.TEN).totalQuantity(100).build());
+        seat1 = eventSeatRepository.save(EventSeat.builder()
+                .event(testEvent).ticketType(ticketType).status(SeatStatus.AVAILABLE)
+                .seat(seatRepository.save(Seat.builder().hall(hall).seatRow("A").seatNumber("1").build())).build());
+        seat2 = eventSeatRepository.save(EventSeat.builder()
+                .event(testEvent).ticketType(ticketType).status(SeatStatus.AVAILABLE)
+                .seat(seatRepository.save(Seat.builder().hall(hall).seatRow("A").seatNumber("2").build())).build());
+
+        waitingRoomService.open(testEvent.getId());
+    }
+
+    @AfterEach
+    void closeWaitingRoom() {
+        waitingRoomService.close(testEvent.getId());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void reserve_shouldUseTheAdmissionTokenUp() throws Exception {
+        reserve(seat1, null).andExpect(status().isForbidden());
+        String token = admitCurrentUser();
+
+        reserve(seat1, token).andExpect(status().isOk());
+        reserve(seat2, token).andExpect(status().isForbidden());
+
+        assertEquals(SeatStatus.AVAILABLE, eventSeatRepository.findById(seat2.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @WithUserDetails("testuser@example.com")
+    void reserve_shouldKeepTheAdmissionToken_whenNothingWasReserved() throws Exception {
+        seat1.setStatus(SeatStatus.BOOKED);
+        eventSeatRepository.save(seat1);
+        String token = admitCurrentUser();
+
+        // The seat is gone, so the request fails (unhandled, MockMvc rethrows it)
+        ServletException failure = assertThrows(ServletException.class, () -> reserve(seat1, token));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        reserve(seat2, token).andExpect(status().isOk());
+
+        assertEquals(SeatStatus.RESERVED, eventSeatRepository.findById(seat2.getId()).orElseThrow().getStatus());
+    }
+
+    // Queues the current user and lets them through, as the admitter would
+    private String admitCurrentUser() {
+        waitingRoomService.join(testEvent.getId());
+        waitingRoomService.admit(testEvent.getId(), 1);
+        String token = waitingRoomService.status(testEvent.getId()).getAdmissionToken();
+        assertNotNull(token);
+        return token;
+    }
+
+    private ResultActions reserve(EventSeat seat, String admissionToken) throws Exception {
+        var builder = post("/api/v1/reservations/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ReservationRequest(testEvent.getId(), List.of(seat.getId()))));
+        if (admissionToken != null) {
+            builder.header("X-Admission-Token", admissionToken);
+        }
+        return mockMvc.perform(builder);
+    }
+}
@@ -0,0 +1,134 @@
+package com.venueconnect.payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentCircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 1000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void shouldStayClosedUntilTheMinimumNumberOfCallsIsRecorded() {
+        PaymentCircuitBreaker breaker = breaker(10, 4, 50, 2);
+
+        record(breaker, true, true, true);
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, breaker.state());
+
+        record(breaker, true);
+        assertEquals(PaymentCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void shouldOpenOnceTheFailureRateReachesTheThreshold() {
+        PaymentCircuitBreaker breaker = breaker(10, 4, 50, 2);
+
+        record(breaker, false, false, true);
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, breaker.state());
+
+        record(breaker, true); // 2 of 4
+        assertEquals(PaymentCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void shouldForgetFailuresThatLeftTheWindow() {
+        PaymentCircuitBreaker breaker = breaker(4, 4, 60, 2);
+
+        record(breaker, true, true, false, false); // 2 of 4
+        record(breaker, false, false);             // both failures evicted: 0 of 4
+        record(breaker, true, true);               // 2 of 4 again, not 4
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, breaker.state());
+
+        record(breaker, true); // 3 of 4
+        assertEquals(PaymentCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void shouldRejectCallsWhileOpen_andLetTheTrialCallsThroughAfterwards() {
+        PaymentCircuitBreaker breaker = openBreaker(2);
+
+        assertFalse(breaker.tryPermit());
+        now.addAndGet(OPEN_MILLIS - 1);
+        assertFalse(breaker.tryPermit());
+
+        now.addAndGet(1);
+        assertTrue(breaker.tryPermit());
+        assertEquals(PaymentCircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryPermit());
+        assertFalse(breaker.tryPermit(), "Only the configured number of trial calls may pass");
+    }
+
+    @Test
+    void shouldClose_whenEveryTrialCallSucceeds() {
+        PaymentCircuitBreaker breaker = openBreaker(2);
+        now.addAndGet(OPEN_MILLIS);
+
+        assertTrue(breaker.tryPermit());
+        assertTrue(breaker.tryPermit());
+        record(breaker, false);
+        assertEquals(PaymentCircuitBreaker.State.HALF_OPEN, breaker.state());
+        record(breaker, false);
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, breaker.state());
+
+        // The window starts empty again: one failure is below the minimum number of calls
+        record(breaker, true);
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryPermit());
+    }
+
+    @Test
+    void shouldOpenAgain_whenATrialCallFails() {
+        PaymentCircuitBreaker breaker = openBreaker(2);
+        now.addAndGet(OPEN_MILLIS);
+
+        assertTrue(breaker.tryPermit());
+        record(breaker, true);
+
+        assertEquals(PaymentCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryPermit(), "The open period starts again from the failed trial");
+    }
+
+    @Test
+    void shouldFreeTheTrialSlotOfACancelledCall() {
+        PaymentCircuitBreaker breaker = openBreaker(1);
+        now.addAndGet(OPEN_MILLIS);
+
+        assertTrue(breaker.tryPermit());
+        assertFalse(breaker.tryPermit());
+        breaker.cancel();
+        assertTrue(breaker.tryPermit());
+        assertEquals(PaymentCircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    @Test
+    void shouldIgnoreOutcomesRecordedWhileOpen() {
+        PaymentCircuitBreaker breaker = openBreaker(1);
+
+        // Calls permitted before the breaker opened finish now
+        record(breaker, false, false, false);
+
+        assertEquals(PaymentCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryPermit());
+    }
+
+    private PaymentCircuitBreaker breaker(int windowSize, int minimumCalls, double failureRatePercent, int halfOpenCalls) {
+        return new PaymentCircuitBreaker(windowSize, minimumCalls, failureRatePercent, OPEN_MILLIS, halfOpenCalls, now::get);
+    }
+
+    private PaymentCircuitBreaker openBreaker(int halfOpenCalls) {
+        PaymentCircuitBreaker breaker = breaker(4, 2, 50, halfOpenCalls);
+        record(breaker, true, true);
+        assertEquals(PaymentCircuitBreaker.State.OPEN, breaker.state());
+        return breaker;
+    }
+
+    private void record(PaymentCircuitBreaker breaker, boolean... failures) {
+        for (boolean failed : failures) {
+            breaker.record(failed);
+        }
+    }
+}
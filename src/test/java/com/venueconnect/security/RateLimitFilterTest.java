@@ -0,0 +1,46 @@
+package com.venueconnect.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTest {
+
+    @Test
+    void shouldLetTheRequestThrough_whenRedisIsDown() throws Exception {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class, invocation -> {
+            throw new RedisConnectionFailureException("Connection refused");
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimitFilter filter = new RateLimitFilter(properties(), mock(JwtService.class), redis, meterRegistry);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/reservations/reserve");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+
+        assertSame(request, chain.getRequest(), "The request must reach the rest of the chain");
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Retry-After"));
+        assertNull(meterRegistry.find("venueconnect.ratelimit.rejected").counter());
+    }
+
+    private static RateLimitProperties properties() {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName("reservations");
+        route.setMethod("POST");
+        route.setPattern("/api/v1/reservations/**");
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(route));
+        return properties;
+    }
+}